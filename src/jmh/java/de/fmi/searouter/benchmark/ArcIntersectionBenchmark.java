@@ -0,0 +1,55 @@
+package de.fmi.searouter.benchmark;
+
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.coastlinegrid.CoastlineWays;
+import de.fmi.searouter.utils.IntersectionHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed to check if a synthetic coastline edge intersects with a random arc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArcIntersectionBenchmark {
+
+    //maximum distance between two points of the synthetic coastlines in degrees
+    @Param({"2.5", "0.1"})
+    public double coastlineStep;
+
+    //coordinates of the coastline edges and of the random arcs, four values per edge or arc
+    private double[] coastlineEdges;
+    private double[] arcs;
+    private int nextInput;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CoastlineWays.initEdges(SyntheticData.createCoastlines(coastlineStep));
+        int numOfEdges = Math.min(CoastlineWays.getNumberOfEdges(), BenchmarkData.NUM_OF_INPUTS);
+        coastlineEdges = new double[numOfEdges * 4];
+        for (int i = 0; i < numOfEdges; i++) {
+            coastlineEdges[i * 4] = CoastlineWays.getStartLatByEdgeIdx(i);
+            coastlineEdges[(i * 4) + 1] = CoastlineWays.getStartLonByEdgeIdx(i);
+            coastlineEdges[(i * 4) + 2] = CoastlineWays.getDestLatByEdgeIdx(i);
+            coastlineEdges[(i * 4) + 3] = CoastlineWays.getDestLonByEdgeIdx(i);
+        }
+        //every arc starts at one random point and ends at the next one
+        arcs = BenchmarkData.randomPoints(-90.0, 90.0);
+    }
+
+    @Benchmark
+    public boolean arcsIntersect() {
+        int idx = nextInput;
+        nextInput = (nextInput + 1) % (coastlineEdges.length / 4);
+        int edgeIdx = idx * 4;
+        int arcIdx = (idx % (BenchmarkData.NUM_OF_INPUTS - 1)) * 2;
+        return IntersectionHelper.arcsIntersect(coastlineEdges[edgeIdx], coastlineEdges[edgeIdx + 1],
+                coastlineEdges[edgeIdx + 2], coastlineEdges[edgeIdx + 3],
+                arcs[arcIdx], arcs[arcIdx + 1], arcs[arcIdx + 2], arcs[arcIdx + 3]);
+    }
+}
@@ -0,0 +1,52 @@
+package de.fmi.searouter.benchmark;
+
+import java.util.Random;
+
+/**
+ * Helper functions to create reproducible inputs for the benchmarks. All random values are based on a fixed seed.
+ */
+public class BenchmarkData {
+    //number of different inputs per benchmark, the benchmarks cycle through them
+    public static final int NUM_OF_INPUTS = 1024;
+    private static final long SEED = 123;
+
+    /**
+     * Parse the size of a synthetic grid given as benchmark parameter.
+     * @param grid the size in the format "latSteps x lonSteps", e.g. "15x30"
+     * @return an array containing the number of nodes along a longitude and along a latitude
+     */
+    public static int[] parseGridSize(String grid) {
+        String[] split = grid.split("x");
+        return new int[]{Integer.parseInt(split[0].trim()), Integer.parseInt(split[1].trim())};
+    }
+
+    /**
+     * Create random pairs of nodes.
+     * @param nodeCount the number of nodes in the grid
+     * @return an array containing start and destination nodes alternately
+     */
+    public static int[] randomNodePairs(int nodeCount) {
+        Random rnd = new Random(SEED);
+        int[] nodes = new int[NUM_OF_INPUTS * 2];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = rnd.nextInt(nodeCount);
+        }
+        return nodes;
+    }
+
+    /**
+     * Create random coordinates.
+     * @param minLat the minimum latitude of a point
+     * @param maxLat the maximum latitude of a point
+     * @return an array containing latitude and longitude alternately
+     */
+    public static double[] randomPoints(double minLat, double maxLat) {
+        Random rnd = new Random(SEED);
+        double[] points = new double[NUM_OF_INPUTS * 2];
+        for (int i = 0; i < NUM_OF_INPUTS; i++) {
+            points[i * 2] = minLat + ((maxLat - minLat) * rnd.nextDouble());
+            points[(i * 2) + 1] = -180.0 + (360.0 * rnd.nextDouble());
+        }
+        return points;
+    }
+}
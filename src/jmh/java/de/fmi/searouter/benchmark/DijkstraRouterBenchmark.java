@@ -0,0 +1,48 @@
+package de.fmi.searouter.benchmark;
+
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.dijkstragrid.Node;
+import de.fmi.searouter.router.DijkstraRouter;
+import de.fmi.searouter.router.RoutingResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed by the {@link DijkstraRouter} to calculate a route between two random nodes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DijkstraRouterBenchmark {
+
+    @Param({"15x30", "40x80"})
+    public String grid;
+
+    @Param({"DIJKSTRA", "BIDIRECTIONAL", "A_STAR"})
+    public String mode;
+
+    private DijkstraRouter router;
+    private int[] nodePairs;
+    private int nextPair;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        int[] gridSize = BenchmarkData.parseGridSize(grid);
+        SyntheticData.initGrid(gridSize[0], gridSize[1]);
+        RoutingResult.setHLRouterUse(false);
+        router = new DijkstraRouter(DijkstraRouter.Mode.valueOf(mode));
+        nodePairs = BenchmarkData.randomNodePairs(Node.getSize());
+    }
+
+    @Benchmark
+    public RoutingResult route() {
+        int idx = nextPair;
+        nextPair = (nextPair + 2) % nodePairs.length;
+        return router.route(nodePairs[idx], nodePairs[idx + 1]);
+    }
+}
@@ -0,0 +1,70 @@
+package de.fmi.searouter.benchmark;
+
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.hublabeldata.HubLNodes;
+import de.fmi.searouter.hublablecreation.LabelCreator;
+import de.fmi.searouter.router.HubLRouter;
+import de.fmi.searouter.router.LabelIntersector;
+import de.fmi.searouter.router.RoutingResult;
+import de.fmi.searouter.router.ScalarLabelIntersector;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed by the {@link HubLRouter} to calculate a route between two random nodes, with
+ * uncompressed labels in the separate and the interleaved layout and with compressed labels. Labels are either
+ * compared one by one or with the {@link LabelIntersector} chosen automatically (vectorized if available, only used
+ * for the separate layout). The memory used by the labels is printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HubLRouterBenchmark {
+
+    @Param({"15x30", "40x80"})
+    public String grid;
+
+    @Param({"SEPARATE", "INTERLEAVED", "COMPRESSED"})
+    public String labelLayout;
+
+    @Param({"SCALAR", "AUTO"})
+    public String intersector;
+
+    private HubLRouter router;
+    private int[] nodePairs;
+    private int nextPair;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        int[] gridSize = BenchmarkData.parseGridSize(grid);
+        LabelCreator.setCompressLabels(labelLayout.equals("COMPRESSED"));
+        LabelCreator.setLabelLayout(labelLayout.equals("INTERLEAVED")
+                ? HubLNodes.LabelLayout.INTERLEAVED : HubLNodes.LabelLayout.SEPARATE);
+        SyntheticData.initHubLData(gridSize[0], gridSize[1]);
+        System.out.println("Label data: " + HubLNodes.getLabelDataSize() + " bytes");
+        RoutingResult.setHLRouterUse(true);
+        HubLRouter.setLabelIntersector(intersector.equals("SCALAR")
+                ? new ScalarLabelIntersector() : LabelIntersector.create());
+        router = new HubLRouter();
+        nodePairs = BenchmarkData.randomNodePairs(HubLNodes.getNumOfNodes());
+    }
+
+    @Benchmark
+    public RoutingResult route() {
+        int idx = nextPair;
+        nextPair = (nextPair + 2) % nodePairs.length;
+        return router.route(nodePairs[idx], nodePairs[idx + 1]);
+    }
+
+    @Benchmark
+    public int routeDistance() {
+        int idx = nextPair;
+        nextPair = (nextPair + 2) % nodePairs.length;
+        return router.routeDistance(nodePairs[idx], nodePairs[idx + 1]);
+    }
+}
@@ -0,0 +1,58 @@
+package de.fmi.searouter.benchmark;
+
+import de.fmi.searouter.router.LabelIntersector;
+import de.fmi.searouter.router.ScalarLabelIntersector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed to find the common labels of two random label sets, using the scalar
+ * {@link LabelIntersector} or the one chosen automatically (vectorized if available).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LabelIntersectorBenchmark {
+
+    //number of labels per label set
+    @Param({"100", "500"})
+    public int labels;
+
+    @Param({"SCALAR", "AUTO"})
+    public String intersector;
+
+    private LabelIntersector labelIntersector;
+    //label nodes of all label sets, labels of set i start at index i * labels
+    private int[] labelNodes;
+    private int[] matchesA;
+    private int[] matchesB;
+    private int nextInput;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        labelIntersector = intersector.equals("SCALAR") ? new ScalarLabelIntersector() : LabelIntersector.create();
+        Random rnd = new Random(123);
+        labelNodes = new int[BenchmarkData.NUM_OF_INPUTS * labels];
+        for (int i = 0; i < BenchmarkData.NUM_OF_INPUTS; i++) {
+            //about a quarter of the labels of two sets are common
+            int[] nodes = rnd.ints(0, labels * 4).distinct().limit(labels).sorted().toArray();
+            System.arraycopy(nodes, 0, labelNodes, i * labels, labels);
+        }
+        matchesA = new int[labels];
+        matchesB = new int[labels];
+    }
+
+    @Benchmark
+    public int intersect() {
+        int startA = nextInput * labels;
+        nextInput = (nextInput + 1) % BenchmarkData.NUM_OF_INPUTS;
+        int startB = nextInput * labels;
+        return labelIntersector.intersect(labelNodes, startA, startA + labels, labelNodes, startB, startB + labels,
+                matchesA, matchesB);
+    }
+}
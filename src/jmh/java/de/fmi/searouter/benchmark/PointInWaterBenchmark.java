@@ -0,0 +1,45 @@
+package de.fmi.searouter.benchmark;
+
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed by the {@link PointInWaterChecker} to check if a random point is in water.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PointInWaterBenchmark {
+
+    //maximum distance between two points of the synthetic coastlines in degrees
+    @Param({"2.5", "0.1"})
+    public double coastlineStep;
+
+    private PointInWaterChecker checker;
+    private float[] points;
+    private int nextPoint;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticData.initPointInWaterChecker(coastlineStep);
+        checker = PointInWaterChecker.getInstance();
+        double[] randomPoints = BenchmarkData.randomPoints(-90.0, 90.0);
+        points = new float[randomPoints.length];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = (float) randomPoints[i];
+        }
+    }
+
+    @Benchmark
+    public boolean pointInWater() {
+        int idx = nextPoint;
+        nextPoint = (nextPoint + 2) % points.length;
+        return checker.pointInWater(points[idx], points[idx + 1]);
+    }
+}
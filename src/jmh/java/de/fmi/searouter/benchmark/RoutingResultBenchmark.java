@@ -0,0 +1,63 @@
+package de.fmi.searouter.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.dijkstragrid.Node;
+import de.fmi.searouter.router.DijkstraRouter;
+import de.fmi.searouter.router.RoutingResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed to create the result of a routing request and serialize it to JSON, as done by the
+ * REST API. The routes are calculated once during setup, only the path is passed to the result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingResultBenchmark {
+    private static final int NUM_OF_ROUTES = 64;
+
+    @Param({"40x80", "150x300"})
+    public String grid;
+
+    private ObjectMapper objectMapper;
+    private List<RoutingResult> routes;
+    private int nextRoute;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        int[] gridSize = BenchmarkData.parseGridSize(grid);
+        SyntheticData.initGrid(gridSize[0], gridSize[1]);
+        RoutingResult.setHLRouterUse(false);
+        objectMapper = new ObjectMapper();
+        DijkstraRouter router = new DijkstraRouter();
+        int[] nodePairs = BenchmarkData.randomNodePairs(Node.getSize());
+        routes = new ArrayList<>();
+        long pathLength = 0;
+        for (int i = 0; routes.size() < NUM_OF_ROUTES; i += 2) {
+            RoutingResult route = router.route(nodePairs[i], nodePairs[i + 1]);
+            if(route.routeFound()) {
+                routes.add(route);
+                pathLength += route.getPath().length;
+            }
+        }
+        System.out.println("Average path length: " + (pathLength / NUM_OF_ROUTES) + " nodes");
+    }
+
+    @Benchmark
+    public String serialize() throws IOException {
+        RoutingResult route = routes.get(nextRoute);
+        nextRoute = (nextRoute + 1) % NUM_OF_ROUTES;
+        RoutingResult result = new RoutingResult(route.getPath(), route.getOverallDistance(),
+                route.getCalculationTimeInMs());
+        return objectMapper.writeValueAsString(result);
+    }
+}
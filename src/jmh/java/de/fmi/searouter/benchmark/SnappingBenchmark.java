@@ -0,0 +1,40 @@
+package de.fmi.searouter.benchmark;
+
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.dijkstragrid.Grid;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed to find the grid node closest to a random point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnappingBenchmark {
+
+    @Param({"15x30", "40x80"})
+    public String grid;
+
+    private double[] points;
+    private int nextPoint;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        int[] gridSize = BenchmarkData.parseGridSize(grid);
+        SyntheticData.initGrid(gridSize[0], gridSize[1]);
+        points = BenchmarkData.randomPoints(-70.0, 70.0);
+    }
+
+    @Benchmark
+    public int getNearestGridNode() {
+        int idx = nextPoint;
+        nextPoint = (nextPoint + 2) % points.length;
+        return Grid.getNearestGridNodeByCoordinates(points[idx], points[idx + 1]);
+    }
+}
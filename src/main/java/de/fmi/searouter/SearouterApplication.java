@@ -1,14 +1,21 @@
 package de.fmi.searouter;
 
+import de.fmi.searouter.coastlinegrid.CoastlineWays;
+import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
 import de.fmi.searouter.dijkstragrid.Grid;
+import de.fmi.searouter.hublabeldata.HubLNodes;
 import de.fmi.searouter.hublabeldata.HubLStore;
 import de.fmi.searouter.importdata.LatLong;
 import de.fmi.searouter.rest.RoutingController;
+import de.fmi.searouter.router.DijkstraRouter;
+import de.fmi.searouter.router.HubLRouter;
+import de.fmi.searouter.router.RouteSimplifier;
 import de.fmi.searouter.router.RoutingRequest;
 import de.fmi.searouter.router.RoutingResult;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,13 +30,50 @@ public class SearouterApplication {
 	private static boolean IS_TEST_RUN = false;
 	private static boolean IGNORE_RES_NO_ROUTE = false;
 	private static int TEST_NUM_OF_ROUTES = 100000;
+	//variant of dijkstra used if the hub label router is not used
+	private static DijkstraRouter.Mode DIJKSTRA_MODE = DijkstraRouter.Mode.A_STAR;
+	//true if the label nodes should be copied to the heap so labels can be compared with vector instructions, only
+	//done if the vector API is available. Otherwise the labels stay memory-mapped and are compared one by one.
+	//Memory cost: 4 bytes of heap per label (e.g. 4 GB for one billion labels), -Xmx has to be increased accordingly.
+	private static boolean COPY_LABEL_NODES_FOR_VECTOR_API = false;
+	//maximum number of routes cached by the routing controller, 0 to disable the cache
+	private static long ROUTE_CACHE_SIZE = 10000;
+	//true if paths can be simplified on request, needs the serialized CoastlineWays (CoastlineWays.ser) and
+	//PointInWaterChecker (coastlineChecker.ser)
+	private static boolean ENABLE_ROUTE_SIMPLIFICATION = true;
+	//true if route calculations of the REST api are run by dedicated threads instead of the request threads
+	private static boolean ASYNC_ROUTING = false;
+	//maximum number of waiting calculations per lane if async routing is used, further requests are rejected (503)
+	private static int ROUTING_QUEUE_SIZE = 1000;
+	//maximum time of a calculation (including the waiting time) if async routing is used
+	private static long ROUTING_TIMEOUT_IN_MS = 10000;
 
 	public static void main(String[] args) {
 		RoutingController.setHLRouterUse(USE_HUB_LABEL_ROUTER);
 		RoutingResult.setHLRouterUse(USE_HUB_LABEL_ROUTER);
+		RoutingController.setRouteCacheSize(ROUTE_CACHE_SIZE);
+		RoutingController.setAsyncRouting(ASYNC_ROUTING);
+		RoutingController.setRoutingQueueSize(ROUTING_QUEUE_SIZE);
+		RoutingController.setRoutingTimeoutInMs(ROUTING_TIMEOUT_IN_MS);
+		if(ENABLE_ROUTE_SIMPLIFICATION) {
+			RouteSimplifier routeSimplifier = createRouteSimplifier(CoastlineWays.COASTLINE_WAYS_SERIALIZATION_FILE_NAME,
+					PointInWaterChecker.POINT_IN_WATER_CHECKER_SERIALIZATION_FILE_NAME);
+			if(routeSimplifier != null) {
+				RoutingController.setRouteSimplifier(routeSimplifier);
+			} else {
+				System.out.println("No serialized CoastlineWays and PointInWaterChecker found, route simplification is disabled");
+			}
+		}
+		DijkstraRouter.setDefaultMode(DIJKSTRA_MODE);
 
 		if(USE_HUB_LABEL_ROUTER) {
 			HubLStore.readData(HUB_LABEL_DATA_FILENAME);
+			if(COPY_LABEL_NODES_FOR_VECTOR_API && HubLRouter.getLabelIntersector().isVectorized()) {
+				HubLNodes.copyLabelNodesToHeap();
+				if(HubLNodes.getLabelNodeArray() != null) {
+					System.out.println("Label nodes have been copied to the heap for vectorized label comparisons");
+				}
+			}
 		} else {
 			try {
 				Grid.importFmiFile("exported_grid.fmi");
@@ -45,6 +89,28 @@ public class SearouterApplication {
 		}
 	}
 
+	/**
+	 * Create a route simplifier using the serialized coastline ways and point in water checker. The coastline ways
+	 * are only read from their file, the PBF file is never imported.
+	 * @param coastlineWaysFilename the path of the serialized coastline ways
+	 * @param pointInWaterCheckerFilename the path of the serialized point in water checker
+	 * @return the route simplifier, null if one of the files does not exist
+	 */
+	static RouteSimplifier createRouteSimplifier(String coastlineWaysFilename, String pointInWaterCheckerFilename) {
+		if(!new File(coastlineWaysFilename).exists() || !new File(pointInWaterCheckerFilename).exists()) {
+			return null;
+		}
+		try {
+			//the point in water checker uses the coastline edges, so they have to be read before it is used
+			CoastlineWays.readCoastlineWays(coastlineWaysFilename);
+			PointInWaterChecker.readPointInWaterChecker(pointInWaterCheckerFilename);
+		} catch (IOException | ClassNotFoundException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		return new RouteSimplifier(PointInWaterChecker.getInstance());
+	}
+
 	/**
 	 * Perform a test to evaluate performance of a given routing algorithm. This test
 	 * uses pseudo-random numbers to generate routing requests. Since the seed is hardcoded,
@@ -0,0 +1,306 @@
+package de.fmi.searouter.coastlinegrid;
+
+import de.fmi.searouter.importdata.CoastlineWay;
+import de.fmi.searouter.importdata.Point;
+import de.fmi.searouter.utils.IntersectionHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The coastline edges which differ between two versions of the coastline data. Edges contained in both versions
+ * are ignored, so only the edges which were added or removed are left. As both versions consist of closed
+ * coastlines, the changed edges form closed areas as well (e.g. the area between an old and a new pier of a
+ * harbour). The changed edges are grouped by these areas.
+ * <p>
+ * A point changes between land and water if and only if it is enclosed by an odd number of changed areas. This is
+ * checked by casting a ray along the meridian of the point to the border of an area and counting the crossings
+ * with the changed edges. The border is chosen in a way that it is on the same side of the area as the initial
+ * point of the {@link PointInWaterChecker}, whose status never changes.
+ */
+public class CoastlineChanges {
+
+    /**
+     * Margin in degrees added to the latitude bounds of an area. Coastline edges are arcs of great circles, which
+     * can reach slightly beyond the latitudes of their start and end points.
+     */
+    private static final double AREA_LAT_MARGIN = 1.0;
+
+    //changed edges, grouped by their area. The edges of an area are stored from areaOffset[area] to
+    //areaOffset[area + 1].
+    private final float[] startLat;
+    private final float[] startLon;
+    private final float[] destLat;
+    private final float[] destLon;
+    private final int[] areaOffset;
+
+    //bounds of the areas and the latitude of the border the rays of an area are cast to
+    private final double[] minLat;
+    private final double[] maxLat;
+    private final double[] minLon;
+    private final double[] maxLon;
+    private final double[] rayTargetLat;
+
+    /**
+     * Compares two versions of the coastline data.
+     *
+     * @param oldCoastlines the previous coastlines
+     * @param newCoastlines the updated coastlines
+     * @throws IllegalArgumentException if a changed area contains the initial point of the
+     *                                  {@link PointInWaterChecker}. In this case, the grid has to be rebuilt.
+     */
+    public CoastlineChanges(List<CoastlineWay> oldCoastlines, List<CoastlineWay> newCoastlines) {
+        //edges contained an even number of times in both versions together cancel each other out
+        Set<EdgeKey> changedEdges = new LinkedHashSet<>();
+        addEdges(oldCoastlines, changedEdges);
+        addEdges(newCoastlines, changedEdges);
+
+        //group the edges by the areas they belong to, the edges of an area are connected by their points
+        Map<Long, Integer> pointIds = new HashMap<>();
+        List<EdgeKey> edges = new ArrayList<>(changedEdges);
+        int[] parent = new int[2 * edges.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        int[] edgeStartPoint = new int[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            EdgeKey edge = edges.get(i);
+            edgeStartPoint[i] = getPointId(pointIds, edge.latA, edge.lonA);
+            int destPoint = getPointId(pointIds, edge.latB, edge.lonB);
+            parent[find(parent, edgeStartPoint[i])] = find(parent, destPoint);
+        }
+
+        Map<Integer, Integer> areaByRoot = new HashMap<>();
+        int[] edgeArea = new int[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            int root = find(parent, edgeStartPoint[i]);
+            edgeArea[i] = areaByRoot.computeIfAbsent(root, r -> areaByRoot.size());
+        }
+        int numOfAreas = areaByRoot.size();
+
+        areaOffset = new int[numOfAreas + 1];
+        for (int area : edgeArea) {
+            areaOffset[area + 1]++;
+        }
+        for (int area = 0; area < numOfAreas; area++) {
+            areaOffset[area + 1] += areaOffset[area];
+        }
+
+        startLat = new float[edges.size()];
+        startLon = new float[edges.size()];
+        destLat = new float[edges.size()];
+        destLon = new float[edges.size()];
+        minLat = new double[numOfAreas];
+        maxLat = new double[numOfAreas];
+        minLon = new double[numOfAreas];
+        maxLon = new double[numOfAreas];
+        rayTargetLat = new double[numOfAreas];
+        for (int area = 0; area < numOfAreas; area++) {
+            minLat[area] = Double.MAX_VALUE;
+            maxLat[area] = -Double.MAX_VALUE;
+            minLon[area] = Double.MAX_VALUE;
+            maxLon[area] = -Double.MAX_VALUE;
+        }
+
+        int[] nextPos = new int[numOfAreas];
+        System.arraycopy(areaOffset, 0, nextPos, 0, numOfAreas);
+        for (int i = 0; i < edges.size(); i++) {
+            EdgeKey edge = edges.get(i);
+            int area = edgeArea[i];
+            int pos = nextPos[area]++;
+            startLat[pos] = edge.latA;
+            startLon[pos] = edge.lonA;
+            destLat[pos] = edge.latB;
+            destLon[pos] = edge.lonB;
+
+            minLat[area] = Math.min(minLat[area], Math.min(edge.latA, edge.latB));
+            maxLat[area] = Math.max(maxLat[area], Math.max(edge.latA, edge.latB));
+            if (Math.abs(edge.lonA - edge.lonB) > 180.0) {
+                //edge crosses the antimeridian
+                minLon[area] = -180.0;
+                maxLon[area] = 180.0;
+            } else {
+                minLon[area] = Math.min(minLon[area], Math.min(edge.lonA, edge.lonB));
+                maxLon[area] = Math.max(maxLon[area], Math.max(edge.lonA, edge.lonB));
+            }
+        }
+
+        for (int area = 0; area < numOfAreas; area++) {
+            minLat[area] = Math.max(-90.0, minLat[area] - AREA_LAT_MARGIN);
+            maxLat[area] = Math.min(90.0, maxLat[area] + AREA_LAT_MARGIN);
+            rayTargetLat[area] = getRayTargetLat(area);
+        }
+    }
+
+    /**
+     * Find the latitude rays of an area are cast to. It has to be outside of the area and on the same side as the
+     * initial point of the {@link PointInWaterChecker}.
+     *
+     * @param area the area
+     * @return the latitude of the border of the area
+     */
+    private double getRayTargetLat(int area) {
+        double initLat = PointInWaterChecker.INITIAL_POINT_LAT;
+        double initLon = PointInWaterChecker.INITIAL_POINT_LON;
+        if (initLat < minLat[area]) {
+            return minLat[area];
+        } else if (initLat > maxLat[area]) {
+            return maxLat[area];
+        }
+        if (initLon >= minLon[area] && initLon <= maxLon[area]) {
+            throw new IllegalArgumentException("Coastline changes between " + minLat[area] + "/" + minLon[area] +
+                    " and " + maxLat[area] + "/" + maxLon[area] + " contain the initial point in water check");
+        }
+        //the initial point is beside the area, so it can be reached from both the northern and the southern border
+        if (maxLat[area] < 90.0) {
+            return maxLat[area];
+        } else if (minLat[area] > -90.0) {
+            return minLat[area];
+        }
+        throw new IllegalArgumentException("Coastline changes between " + minLat[area] + "/" + minLon[area] +
+                " and " + maxLat[area] + "/" + maxLon[area] + " span from pole to pole");
+    }
+
+    /**
+     * Check whether a point changed between land and water.
+     *
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     * @return true if the point changed, false if it is still on land or in water
+     */
+    public boolean isPointChanged(float lat, float lon) {
+        boolean changed = false;
+        for (int area = 0; area < getNumberOfAreas(); area++) {
+            if (lat < minLat[area] || lat > maxLat[area] || lon < minLon[area] || lon > maxLon[area]) {
+                continue;
+            }
+            if (crossesAreaOddTimes(area, lat, lon)) {
+                changed = !changed;
+            }
+        }
+        return changed;
+    }
+
+    private boolean crossesAreaOddTimes(int area, double lat, double lon) {
+        double rayLon = lon;
+        boolean oddCrossings = false;
+        boolean noException;
+        do {
+            noException = true;
+            oddCrossings = false;
+            try {
+                for (int edge = areaOffset[area]; edge < areaOffset[area + 1]; edge++) {
+                    if (IntersectionHelper.arcsIntersectWithException(startLat[edge], startLon[edge],
+                            destLat[edge], destLon[edge], lat, rayLon, rayTargetLat[area], rayLon)) {
+                        oddCrossings = !oddCrossings;
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                // A point of a coastline is exactly on the ray, so the number of crossings might be off. The
+                // longitude of the ray is shifted slightly in this case.
+                rayLon += 0.000001;
+                noException = false;
+            }
+        } while (!noException);
+        return oddCrossings;
+    }
+
+    /**
+     * Add all edges of the given coastlines to the set of changed edges. Edges which are already contained in the
+     * set are removed instead.
+     */
+    private static void addEdges(List<CoastlineWay> coastlines, Set<EdgeKey> changedEdges) {
+        for (CoastlineWay way : coastlines) {
+            List<Point> points = way.getPoints();
+            for (int i = 0; i + 1 < points.size(); i++) {
+                Point start = points.get(i);
+                Point dest = points.get(i + 1);
+                if (start.getLat() == dest.getLat() && start.getLon() == dest.getLon()) {
+                    continue;
+                }
+                EdgeKey edge = new EdgeKey(start.getLat(), start.getLon(), dest.getLat(), dest.getLon());
+                if (!changedEdges.remove(edge)) {
+                    changedEdges.add(edge);
+                }
+            }
+        }
+    }
+
+    private static int getPointId(Map<Long, Integer> pointIds, float lat, float lon) {
+        long key = ((long) Float.floatToIntBits(lat) << 32) | (Float.floatToIntBits(lon) & 0xFFFFFFFFL);
+        return pointIds.computeIfAbsent(key, k -> pointIds.size());
+    }
+
+    private static int find(int[] parent, int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    public int getNumberOfChangedEdges() {
+        return startLat.length;
+    }
+
+    public int getNumberOfAreas() {
+        return areaOffset.length - 1;
+    }
+
+    // Bounds of the areas, points outside of these bounds never change
+
+    public double getMinLat(int area) {
+        return minLat[area];
+    }
+
+    public double getMaxLat(int area) {
+        return maxLat[area];
+    }
+
+    public double getMinLon(int area) {
+        return minLon[area];
+    }
+
+    public double getMaxLon(int area) {
+        return maxLon[area];
+    }
+
+    /**
+     * An undirected coastline edge. The points are ordered, so an edge equals the same edge in reverse direction.
+     */
+    private static final class EdgeKey {
+        private final float latA;
+        private final float lonA;
+        private final float latB;
+        private final float lonB;
+
+        private EdgeKey(float startLat, float startLon, float destLat, float destLon) {
+            boolean swap = startLat > destLat || (startLat == destLat && startLon > destLon);
+            this.latA = swap ? destLat : startLat;
+            this.lonA = swap ? destLon : startLon;
+            this.latB = swap ? startLat : destLat;
+            this.lonB = swap ? startLon : destLon;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EdgeKey)) {
+                return false;
+            }
+            EdgeKey other = (EdgeKey) o;
+            return latA == other.latA && lonA == other.lonA && latB == other.latB && lonB == other.lonB;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Float.hashCode(latA);
+            result = 31 * result + Float.hashCode(lonA);
+            result = 31 * result + Float.hashCode(latB);
+            return 31 * result + Float.hashCode(lonB);
+        }
+    }
+}
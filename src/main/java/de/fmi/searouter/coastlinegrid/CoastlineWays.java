@@ -4,16 +4,40 @@ import de.fmi.searouter.importdata.CoastlineWay;
 import de.fmi.searouter.importdata.Point;
 import de.fmi.searouter.osmimport.CoastlineImporter;
 
+import de.fmi.searouter.utils.SectionFile;
+
 import java.io.*;
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * CoastlineWays stores all OSM information about every coastlines on earth. This includes coastline edges, their
  * vertices and coordinate positions.
+ * <p>
+ * The data is stored in a flat binary file written by {@link SectionFile}, which contains a CRC32 checksum of the
+ * data. When reading, the arrays are mapped directly from the file, so the data stays off the java heap. Files
+ * created by older versions using java serialization can still be read.
  */
 public class CoastlineWays {
 
+    //"CLWY" in ascii, identifies files in the binary format
+    private static final int MAGIC_NUMBER = 0x434C5759;
+    private static final int FORMAT_VERSION = 1;
+
+    //indices of the arrays (sections) in the file
+    private static final int EDGE_POS_START = 0;
+    private static final int POINT_LAT = 1;
+    private static final int POINT_LON = 2;
+    private static final int NUM_OF_SECTIONS = 3;
+
+    /**
+     * Whether the checksum is verified when reading a file. Verifying requires reading the whole file once.
+     */
+    private static boolean verifyChecksum = true;
+
     /**
      * The name of the pbf file containing the coastline information from OSM.
      */
@@ -30,13 +54,21 @@ public class CoastlineWays {
      * this edge can be found in the {@link #pointLat} and {@link #pointLon} array. The coordinate
      * information of the destination point is stored at index offset+1 in those arrays.
      */
-    private static int[] edgePosStart;
+    private static IntBuffer edgePosStart;
 
     /**
      * In these arrays, the positions of start and end points of coastline edges is stored.
      */
-    private static float[] pointLon;
-    private static float[] pointLat;
+    private static FloatBuffer pointLon;
+    private static FloatBuffer pointLat;
+
+    /**
+     * Set whether the checksum is verified when reading the coastline ways from a file.
+     * @param verifyChecksum true if the checksum should be verified, else false
+     */
+    public static void setVerifyChecksum(boolean verifyChecksum) {
+        CoastlineWays.verifyChecksum = verifyChecksum;
+    }
 
     /**
      * Initialize the coastline ways. If no file with the serialized data is present,
@@ -77,29 +109,26 @@ public class CoastlineWays {
     }
 
     /**
-     * Writes all information stored in this class to disk using Javas in-built serialization mechanism.
-     * The serialization file will be created at the top-level of this project with
-     * the name {@link #COASTLINE_WAYS_SERIALIZATION_FILE_NAME}.
+     * Replace the coastline ways by updated ones and serialize them, so later calls of
+     * {@link #initCoastlineWays()} use the updated coastlines.
      *
-     * The data can again be deserialized using {@link #getData()}.
+     * @param coastlines The updated coastlines
      */
-    private static void storeData() {
-        CoastlineWriter writer = new CoastlineWriter(edgePosStart, pointLat, pointLon);
+    public static void updateCoastlineWays(List<CoastlineWay> coastlines) {
+        initEdges(coastlines);
+        storeData();
+    }
 
-        // Serialization
+    /**
+     * Writes all information stored in this class to disk in the binary format. The file will be created at the
+     * top-level of this project with the name {@link #COASTLINE_WAYS_SERIALIZATION_FILE_NAME}.
+     *
+     * The data can again be read using {@link #getData()}.
+     */
+    private static void storeData() {
         try {
-            //Saving of object in a file
-            FileOutputStream file = new FileOutputStream(COASTLINE_WAYS_SERIALIZATION_FILE_NAME);
-            ObjectOutputStream out = new ObjectOutputStream(file);
-
-            // Method for serialization of object
-            out.writeObject(writer);
-
-            out.close();
-            file.close();
-
-            System.out.println("Coastline ways have been serialized");
-
+            storeData(COASTLINE_WAYS_SERIALIZATION_FILE_NAME);
+            System.out.println("Coastline ways have been stored");
         } catch (IOException ex) {
             ex.printStackTrace();
             System.exit(-1);
@@ -107,31 +136,86 @@ public class CoastlineWays {
     }
 
     /**
-     * Deserializes previously serialized information (via {@link #storeData()}) of a CoastlineChecker
-     * and fills up the data structures of this CoastlineChecker accordingly.
+     * Reads previously stored information (via {@link #storeData()}) and fills up the data structures of this
+     * class accordingly.
      */
     private static void getData() {
         try {
-            // Reading the object from a file
-            FileInputStream file = new FileInputStream(COASTLINE_WAYS_SERIALIZATION_FILE_NAME);
-            ObjectInputStream in = new ObjectInputStream(file);
-
-            // Method for deserialization of object
-            CoastlineWriter writer = (CoastlineWriter) in.readObject();
-
-            in.close();
-            file.close();
-
-            System.out.println("Coastline ways have been deserialized ");
-            edgePosStart = writer.getEdgePosStart();
-            pointLat = writer.getPointLat();
-            pointLon = writer.getPointLon();
+            readCoastlineWays(COASTLINE_WAYS_SERIALIZATION_FILE_NAME);
         } catch (Exception ex) {
             ex.printStackTrace();
             System.exit(-1);
         }
     }
 
+    /**
+     * Read the coastline ways from a file created by {@link #storeData(String)} or by an older version using java
+     * serialization. In contrast to {@link #initCoastlineWays()}, the PBF file is never imported and no file is
+     * written.
+     *
+     * @param filename The path of the file
+     * @throws IOException If the file can not be read or is not valid
+     * @throws ClassNotFoundException If a file created using java serialization does not contain coastline ways
+     */
+    public static void readCoastlineWays(String filename) throws IOException, ClassNotFoundException {
+        if (readData(filename)) {
+            System.out.println("Coastline ways have been mapped");
+        } else {
+            System.out.println("Coastline ways have been deserialized");
+        }
+    }
+
+    /**
+     * Write all information stored in this class to a file in the binary format.
+     *
+     * @param filename The path of the file
+     * @throws IOException If writing fails
+     */
+    public static void storeData(String filename) throws IOException {
+        Buffer[] sections = new Buffer[NUM_OF_SECTIONS];
+        sections[EDGE_POS_START] = edgePosStart;
+        sections[POINT_LAT] = pointLat;
+        sections[POINT_LON] = pointLon;
+        SectionFile.write(filename, MAGIC_NUMBER, FORMAT_VERSION, new int[0], sections);
+    }
+
+    /**
+     * Read a file created by {@link #storeData(String)} or by an older version using java serialization.
+     *
+     * @param filename The path of the file
+     * @return True if the file is in the binary format, false if it was created using java serialization
+     * @throws IOException If the file can not be read or is not valid
+     * @throws ClassNotFoundException If a file created using java serialization does not contain coastline ways
+     */
+    static boolean readData(String filename) throws IOException, ClassNotFoundException {
+        SectionFile file = SectionFile.map(filename, MAGIC_NUMBER, FORMAT_VERSION, 0, NUM_OF_SECTIONS,
+                verifyChecksum);
+        if (file == null) {
+            readSerializedData(filename);
+            return false;
+        }
+        edgePosStart = file.getIntSection(EDGE_POS_START);
+        pointLat = file.getFloatSection(POINT_LAT);
+        pointLon = file.getFloatSection(POINT_LON);
+        return true;
+    }
+
+    /**
+     * Read a file created by an older version using java serialization.
+     *
+     * @param filename The path of the file
+     * @throws IOException If the file can not be read
+     * @throws ClassNotFoundException If the file does not contain coastline ways
+     */
+    private static void readSerializedData(String filename) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            CoastlineWriter writer = (CoastlineWriter) in.readObject();
+            edgePosStart = IntBuffer.wrap(writer.getEdgePosStart());
+            pointLat = FloatBuffer.wrap(writer.getPointLat());
+            pointLon = FloatBuffer.wrap(writer.getPointLon());
+        }
+    }
+
     /**
      * Setup the data structures of this class using OSM coastline information based on
      * {@link CoastlineWay} objects.
@@ -151,9 +235,9 @@ public class CoastlineWays {
         }
 
         // Init arrays representing all coastline edges
-        edgePosStart = new int[numberOfEdges];
-        pointLon = new float[numberOfCoordinates];
-        pointLat = new float[numberOfCoordinates];
+        int[] edgePosStart = new int[numberOfEdges];
+        float[] pointLon = new float[numberOfCoordinates];
+        float[] pointLat = new float[numberOfCoordinates];
 
         // Counter for the edge index
         int nextEdgeIdx = 0;
@@ -191,28 +275,32 @@ public class CoastlineWays {
 
             }
         }
+
+        CoastlineWays.edgePosStart = IntBuffer.wrap(edgePosStart);
+        CoastlineWays.pointLon = FloatBuffer.wrap(pointLon);
+        CoastlineWays.pointLat = FloatBuffer.wrap(pointLat);
     }
 
 
     public static int getNumberOfEdges() {
-        return edgePosStart.length;
+        return edgePosStart.limit();
     }
 
     // All functions below return based on the position stored for the edge-ID (which is the index in edgePosStart)
     public static float getStartLatByEdgeIdx(int edgeIdx) {
-        return pointLat[edgePosStart[edgeIdx]];
+        return pointLat.get(edgePosStart.get(edgeIdx));
     }
 
     public static float getDestLatByEdgeIdx(int edgeIdx) {
-        return pointLat[edgePosStart[edgeIdx] + 1];
+        return pointLat.get(edgePosStart.get(edgeIdx) + 1);
     }
 
     public static float getStartLonByEdgeIdx(int edgeIdx) {
-        return pointLon[edgePosStart[edgeIdx]];
+        return pointLon.get(edgePosStart.get(edgeIdx));
     }
 
     public static float getDestLonByEdgeIdx(int edgeIdx) {
-        return pointLon[edgePosStart[edgeIdx] + 1];
+        return pointLon.get(edgePosStart.get(edgeIdx) + 1);
     }
 
 }
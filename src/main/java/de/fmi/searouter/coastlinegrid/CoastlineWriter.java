@@ -3,7 +3,8 @@ package de.fmi.searouter.coastlinegrid;
 import java.io.Serializable;
 
 /**
- * Helper class for enabling a (de)serialization mechanism of the static {@link CoastlineWays} class.
+ * Helper class for enabling a (de)serialization mechanism of the static {@link CoastlineWays} class. Only used
+ * to read files created by older versions, new files are stored in a binary format.
  */
 class CoastlineWriter implements Serializable {
 
@@ -10,6 +10,8 @@ import java.util.Set;
  * A GridCell is a area on the world map.
  */
 public abstract class GridCell implements Serializable {
+    //fixed, as files created using java serialization have to be readable
+    private static final long serialVersionUID = -7236077043030243724L;
 
     /**
      * From which direction the cell was created. Relevant for {@link #initCenterPoint}.
@@ -13,6 +13,8 @@ import java.util.stream.Collectors;
  * of the multi-level grid cell tree.
  */
 public class GridLeaf extends GridCell {
+    //fixed, as files created using java serialization have to be readable
+    private static final long serialVersionUID = 737196759113415989L;
 
     /**
      * Contains all IDs of edges contained in this {@link GridLeaf}
@@ -142,4 +144,14 @@ public class GridLeaf extends GridCell {
         return lonCenterPoint;
     }
 
+    //getters used when flattening the grid
+
+    int[] getEdgeIds() {
+        return edgeIds;
+    }
+
+    boolean isCenterPointInWater() {
+        return centerPointInWater;
+    }
+
 }
@@ -12,6 +12,8 @@ import java.util.Set;
  * of the multi-level grid cell tree.
  */
 public class GridParent extends GridCell {
+    //fixed, as files created using java serialization have to be readable
+    private static final long serialVersionUID = 5515766186832983449L;
 
     // Boundaries of the cell
     private final double southernLatitude;
@@ -333,4 +335,18 @@ public class GridParent extends GridCell {
         return new GridNode(this.centerPointLat, this.centerPointLon);
     }
 
+    //getters used when flattening the grid
+
+    GridCell getLowerLevelCell(int latIdx, int lonIdx) {
+        return lowerLevelCells[latIdx][lonIdx];
+    }
+
+    double[] getInnerLatBorders() {
+        return innerLatBorders;
+    }
+
+    double[] getInnerLonBorders() {
+        return innerLonBorders;
+    }
+
 }
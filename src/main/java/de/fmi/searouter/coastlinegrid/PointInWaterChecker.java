@@ -1,9 +1,16 @@
 package de.fmi.searouter.coastlinegrid;
 
 import de.fmi.searouter.utils.IntersectionHelper;
+import de.fmi.searouter.utils.SectionFile;
 
 import java.io.*;
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -13,11 +20,19 @@ import java.util.Set;
  * each of which containing a maximum of 1000 coastline edges.
  * For the decision whether a given point is on land or on water a ray casting algorithm is used in combination
  * with a pre-computed center point of each GridCell for which the water/land status is already pre-computed.
+ * <p>
+ * After the grid cells were created, they are flattened into arrays: every cell has an id, with the top level
+ * cells first and the nine children of a {@link GridParent} stored next to each other. Lookups walk down these
+ * arrays without recursion or allocations. The arrays are stored in a flat binary file written by {@link SectionFile}
+ * and mapped directly when read. Files created by older versions using java serialization can still be read.
  */
 public final class PointInWaterChecker implements Serializable{
+    //fixed, as files created using java serialization have to be readable
+    private static final long serialVersionUID = 2513616633314405527L;
+
     //information on the initial point given to calculate the grid used to determine if a point is on land or in water.
-    private static final double INITIAL_POINT_LAT = -83.0;
-    private static final double INITIAL_POINT_LON = -170.0;
+    static final double INITIAL_POINT_LAT = -83.0;
+    static final double INITIAL_POINT_LON = -170.0;
     private static final boolean INITIAL_POINT_IN_WATER = false;
 
     /**
@@ -26,9 +41,52 @@ public final class PointInWaterChecker implements Serializable{
     private static PointInWaterChecker INSTANCE;
 
     /**
-     * top level of the grid used to determine if a point is on land or in water.
+     * top level of the grid used to determine if a point is on land or in water. Only used until the grid is
+     * flattened.
+     */
+    private GridCell[][] topLevelGrid;
+
+    //"PIWC" in ascii, identifies files in the binary format
+    private static final int MAGIC_NUMBER = 0x50495743;
+    private static final int FORMAT_VERSION = 1;
+
+    //indices of the arrays (sections) in the file
+    private static final int CELL_REF = 0;
+    private static final int PARENT_FIRST_CHILD = 1;
+    private static final int PARENT_BORDERS = 2;
+    private static final int LEAF_CENTER_LAT = 3;
+    private static final int LEAF_CENTER_LON = 4;
+    private static final int LEAF_CENTER_IN_WATER = 5;
+    private static final int LEAF_EDGE_OFFSET = 6;
+    private static final int LEAF_EDGES = 7;
+    private static final int NUM_OF_SECTIONS = 8;
+
+    //number of top level cells, their ids are latIdx * 36 + lonIdx
+    private static final int NUM_OF_TOP_LEVEL_CELLS = 18 * 36;
+
+    /**
+     * For each cell: the index of the parent (if >= 0) or -(index of the leaf) - 1.
+     */
+    private transient IntBuffer cellRef;
+    /**
+     * For each parent: the cell id of its first child. The children of a parent are stored in order [lat][lon].
+     */
+    private transient IntBuffer parentFirstChild;
+    /**
+     * For each parent: the two inner latitude borders, followed by the two inner longitude borders.
+     */
+    private transient DoubleBuffer parentBorders;
+    /**
+     * For each leaf: the coordinates of the center point and whether it is in water (one bit per leaf).
+     */
+    private transient DoubleBuffer leafCenterLat;
+    private transient DoubleBuffer leafCenterLon;
+    private transient LongBuffer leafCenterInWater;
+    /**
+     * The edges of all leaves. The edges of a leaf are stored from leafEdgeOffset[leaf] to leafEdgeOffset[leaf + 1].
      */
-    private final GridCell[][] topLevelGrid;
+    private transient IntBuffer leafEdgeOffset;
+    private transient IntBuffer leafEdges;
 
     /**
      * Whether {@link #initPointInWaterChecker()} was already called.
@@ -38,7 +96,7 @@ public final class PointInWaterChecker implements Serializable{
     /**
      * The name of the serialization file which is created for storing the PointInWaterCheckers information.
      */
-    private static final String POINT_IN_WATER_CHECKER_SERIALIZATION_FILE_NAME = "coastlineChecker.ser";
+    public static final String POINT_IN_WATER_CHECKER_SERIALIZATION_FILE_NAME = "coastlineChecker.ser";
 
     /**
      * Initializes this {@link PointInWaterChecker} singleton.
@@ -50,38 +108,18 @@ public final class PointInWaterChecker implements Serializable{
         if (!serializationFile.exists()) {
             PointInWaterChecker pointInWaterChecker = new PointInWaterChecker();
 
-            // Create PointInWaterChecker instance and serialize it for later use.
+            // Store the PointInWaterChecker for later use.
             try {
-                FileOutputStream file = new FileOutputStream(POINT_IN_WATER_CHECKER_SERIALIZATION_FILE_NAME);
-                ObjectOutputStream out = new ObjectOutputStream(file);
-
-                out.writeObject(pointInWaterChecker);
-
-                out.close();
-                file.close();
-
-                System.out.println("PointInWaterChecker has been serialized");
+                pointInWaterChecker.storeData(POINT_IN_WATER_CHECKER_SERIALIZATION_FILE_NAME);
+                System.out.println("PointInWaterChecker has been stored");
                 INSTANCE = pointInWaterChecker;
-
             } catch (IOException ex) {
                 ex.printStackTrace();
                 System.exit(0);
             }
         } else {
-            // Deserialization
             try {
-                // Reading the object from a file
-                FileInputStream file = new FileInputStream(POINT_IN_WATER_CHECKER_SERIALIZATION_FILE_NAME);
-                ObjectInputStream in = new ObjectInputStream(file);
-
-                // Method for deserialization of object
-                PointInWaterChecker pointInWaterChecker = (PointInWaterChecker) in.readObject();
-
-                in.close();
-                file.close();
-
-                System.out.println("PointInWaterChecker has been deserialized");
-                INSTANCE = pointInWaterChecker;
+                INSTANCE = readData(POINT_IN_WATER_CHECKER_SERIALIZATION_FILE_NAME);
             } catch (IOException | ClassNotFoundException ex) {
                 ex.printStackTrace();
                 System.exit(-1);
@@ -90,6 +128,86 @@ public final class PointInWaterChecker implements Serializable{
         initCalled = true;
     }
 
+    /**
+     * Initializes this {@link PointInWaterChecker} singleton from a given file. The file is never created, so the
+     * coastline edges are not needed for this, but they have to be available in {@link CoastlineWays} before
+     * points are checked.
+     *
+     * @param filename The path of the file
+     * @throws IOException If the file can not be read or is not valid
+     * @throws ClassNotFoundException If a file created using java serialization does not contain a
+     *                                {@link PointInWaterChecker}
+     */
+    public static void readPointInWaterChecker(String filename) throws IOException, ClassNotFoundException {
+        INSTANCE = readData(filename);
+        initCalled = true;
+    }
+
+    /**
+     * Read a file created by {@link #storeData(String)} or by an older version using java serialization.
+     *
+     * @param filename The path of the file
+     * @return The {@link PointInWaterChecker} contained in the file
+     * @throws IOException If the file can not be read or is not valid
+     * @throws ClassNotFoundException If a file created using java serialization does not contain a
+     *                                {@link PointInWaterChecker}
+     */
+    static PointInWaterChecker readData(String filename) throws IOException, ClassNotFoundException {
+        SectionFile file = SectionFile.map(filename, MAGIC_NUMBER, FORMAT_VERSION, 0, NUM_OF_SECTIONS, false);
+        if (file == null) {
+            // Deserialization of the grid cells, which are flattened afterwards
+            PointInWaterChecker pointInWaterChecker;
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(filename)))) {
+                pointInWaterChecker = (PointInWaterChecker) in.readObject();
+            }
+            pointInWaterChecker.flatten();
+            System.out.println("PointInWaterChecker has been deserialized");
+            return pointInWaterChecker;
+        }
+
+        PointInWaterChecker pointInWaterChecker = new PointInWaterChecker(file);
+        System.out.println("PointInWaterChecker has been mapped");
+        return pointInWaterChecker;
+    }
+
+    /**
+     * Write the flattened grid to a file in the binary format.
+     *
+     * @param filename The path of the file
+     * @throws IOException If writing fails
+     */
+    public void storeData(String filename) throws IOException {
+        Buffer[] sections = new Buffer[NUM_OF_SECTIONS];
+        sections[CELL_REF] = cellRef;
+        sections[PARENT_FIRST_CHILD] = parentFirstChild;
+        sections[PARENT_BORDERS] = parentBorders;
+        sections[LEAF_CENTER_LAT] = leafCenterLat;
+        sections[LEAF_CENTER_LON] = leafCenterLon;
+        sections[LEAF_CENTER_IN_WATER] = leafCenterInWater;
+        sections[LEAF_EDGE_OFFSET] = leafEdgeOffset;
+        sections[LEAF_EDGES] = leafEdges;
+        SectionFile.write(filename, MAGIC_NUMBER, FORMAT_VERSION, new int[0], sections);
+    }
+
+    /**
+     * Delete the serialization file, e.g. because the coastlines it was created from changed. The file is created
+     * again when the {@link PointInWaterChecker} is initialized the next time.
+     * @return true if the file was deleted, false if it did not exist
+     */
+    public static boolean deleteSerialization() {
+        return new File(POINT_IN_WATER_CHECKER_SERIALIZATION_FILE_NAME).delete();
+    }
+
+    /**
+     * Initializes this {@link PointInWaterChecker} singleton directly from the coastline edges currently stored in
+     * {@link CoastlineWays}. No serialization file is read or written.
+     */
+    public static void initFromCoastlineWays() {
+        INSTANCE = new PointInWaterChecker();
+        initCalled = true;
+    }
+
     /**
      * @return The instance of this singleton.
      */
@@ -263,6 +381,102 @@ public final class PointInWaterChecker implements Serializable{
                 previousEdges = topLevelGrid[latIdx][lonIdx].getAllContainedEdgeIDs();
             }
         }
+
+        flatten();
+    }
+
+    /**
+     * Create a {@link PointInWaterChecker} using the flattened grid stored in a file.
+     *
+     * @param file The mapped file
+     */
+    private PointInWaterChecker(SectionFile file) {
+        cellRef = file.getIntSection(CELL_REF);
+        parentFirstChild = file.getIntSection(PARENT_FIRST_CHILD);
+        parentBorders = file.getDoubleSection(PARENT_BORDERS);
+        leafCenterLat = file.getDoubleSection(LEAF_CENTER_LAT);
+        leafCenterLon = file.getDoubleSection(LEAF_CENTER_LON);
+        leafCenterInWater = file.getLongSection(LEAF_CENTER_IN_WATER);
+        leafEdgeOffset = file.getIntSection(LEAF_EDGE_OFFSET);
+        leafEdges = file.getIntSection(LEAF_EDGES);
+    }
+
+    /**
+     * Convert the tree of grid cells into the flattened arrays. Afterwards, the tree is not needed anymore.
+     */
+    private void flatten() {
+        // Assign ids to all cells in breadth first order, so the children of a parent are stored next to each other
+        List<GridCell> cells = new ArrayList<>();
+        for (int latIdx = 0; latIdx < 18; latIdx++) {
+            for (int lonIdx = 0; lonIdx < 36; lonIdx++) {
+                cells.add(topLevelGrid[latIdx][lonIdx]);
+            }
+        }
+        int numOfParents = 0;
+        int numOfLeafs = 0;
+        int numOfLeafEdges = 0;
+        for (int cellId = 0; cellId < cells.size(); cellId++) {
+            GridCell cell = cells.get(cellId);
+            if (cell instanceof GridParent) {
+                numOfParents++;
+                for (int latIdx = 0; latIdx < 3; latIdx++) {
+                    for (int lonIdx = 0; lonIdx < 3; lonIdx++) {
+                        cells.add(((GridParent) cell).getLowerLevelCell(latIdx, lonIdx));
+                    }
+                }
+            } else {
+                numOfLeafs++;
+                numOfLeafEdges += ((GridLeaf) cell).getEdgeIds().length;
+            }
+        }
+
+        int[] cellRefs = new int[cells.size()];
+        int[] firstChild = new int[numOfParents];
+        double[] borders = new double[4 * numOfParents];
+        double[] centerLat = new double[numOfLeafs];
+        double[] centerLon = new double[numOfLeafs];
+        long[] centerInWater = new long[(numOfLeafs + 63) / 64];
+        int[] edgeOffset = new int[numOfLeafs + 1];
+        int[] edges = new int[numOfLeafEdges];
+        int parentIdx = 0;
+        int leafIdx = 0;
+        int nextChild = NUM_OF_TOP_LEVEL_CELLS;
+        for (int cellId = 0; cellId < cells.size(); cellId++) {
+            GridCell cell = cells.get(cellId);
+            if (cell instanceof GridParent) {
+                GridParent parent = (GridParent) cell;
+                cellRefs[cellId] = parentIdx;
+                firstChild[parentIdx] = nextChild;
+                nextChild += 9;
+                borders[4 * parentIdx] = parent.getInnerLatBorders()[0];
+                borders[(4 * parentIdx) + 1] = parent.getInnerLatBorders()[1];
+                borders[(4 * parentIdx) + 2] = parent.getInnerLonBorders()[0];
+                borders[(4 * parentIdx) + 3] = parent.getInnerLonBorders()[1];
+                parentIdx++;
+            } else {
+                GridLeaf leaf = (GridLeaf) cell;
+                cellRefs[cellId] = -leafIdx - 1;
+                centerLat[leafIdx] = leaf.getCtrLat();
+                centerLon[leafIdx] = leaf.getCtrLon();
+                if (leaf.isCenterPointInWater()) {
+                    centerInWater[leafIdx >>> 6] |= 1L << (leafIdx & 63);
+                }
+                int[] leafEdgeIds = leaf.getEdgeIds();
+                System.arraycopy(leafEdgeIds, 0, edges, edgeOffset[leafIdx], leafEdgeIds.length);
+                edgeOffset[leafIdx + 1] = edgeOffset[leafIdx] + leafEdgeIds.length;
+                leafIdx++;
+            }
+        }
+
+        cellRef = IntBuffer.wrap(cellRefs);
+        parentFirstChild = IntBuffer.wrap(firstChild);
+        parentBorders = DoubleBuffer.wrap(borders);
+        leafCenterLat = DoubleBuffer.wrap(centerLat);
+        leafCenterLon = DoubleBuffer.wrap(centerLon);
+        leafCenterInWater = LongBuffer.wrap(centerInWater);
+        leafEdgeOffset = IntBuffer.wrap(edgeOffset);
+        leafEdges = IntBuffer.wrap(edges);
+        topLevelGrid = null;
     }
 
     /**
@@ -300,8 +514,44 @@ public final class PointInWaterChecker implements Serializable{
             lonIdx = (int) (17 - (((tmpLon) - (tmpLon % 10)) / 10));
         }
 
-        //recursive call until GridLeaf is reached
-        return topLevelGrid[latIdx][lonIdx].isPointInWater(lat, lon);
+        // Walk down the grid until a leaf is reached
+        int ref = cellRef.get((latIdx * 36) + lonIdx);
+        while (ref >= 0) {
+            int borderIdx = 4 * ref;
+            int childLatIdx;
+            if (lat < parentBorders.get(borderIdx)) {
+                childLatIdx = 0;
+            } else if (lat < parentBorders.get(borderIdx + 1)) {
+                childLatIdx = 1;
+            } else {
+                childLatIdx = 2;
+            }
+            int childLonIdx;
+            if (lon < parentBorders.get(borderIdx + 2)) {
+                childLonIdx = 0;
+            } else if (lon < parentBorders.get(borderIdx + 3)) {
+                childLonIdx = 1;
+            } else {
+                childLonIdx = 2;
+            }
+            ref = cellRef.get(parentFirstChild.get(ref) + (3 * childLatIdx) + childLonIdx);
+        }
+
+        // Ray casting algorithm from the center point of the leaf
+        int leaf = -ref - 1;
+        boolean pointInWater = (leafCenterInWater.get(leaf >>> 6) & (1L << (leaf & 63))) != 0;
+        double centerLat = leafCenterLat.get(leaf);
+        double centerLon = leafCenterLon.get(leaf);
+        int end = leafEdgeOffset.get(leaf + 1);
+        for (int i = leafEdgeOffset.get(leaf); i < end; i++) {
+            int idx = leafEdges.get(i);
+            if (IntersectionHelper.arcsIntersect(lat, lon, centerLat, centerLon,
+                    CoastlineWays.getStartLatByEdgeIdx(idx), CoastlineWays.getStartLonByEdgeIdx(idx),
+                    CoastlineWays.getDestLatByEdgeIdx(idx), CoastlineWays.getDestLonByEdgeIdx(idx))) {
+                pointInWater = !pointInWater;
+            }
+        }
+        return pointInWater;
     }
 
 }
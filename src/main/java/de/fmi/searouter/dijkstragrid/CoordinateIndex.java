@@ -0,0 +1,157 @@
+package de.fmi.searouter.dijkstragrid;
+
+import de.fmi.searouter.hublabeldata.HubLNodes;
+import de.fmi.searouter.utils.IntersectionHelper;
+
+/**
+ * Spatial index used to find the grid node closest to a given coordinate without iterating over all nodes.
+ * Nodes are sorted into buckets of one degree latitude times one degree longitude. Similar to the edges
+ * in {@link Grid}, the buckets are stored as an offset array, so the index only consists of two int arrays.
+ * Depending on which router is used, the index is either built for the nodes in {@link Node} or the ones in
+ * {@link HubLNodes}.
+ */
+public class CoordinateIndex {
+    //number of buckets along the latitude (-90 to 90) and longitude (-180 to 180)
+    private static final int LAT_BUCKETS = 180;
+    private static final int LONG_BUCKETS = 360;
+
+    //for each bucket, the position in bucketNodes where the nodes of this bucket start. The nodes of a bucket
+    //end at the position where the next bucket starts (one additional element for the last bucket)
+    private static int[] bucketOffset;
+    //node ids, ordered by bucket
+    private static int[] bucketNodes;
+    //true if the index was built for the nodes in HubLNodes, false if it was built for the ones in Node
+    private static boolean useHubLNodes;
+
+    /**
+     * Build the index for the nodes currently stored in {@link Node} or {@link HubLNodes}. Has to be called
+     * once after the node data is loaded.
+     * @param hubLabelNodes true if the index should be built for {@link HubLNodes}, false for {@link Node}
+     */
+    public static void build(boolean hubLabelNodes) {
+        useHubLNodes = hubLabelNodes;
+        int nodeCount = hubLabelNodes ? HubLNodes.getNumOfNodes() : Node.getSize();
+
+        //first count the nodes per bucket, then turn the counts into offsets
+        int[] offset = new int[(LAT_BUCKETS * LONG_BUCKETS) + 1];
+        for (int i = 0; i < nodeCount; i++) {
+            offset[getBucket(getLat(i), getLong(i)) + 1]++;
+        }
+        for (int i = 1; i < offset.length; i++) {
+            offset[i] += offset[i - 1];
+        }
+
+        //insert the node ids, nextIdx keeps track of the next free position of every bucket
+        int[] nodes = new int[nodeCount];
+        int[] nextIdx = new int[LAT_BUCKETS * LONG_BUCKETS];
+        System.arraycopy(offset, 0, nextIdx, 0, nextIdx.length);
+        for (int i = 0; i < nodeCount; i++) {
+            int bucket = getBucket(getLat(i), getLong(i));
+            nodes[nextIdx[bucket]] = i;
+            nextIdx[bucket]++;
+        }
+
+        bucketOffset = offset;
+        bucketNodes = nodes;
+    }
+
+    /**
+     * Get the node closest to a given point. Only nodes in the bucket of the point are considered. If this bucket
+     * does not contain any node, the eight surrounding buckets are searched instead.
+     * @param latitude latitude of the point (-90 to 90°)
+     * @param longitude longitude of the point (-180 to 180°)
+     * @return the id of the closest node or -1 if no node was found
+     */
+    public static int getNearestNode(double latitude, double longitude) {
+        int latIdx = getLatIdx(latitude);
+        int longIdx = getLongIdx(longitude);
+
+        int nearestNode = getNearestNodeInBucket((latIdx * LONG_BUCKETS) + longIdx, latitude, longitude, -1);
+        if (nearestNode >= 0) {
+            return nearestNode;
+        }
+
+        //no node in the bucket of the point, so check the neighbouring buckets
+        for (int i = latIdx - 1; i <= latIdx + 1; i++) {
+            if (i < 0 || i >= LAT_BUCKETS) {
+                continue;
+            }
+            for (int j = longIdx - 1; j <= longIdx + 1; j++) {
+                //longitude wraps around at the antimeridian
+                int neighbourLongIdx = (j + LONG_BUCKETS) % LONG_BUCKETS;
+                nearestNode = getNearestNodeInBucket((i * LONG_BUCKETS) + neighbourLongIdx,
+                        latitude, longitude, nearestNode);
+            }
+        }
+        return nearestNode;
+    }
+
+    /**
+     * Find the node closest to a given point within a bucket.
+     * @param bucket the index of the bucket
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @param currentNearest closest node found so far or -1 if none was found yet
+     * @return the closest node of the bucket if it is closer than currentNearest, else currentNearest
+     */
+    private static int getNearestNodeInBucket(int bucket, double latitude, double longitude, int currentNearest) {
+        int nearestNode = currentNearest;
+        double minDistance = Double.MAX_VALUE;
+        if (currentNearest >= 0) {
+            minDistance = IntersectionHelper.getDistance(latitude, longitude,
+                    getLat(currentNearest), getLong(currentNearest));
+        }
+
+        int endIdx = bucketOffset[bucket + 1];
+        for (int i = bucketOffset[bucket]; i < endIdx; i++) {
+            int nodeId = bucketNodes[i];
+            double currDistance = IntersectionHelper.getDistance(latitude, longitude,
+                    getLat(nodeId), getLong(nodeId));
+            if (currDistance < minDistance) {
+                minDistance = currDistance;
+                nearestNode = nodeId;
+            }
+        }
+        return nearestNode;
+    }
+
+    /**
+     * Get the bucket a given point belongs to.
+     * @param latitude the latitude of the point
+     * @param longitude the longitude of the point
+     * @return the index of the bucket
+     */
+    private static int getBucket(double latitude, double longitude) {
+        return (getLatIdx(latitude) * LONG_BUCKETS) + getLongIdx(longitude);
+    }
+
+    /**
+     * Get the latitude index of the bucket a given latitude belongs to.
+     * @param latitude the latitude
+     * @return the latitude index
+     */
+    private static int getLatIdx(double latitude) {
+        int idx = (int) Math.floor(latitude) + 90;
+        //90° is the border of the last bucket
+        return Math.max(0, Math.min(idx, LAT_BUCKETS - 1));
+    }
+
+    /**
+     * Get the longitude index of the bucket a given longitude belongs to.
+     * @param longitude the longitude
+     * @return the longitude index
+     */
+    private static int getLongIdx(double longitude) {
+        int idx = (int) Math.floor(longitude) + 180;
+        //180° and -180° describe the same meridian
+        return ((idx % LONG_BUCKETS) + LONG_BUCKETS) % LONG_BUCKETS;
+    }
+
+    private static double getLat(int nodeId) {
+        return useHubLNodes ? HubLNodes.getLat(nodeId) : Node.getLatitude(nodeId);
+    }
+
+    private static double getLong(int nodeId) {
+        return useHubLNodes ? HubLNodes.getLong(nodeId) : Node.getLongitude(nodeId);
+    }
+}
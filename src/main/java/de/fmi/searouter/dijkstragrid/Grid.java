@@ -1,6 +1,5 @@
 package de.fmi.searouter.dijkstragrid;
 
-import de.fmi.searouter.hublabeldata.HubLNodes;
 import de.fmi.searouter.utils.IntersectionHelper;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
@@ -18,78 +17,25 @@ public class Grid {
     // the {@link Edge} array until the index Grid.offset[nodeToHandleId + 1] is reached (this is the beginning
     // of another nodes outgoing edges).
     public static int[] offset;
+    // The smallest ratio between the distance of an edge and the great circle distance of its nodes. Multiplying
+    // a great circle distance with this value never overestimates the length of a path in the grid.
+    private static double minDistanceRatio;
+
+    public static double getMinDistanceRatio() {
+        return minDistanceRatio;
+    }
 
     /**
-     * Returns the nearest existing grid node of the Grid of a given point P.
+     * Returns the nearest existing grid node of the Grid of a given point P. The lookup is based on the
+     * {@link CoordinateIndex}, which has to be built after the node data was loaded.
      *
-     * @param latitude Latitude of point P (0 to 90°)
+     * @param latitude Latitude of point P (-90 to 90°)
      * @param longitude Longitude of point P  (-180 to 180°)
      * @return The index within the {@link Node} data structure that points to the nearest grid node. -1 if no node exists
-     * in the requested plane of integer degrees.
+     * in the integer degree plane of the point or the planes surrounding it.
      */
     public static int getNearestGridNodeByCoordinates(double latitude, double longitude) {
-        // Strategy: Get all grid nodes on the plane of integer grid numbers and then check manually the distance
-
-        // Integer coordinate degrees to search for
-        int iLat = (int) latitude;
-        int iLong = (int) longitude;
-
-        List<Integer> candidateNodes = new ArrayList<>();
-
-        // Add all node indices to the candidate node list that are within the integer degree plane
-        if(offset == null) {
-            for (int i = 0; i < HubLNodes.getNumOfNodes(); i++) {
-                if (iLat == (int) HubLNodes.getLat(i) && iLong == (int) HubLNodes.getLong(i)) {
-                    candidateNodes.add(i);
-                }
-            }
-
-            if (candidateNodes.size() <= 0) {
-                return -1;
-            }
-
-            // For all candidates, calculate the distances to the requested coordinates
-            double minDistance = Double.MAX_VALUE;
-            int minNodeIdx = 0;
-            for (Integer nodeIdx : candidateNodes) {
-                double currDistance = IntersectionHelper.getDistance(
-                        latitude, longitude,
-                        HubLNodes.getLat(nodeIdx), HubLNodes.getLong(nodeIdx)
-                );
-                if (currDistance < minDistance) {
-                    minDistance = currDistance;
-                    minNodeIdx = nodeIdx;
-                }
-            }
-
-            return minNodeIdx;
-        } else {
-            for (int i = 0; i < Node.getSize(); i++) {
-                if (iLat == (int) Node.getLatitude(i) && iLong == (int) Node.getLongitude(i)) {
-                    candidateNodes.add(i);
-                }
-            }
-
-            if (candidateNodes.size() <= 0) {
-                return -1;
-            }
-
-            // For all candidates, calculate the distances to the requested coordinates
-            double minDistance = Double.MAX_VALUE;
-            int minNodeIdx = 0;
-            for (Integer nodeIdx : candidateNodes) {
-                double currDistance = IntersectionHelper.getDistance(
-                        latitude, longitude,
-                        Node.getLatitude(nodeIdx), Node.getLongitude(nodeIdx)
-                );
-                if (currDistance < minDistance) {
-                    minDistance = currDistance;
-                    minNodeIdx = nodeIdx;
-                }
-            }
-
-            return minNodeIdx;
-        }
+        return CoordinateIndex.getNearestNode(latitude, longitude);
     }
 
 
@@ -131,8 +77,16 @@ public class Grid {
      */
     public static void importFmiFile(String filePath) throws IOException {
         Resource fmiResource = new ClassPathResource(filePath);
-        InputStream inputStream = fmiResource.getInputStream();
+        importFmiFile(fmiResource.getInputStream());
+    }
 
+    /**
+     * Imports a grid graph of a .fmi file format from a given stream. The stream is closed afterwards.
+     *
+     * @param inputStream The stream containing the grid graph.
+     * @throws IOException If I/O fails.
+     */
+    public static void importFmiFile(InputStream inputStream) throws IOException {
         try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
 
             br.readLine();
@@ -273,11 +227,33 @@ public class Grid {
                 offset[i] += offset[i - 1];
             }
 
+            calcMinDistanceRatio();
+            CoordinateIndex.build(false);
+
             br.close();
 
         }
     }
 
+    /**
+     * Calculates the smallest ratio between the distance of an edge and the great circle distance of its start
+     * and destination node (see {@link #getMinDistanceRatio()}).
+     */
+    private static void calcMinDistanceRatio() {
+        double ratio = Double.MAX_VALUE;
+        for (int i = 0; i < Edge.getSize(); i++) {
+            int start = Edge.getStart(i);
+            int dest = Edge.getDest(i);
+            double greatCircleDist = IntersectionHelper.getDistance(Node.getLatitude(start), Node.getLongitude(start),
+                    Node.getLatitude(dest), Node.getLongitude(dest));
+            if (greatCircleDist > 0.0) {
+                ratio = Math.min(ratio, Edge.getDist(i) / greatCircleDist);
+            }
+        }
+        //slightly decrease the ratio to be safe against rounding errors
+        minDistanceRatio = ratio == Double.MAX_VALUE ? 0.0 : ratio * 0.999999;
+    }
+
     /**
      * Exports the current grid graph representation (contents of {@link Edge} and {@link Node}).
      *
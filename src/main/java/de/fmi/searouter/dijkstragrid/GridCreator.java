@@ -2,6 +2,7 @@ package de.fmi.searouter.dijkstragrid;
 
 import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
 import de.fmi.searouter.coastlinegrid.CoastlineWays;
+import de.fmi.searouter.osmimport.CoastlineImporter;
 import de.fmi.searouter.utils.IntersectionHelper;
 
 import java.io.*;
@@ -21,11 +22,22 @@ public class GridCreator {
     private static final int DIMENSION_LATITUDE = 500;
     private static final int DIMENSION_LONGITUDE = 2000;
 
+    /**
+     * The resolution actually used, can be changed for smaller grids (e.g. in tests).
+     */
+    protected static int dimensionLatitude = DIMENSION_LATITUDE;
+    protected static int dimensionLongitude = DIMENSION_LONGITUDE;
+
     /**
      * The number of threads that should use to concurrently performing the point-in-water check
      */
     private static final int NUMBER_OF_THREADS_FOR_IN_WATER_CHECK = 15;
 
+    /**
+     * The number of threads used to parse the pbf file containing the coastlines
+     */
+    private static final int NUMBER_OF_THREADS_FOR_PBF_IMPORT = Runtime.getRuntime().availableProcessors();
+
     /**
      * The name of the file where the final calculated grid graph should be exported (created on root-level of project)
      */
@@ -49,6 +61,24 @@ public class GridCreator {
     protected static double coordinate_step_latitude;
     protected static double coordinate_step_longitude;
 
+    /**
+     * Set the resolution of the grid.
+     * @param dimensionLatitude the number of nodes along a longitude
+     * @param dimensionLongitude the number of nodes along a latitude
+     */
+    public static void setDimensions(int dimensionLatitude, int dimensionLongitude) {
+        GridCreator.dimensionLatitude = dimensionLatitude;
+        GridCreator.dimensionLongitude = dimensionLongitude;
+    }
+
+    /**
+     * Calculate the numeric distance of the grid nodes in degrees.
+     */
+    protected static void initCoordinateSteps() {
+        coordinate_step_latitude = (double) 180 / dimensionLatitude;
+        coordinate_step_longitude = (double) 360 / dimensionLongitude;
+    }
+
     /**
      * Initializes the GridCreator by creating GridNodes (the vertices of the graph) for all points that
      * are in water and therefore relevant for the graph creation. The created nodes
@@ -62,8 +92,7 @@ public class GridCreator {
         coordinateNodeStore = new ConcurrentHashMap<>();
 
         // Calculate the numeric distance of the grid nodes in degrees
-        coordinate_step_latitude = (double) 180 / DIMENSION_LATITUDE;
-        coordinate_step_longitude = (double) 360 / DIMENSION_LONGITUDE;
+        initCoordinateSteps();
 
         // We use BigDecimals here to allow the usage of the coordinateNodeStore HashMap where it is necessary
         // to have an exact equals() functionality for comparing the used keys. Tests showed that the overhead
@@ -98,12 +127,25 @@ public class GridCreator {
 
 
     /**
-     * Creates the grid graph for the Dijkstra routing. Fills the {@link Grid}, {@link Node} and {@link Edge}
+     * Creates the grid graph for the Dijkstra routing and exports it. Fills the {@link Node} and {@link Edge}
      * data structures.
      *
      * @throws InterruptedException If something with the threads went wrong
      */
     public static void createGrid() throws InterruptedException {
+        buildGrid();
+
+        // Export the whole graph
+        exportGridAsFMIFile();
+    }
+
+    /**
+     * Creates the grid graph for the Dijkstra routing without exporting it. Fills the {@link Node} and
+     * {@link Edge} data structures.
+     *
+     * @throws InterruptedException If something with the threads went wrong
+     */
+    protected static void buildGrid() throws InterruptedException {
         initGridCreator();
 
         // Create Node arrays
@@ -126,36 +168,12 @@ public class GridCreator {
         for (int nodeIdx = 0; nodeIdx < gridNodes.size(); nodeIdx++) {
             GridNode currNode = gridNodes.get(nodeIdx);
 
-            // Calculate the lat/longs where a neighbour node should be. The created objects do not belong to the grid
-            // and are only needed temporarily for checking if those candidate neighbor nodes are actually on water
-            // and therefore relevant
-            GridNode eastCalcNode = currNode.calcEasternNode(coordinate_step_longitude);
-            GridNode westCalcNode = currNode.calcWesternNode(coordinate_step_longitude);
-            GridNode northCalcNode = currNode.calcNorthernNode(coordinate_step_latitude);
-            GridNode southCalcNode = currNode.calcSouthernNode(coordinate_step_latitude);
-
-            // Init the real GridNode objects which are known by the current grid
-            GridNode east = null;
-            GridNode west = null;
-            GridNode north = null;
-            GridNode south = null;
-
             // Check if the calculated lat/longs of neighbor nodes are actually real existing water nodes in the grid
-            if (eastCalcNode != null) {
-                east = getNodeByLatLong(eastCalcNode.getLatitude(), eastCalcNode.getLongitude());
-            }
-            if (westCalcNode != null) {
-                west = getNodeByLatLong(westCalcNode.getLatitude(), westCalcNode.getLongitude());
-            }
-            if (northCalcNode != null) {
-                north = getNodeByLatLong(northCalcNode.getLatitude(), northCalcNode.getLongitude());
-            }
-            if (southCalcNode != null) {
-                south = getNodeByLatLong(southCalcNode.getLatitude(), southCalcNode.getLongitude());
+            List<GridNode> neighbourNodes = new ArrayList<>(4);
+            for (GridNode calcNode : calcNeighbourCoordinates(currNode)) {
+                neighbourNodes.add(getNodeByLatLong(calcNode.getLatitude(), calcNode.getLongitude()));
             }
 
-            List<GridNode> neighbourNodes = Arrays.asList(east, west, north, south);
-
             // For all existing neighbour nodes: Add the information to the dynamic edge list
             for (GridNode node : neighbourNodes) {
                 if (node != null) {
@@ -187,9 +205,29 @@ public class GridCreator {
         Edge.setStartNode(startNode);
         Edge.setDestNode(destNode);
         Edge.setDist(dist);
+    }
 
-        // Export the whole graph
-        exportGridAsFMIFile();
+    /**
+     * Calculate the lat/longs where the neighbour nodes of a node should be (east, west, north and south). The
+     * created objects do not belong to the grid and are only needed temporarily for checking if those candidate
+     * neighbor nodes are actually on water and therefore relevant.
+     *
+     * @param node The node to calculate the neighbours of
+     * @return The coordinates of the neighbours, nodes beyond the poles are left out
+     */
+    protected static List<GridNode> calcNeighbourCoordinates(GridNode node) {
+        List<GridNode> neighbours = new ArrayList<>(4);
+        neighbours.add(node.calcEasternNode(coordinate_step_longitude));
+        neighbours.add(node.calcWesternNode(coordinate_step_longitude));
+        GridNode north = node.calcNorthernNode(coordinate_step_latitude);
+        if (north != null) {
+            neighbours.add(north);
+        }
+        GridNode south = node.calcSouthernNode(coordinate_step_latitude);
+        if (south != null) {
+            neighbours.add(south);
+        }
+        return neighbours;
     }
 
     /**
@@ -228,6 +266,7 @@ public class GridCreator {
         Date startTime = new Date();
 
         // Import the OSM coastline information
+        CoastlineImporter.setNumOfParserThreads(NUMBER_OF_THREADS_FOR_PBF_IMPORT);
         CoastlineWays.initCoastlineWays();
 
         // Initialize the multi-level grid of the CoastlineChecker
@@ -0,0 +1,264 @@
+package de.fmi.searouter.dijkstragrid;
+
+import de.fmi.searouter.coastlinegrid.CoastlineChanges;
+import de.fmi.searouter.coastlinegrid.CoastlineWays;
+import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
+import de.fmi.searouter.hublablecreation.CHData;
+import de.fmi.searouter.hublablecreation.TmpLabelData;
+import de.fmi.searouter.importdata.CoastlineWay;
+import de.fmi.searouter.osmimport.CoastlineImporter;
+import de.fmi.searouter.utils.IntArrayList;
+import de.fmi.searouter.utils.IntersectionHelper;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Updates an existing grid graph after the coastlines changed, without creating the whole grid again. Only the
+ * grid points within the areas enclosed by changed coastline edges (see {@link CoastlineChanges}) are checked.
+ * Nodes of points which are now on land are removed together with their edges, nodes for points which are now in
+ * water are added and connected to their neighbours. All other nodes and edges are kept as they are.
+ */
+public class GridUpdater {
+
+    /**
+     * The number of threads used to parse the pbf files containing the coastlines
+     */
+    private static final int NUMBER_OF_THREADS_FOR_PBF_IMPORT = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Update the grid graph currently stored in {@link Node} and {@link Edge}. The ids of the remaining nodes keep
+     * their order, new nodes are appended at the end.
+     *
+     * @param changes The changes of the coastlines since the grid graph was created
+     * @return The number of grid points which changed between land and water
+     */
+    public static int updateGrid(CoastlineChanges changes) {
+        GridCreator.initCoordinateSteps();
+        int dimLon = GridCreator.dimensionLongitude;
+
+        // Only points within the changed areas can change, the index range is extended by one to be safe
+        // against rounding errors
+        SortedSet<Long> candidates = new TreeSet<>();
+        for (int area = 0; area < changes.getNumberOfAreas(); area++) {
+            int firstLatIdx = Math.max(0,
+                    (int) Math.floor((90.0 - changes.getMaxLat(area)) / GridCreator.coordinate_step_latitude) - 1);
+            int lastLatIdx = Math.min(GridCreator.dimensionLatitude,
+                    (int) Math.ceil((90.0 - changes.getMinLat(area)) / GridCreator.coordinate_step_latitude) + 1);
+            int firstLonIdx = Math.max(0,
+                    (int) Math.floor((180.0 - changes.getMaxLon(area)) / GridCreator.coordinate_step_longitude) - 1);
+            int lastLonIdx = Math.min(dimLon - 1,
+                    (int) Math.ceil((180.0 - changes.getMinLon(area)) / GridCreator.coordinate_step_longitude) + 1);
+            for (int latIdx = firstLatIdx; latIdx <= lastLatIdx; latIdx++) {
+                for (int lonIdx = firstLonIdx; lonIdx <= lastLonIdx; lonIdx++) {
+                    candidates.add((long) latIdx * dimLon + lonIdx);
+                }
+            }
+        }
+
+        // <Latitude, <Longitude, node id>> of all nodes of the grid
+        Map<Double, Map<Double, Integer>> nodeStore = new HashMap<>();
+        for (int nodeId = 0; nodeId < Node.getSize(); nodeId++) {
+            nodeStore.computeIfAbsent(Node.getLatitude(nodeId), lat -> new HashMap<>())
+                    .put(Node.getLongitude(nodeId), nodeId);
+        }
+
+        // Check the candidates. Coordinates are calculated the same way as in the GridCreator, so they are equal
+        // to the coordinates of existing nodes.
+        BigDecimal coordinateStepLat = BigDecimal.valueOf(GridCreator.coordinate_step_latitude);
+        BigDecimal coordinateStepLon = BigDecimal.valueOf(GridCreator.coordinate_step_longitude);
+        BigDecimal latEnd = BigDecimal.valueOf(-90);
+        BigDecimal lonEnd = BigDecimal.valueOf(-180);
+        boolean[] removed = new boolean[Node.getSize()];
+        List<GridNode> addedNodes = new ArrayList<>();
+        for (long candidate : candidates) {
+            BigDecimal lat = BigDecimal.valueOf(90.0).subtract(coordinateStepLat.multiply(
+                    BigDecimal.valueOf(candidate / dimLon)));
+            BigDecimal lon = BigDecimal.valueOf(180).subtract(coordinateStepLon.multiply(
+                    BigDecimal.valueOf(candidate % dimLon)));
+            if (lat.compareTo(latEnd) < 0 || lon.compareTo(lonEnd) <= 0) {
+                continue;
+            }
+            if (!changes.isPointChanged((float) lat.doubleValue(), (float) lon.doubleValue())) {
+                continue;
+            }
+            Integer nodeId = getNodeByLatLong(nodeStore, lat.doubleValue(), lon.doubleValue());
+            if (nodeId != null) {
+                removed[nodeId] = true;
+            } else {
+                addedNodes.add(new GridNode(lat.doubleValue(), lon.doubleValue()));
+            }
+        }
+
+        // Assign the new ids and update the node store
+        int[] newIds = new int[Node.getSize()];
+        int numOfNodes = 0;
+        for (int nodeId = 0; nodeId < Node.getSize(); nodeId++) {
+            Map<Double, Integer> row = nodeStore.get(Node.getLatitude(nodeId));
+            if (removed[nodeId]) {
+                newIds[nodeId] = -1;
+                row.remove(Node.getLongitude(nodeId));
+            } else {
+                newIds[nodeId] = numOfNodes++;
+                row.put(Node.getLongitude(nodeId), newIds[nodeId]);
+            }
+        }
+        double[] latitude = new double[numOfNodes + addedNodes.size()];
+        double[] longitude = new double[numOfNodes + addedNodes.size()];
+        for (int nodeId = 0; nodeId < Node.getSize(); nodeId++) {
+            if (newIds[nodeId] >= 0) {
+                latitude[newIds[nodeId]] = Node.getLatitude(nodeId);
+                longitude[newIds[nodeId]] = Node.getLongitude(nodeId);
+            }
+        }
+        for (GridNode node : addedNodes) {
+            node.setId(numOfNodes++);
+            latitude[node.getId()] = node.getLatitude();
+            longitude[node.getId()] = node.getLongitude();
+            nodeStore.computeIfAbsent(node.getLatitude(), lat -> new HashMap<>())
+                    .put(node.getLongitude(), node.getId());
+        }
+
+        // The edges of added nodes and their neighbours are calculated again, all others are kept
+        boolean[] reconnect = new boolean[numOfNodes];
+        for (GridNode node : addedNodes) {
+            reconnect[node.getId()] = true;
+            for (GridNode calcNode : GridCreator.calcNeighbourCoordinates(node)) {
+                Integer neighbour = getNodeByLatLong(nodeStore, calcNode.getLatitude(), calcNode.getLongitude());
+                if (neighbour != null) {
+                    reconnect[neighbour] = true;
+                }
+            }
+        }
+
+        int[] oldOffset = new int[Node.getSize() + 1];
+        for (int edgeId = 0; edgeId < Edge.getSize(); edgeId++) {
+            oldOffset[Edge.getStart(edgeId) + 1]++;
+        }
+        for (int i = 1; i < oldOffset.length; i++) {
+            oldOffset[i] += oldOffset[i - 1];
+        }
+        int[] oldEdgesByStart = new int[Edge.getSize()];
+        int[] nextPos = Arrays.copyOf(oldOffset, Node.getSize());
+        for (int edgeId = 0; edgeId < Edge.getSize(); edgeId++) {
+            oldEdgesByStart[nextPos[Edge.getStart(edgeId)]++] = edgeId;
+        }
+
+        IntArrayList startNode = new IntArrayList(Edge.getSize());
+        IntArrayList destNode = new IntArrayList(Edge.getSize());
+        IntArrayList dist = new IntArrayList(Edge.getSize());
+        int[] oldIds = new int[numOfNodes];
+        for (int nodeId = 0; nodeId < newIds.length; nodeId++) {
+            if (newIds[nodeId] >= 0) {
+                oldIds[newIds[nodeId]] = nodeId;
+            }
+        }
+        for (int nodeId = 0; nodeId < numOfNodes; nodeId++) {
+            if (reconnect[nodeId]) {
+                GridNode node = new GridNode(latitude[nodeId], longitude[nodeId]);
+                for (GridNode calcNode : GridCreator.calcNeighbourCoordinates(node)) {
+                    Integer neighbour = getNodeByLatLong(nodeStore, calcNode.getLatitude(), calcNode.getLongitude());
+                    if (neighbour != null) {
+                        startNode.add(nodeId);
+                        destNode.add(neighbour);
+                        dist.add((int) IntersectionHelper.getDistance(latitude[nodeId], longitude[nodeId],
+                                latitude[neighbour], longitude[neighbour]));
+                    }
+                }
+            } else {
+                int oldId = oldIds[nodeId];
+                for (int i = oldOffset[oldId]; i < oldOffset[oldId + 1]; i++) {
+                    int edgeId = oldEdgesByStart[i];
+                    int dest = newIds[Edge.getDest(edgeId)];
+                    if (dest >= 0) {
+                        startNode.add(nodeId);
+                        destNode.add(dest);
+                        dist.add(Edge.getDist(edgeId));
+                    }
+                }
+            }
+        }
+
+        Node.setLatitude(latitude);
+        Node.setLongitude(longitude);
+        Edge.setStartNode(toArray(startNode));
+        Edge.setDestNode(toArray(destNode));
+        Edge.setDist(toArray(dist));
+
+        int numOfRemoved = removed.length - (numOfNodes - addedNodes.size());
+        System.out.println("Checked " + candidates.size() + " grid points in " + changes.getNumberOfAreas() +
+                " changed areas: removed " + numOfRemoved + " nodes, added " + addedNodes.size() + " nodes");
+        return numOfRemoved + addedNodes.size();
+    }
+
+    private static Integer getNodeByLatLong(Map<Double, Map<Double, Integer>> nodeStore,
+                                            double latitude, double longitude) {
+        Map<Double, Integer> row = nodeStore.get(latitude);
+        return row == null ? null : row.get(longitude);
+    }
+
+    private static int[] toArray(IntArrayList list) {
+        int[] array = new int[list.getLen()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Entry point for updating an existing grid graph ({@link GridCreator#GRID_FMI_FILE_NAME}) after the
+     * coastlines changed. The hub labels have to be calculated again for the updated graph, so the intermediate data
+     * of the hub label creation ({@link CHData}, {@link TmpLabelData}) is deleted if the graph changed.
+     *
+     * @param args The path of the pbf file the grid graph was created from and the path of the updated pbf file
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: GridUpdater <previous coastline pbf file> <updated coastline pbf file>");
+            System.exit(-1);
+        }
+        Date startTime = new Date();
+
+        CoastlineImporter.setNumOfParserThreads(NUMBER_OF_THREADS_FOR_PBF_IMPORT);
+        List<CoastlineWay> newCoastlines = null;
+        CoastlineChanges changes = null;
+        try {
+            List<CoastlineWay> oldCoastlines = new CoastlineImporter().importPBF(new FileSystemResource(args[0]));
+            newCoastlines = new CoastlineImporter().importPBF(new FileSystemResource(args[1]));
+            changes = new CoastlineChanges(oldCoastlines, newCoastlines);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(-1);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + ", the grid has to be created again using the GridCreator");
+            System.exit(-1);
+        }
+        System.out.println("Found " + changes.getNumberOfChangedEdges() + " changed coastline edges in " +
+                changes.getNumberOfAreas() + " areas");
+
+        try {
+            Grid.importFmiFile(new FileInputStream(GridCreator.GRID_FMI_FILE_NAME));
+            if (updateGrid(changes) > 0) {
+                Grid.exportToFmiFile(GridCreator.GRID_FMI_FILE_NAME);
+                // The intermediate data of the hub label creation belongs to the previous graph, the
+                // LabelCreator would continue with it otherwise
+                new File(CHData.SERIALIZATION_FILE_NAME).delete();
+                new File(TmpLabelData.SERIALIZATION_FILE_NAME).delete();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+
+        // The coastline ways are stored for later use, the point in water checker is created again when needed
+        CoastlineWays.updateCoastlineWays(newCoastlines);
+        PointInWaterChecker.deleteSerialization();
+
+        long timeDiffSec = (new Date().getTime() - startTime.getTime()) / 1000;
+        System.out.println("Grid update finished. Runtime: " + (timeDiffSec / 60) + ":" + (timeDiffSec % 60));
+    }
+}
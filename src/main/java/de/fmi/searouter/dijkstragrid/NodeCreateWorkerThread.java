@@ -17,7 +17,7 @@ public class NodeCreateWorkerThread extends Thread {
     /**
      * Used to check if a node is on land or in water water building the the graph
      */
-    private static final PointInWaterChecker POINT_IN_WATER_CHECKER = PointInWaterChecker.getInstance();
+    private final PointInWaterChecker pointInWaterChecker;
 
 
     /**
@@ -27,6 +27,7 @@ public class NodeCreateWorkerThread extends Thread {
 
     public NodeCreateWorkerThread() {
         this.latList = new ArrayList<>();
+        this.pointInWaterChecker = PointInWaterChecker.getInstance();
     }
 
     /**
@@ -52,7 +53,7 @@ public class NodeCreateWorkerThread extends Thread {
             for (BigDecimal longitude = BigDecimal.valueOf(180); longitude.compareTo(longEnd) > 0;
                  longitude = longitude.subtract(coordinateStepLong)) {
 
-                if (!POINT_IN_WATER_CHECKER.pointInWater((float) lat.doubleValue(), (float) longitude.doubleValue())) {
+                if (!pointInWaterChecker.pointInWater((float) lat.doubleValue(), (float) longitude.doubleValue())) {
                     continue;
                 }
 
@@ -2,19 +2,22 @@ package de.fmi.searouter.hublabeldata;
 
 import de.fmi.searouter.hublablecreation.Edges;
 
+import java.nio.IntBuffer;
+
 /**
  * Contains edges relevant for the routing based on contraction hierarchies (meaning the two lowest levels). Since we
- * know the start node implicitly (based on the index), only the destination and distance are included.
+ * know the start node implicitly (based on the index), only the destination and distance are included. Like in
+ * {@link HubLNodes}, the data is accessed through buffers which may be mapped directly from a file.
  */
 public class HubLEdges {
     //contains destinations of edges
-    private static int[] dest;
+    private static IntBuffer dest;
     //contains distances of edges
-    private static int[] dist;
+    private static IntBuffer dist;
     //index of first shortcut edge
     private static int firstShortcutIdx;
     //edges contained in a shortcut edge
-    private static int[] shortcutParts;
+    private static IntBuffer shortcutParts;
 
     /**
      * Gets destination node of an edge.
@@ -22,7 +25,7 @@ public class HubLEdges {
      * @return the destination node
      */
     public static int getDest(int edgeId) {
-        return dest[edgeId];
+        return dest.get(edgeId);
     }
 
     /**
@@ -31,7 +34,7 @@ public class HubLEdges {
      * @return the distance of the edge
      */
     public static int getDist(int edgeId) {
-        return dist[edgeId];
+        return dist.get(edgeId);
     }
 
     /**
@@ -51,7 +54,7 @@ public class HubLEdges {
      */
     public static int getSecondShortcut(int edgeId) {
         int idx = (edgeId - firstShortcutIdx) * 2;
-        return shortcutParts[idx];
+        return shortcutParts.get(idx);
     }
 
     /**
@@ -62,7 +65,7 @@ public class HubLEdges {
      */
     public static int getFirstShortcut(int edgeId) {
         int idx = ((edgeId - firstShortcutIdx) * 2) + 1;
-        return shortcutParts[idx];
+        return shortcutParts.get(idx);
     }
 
     /**
@@ -70,34 +73,38 @@ public class HubLEdges {
      */
     public static void initialize() {
         int edgeCount = Edges.getNextShortcutId();
-        dest = new int[edgeCount];
-        dist = new int[edgeCount];
+        int[] newDest = new int[edgeCount];
+        int[] newDist = new int[edgeCount];
         int originalEdgeCount = Edges.getNumOfOriginalEdges();
         firstShortcutIdx = originalEdgeCount;
         int shortcutCount = edgeCount - originalEdgeCount;
-        shortcutParts = new int[shortcutCount * 2];  //every shortcut contains two lower level edges
+        int[] newShortcutParts = new int[shortcutCount * 2];  //every shortcut contains two lower level edges
 
         int[] tmpDest = Edges.getOriginalEdgeDest();
         int[] tmpDist = Edges.getOriginalEdgeDist();
-        System.arraycopy(tmpDest, 0, dest, 0, originalEdgeCount);
-        System.arraycopy(tmpDist, 0, dist, 0, originalEdgeCount);
+        System.arraycopy(tmpDest, 0, newDest, 0, originalEdgeCount);
+        System.arraycopy(tmpDist, 0, newDist, 0, originalEdgeCount);
 
         tmpDest = Edges.getShortcutEdgeDest();
         tmpDist = Edges.getShortcutEdgeDist();
-        System.arraycopy(tmpDest, 0, dest, originalEdgeCount, edgeCount - originalEdgeCount);
-        System.arraycopy(tmpDist, 0, dist, originalEdgeCount, edgeCount - originalEdgeCount);
+        System.arraycopy(tmpDest, 0, newDest, originalEdgeCount, edgeCount - originalEdgeCount);
+        System.arraycopy(tmpDist, 0, newDist, originalEdgeCount, edgeCount - originalEdgeCount);
 
         int[] tmpShortcutParts = Edges.getShortcutEdgeParts();
-        System.arraycopy(tmpShortcutParts, 0, shortcutParts, 0, (shortcutCount * 2));
+        System.arraycopy(tmpShortcutParts, 0, newShortcutParts, 0, (shortcutCount * 2));
+
+        dest = IntBuffer.wrap(newDest);
+        dist = IntBuffer.wrap(newDist);
+        shortcutParts = IntBuffer.wrap(newShortcutParts);
     }
 
-    //simple getters and setters for fields. Used when serializing or deserializing data.
+    //simple getters and setters for fields. Used when storing or loading data.
 
-    public static int[] getDest() {
+    public static IntBuffer getDest() {
         return dest;
     }
 
-    public static int[] getDist() {
+    public static IntBuffer getDist() {
         return dist;
     }
 
@@ -105,15 +112,15 @@ public class HubLEdges {
         return firstShortcutIdx;
     }
 
-    public static int[] getShortcutParts() {
+    public static IntBuffer getShortcutParts() {
         return shortcutParts;
     }
 
-    public static void setDest(int[] dest) {
+    public static void setDest(IntBuffer dest) {
         HubLEdges.dest = dest;
     }
 
-    public static void setDist(int[] dist) {
+    public static void setDist(IntBuffer dist) {
         HubLEdges.dist = dist;
     }
 
@@ -121,7 +128,7 @@ public class HubLEdges {
         HubLEdges.firstShortcutIdx = firstShortcutIdx;
     }
 
-    public static void setShortcutParts(int[] shortcutParts) {
+    public static void setShortcutParts(IntBuffer shortcutParts) {
         HubLEdges.shortcutParts = shortcutParts;
     }
 }
@@ -6,38 +6,68 @@ import de.fmi.searouter.hublablecreation.Labels;
 import de.fmi.searouter.hublablecreation.Nodes;
 
 import java.io.*;
+import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 
 /**
- * Contains data about nodes relevant for the hub label routing algorithm.
+ * Contains data about nodes relevant for the hub label routing algorithm. The data is accessed through buffers, so
+ * it can either be backed by arrays (while creating the data) or be mapped directly from a file
+ * (see {@link HubLStore}).
  */
 public class HubLNodes {
+
+    /**
+     * the layout of uncompressed label data in memory and in files (see {@link HubLStore})
+     */
+    public enum LabelLayout {
+        //label nodes, edges and distances in three separate arrays
+        SEPARATE,
+        //label nodes and distances interleaved in one array, edges (only needed to unpack a path) separate
+        INTERLEAVED
+    }
+
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     //the first level in which hub labels are present
     private static int hlLevel;
     //the levels of the nodes
-    private static int[] levels;
+    private static IntBuffer levels;
 
     //coordinate data
-    private static double[] longitudes;
-    private static double[] latitudes;
+    private static DoubleBuffer longitudes;
+    private static DoubleBuffer latitudes;
 
     //offsets in the edges array based on id of nodes
-    private static int[] edgesOffset;
+    private static IntBuffer edgesOffset;
     //edge ids associated with lower level nodes for contraction hierarchies
-    private static int[] edges;
+    private static IntBuffer edges;
 
     //offsets in the arrays containing label data based on id of nodes
-    private static int[] labelOffset;
-    //label data, containing the node, the first edge in that direction and the total distance to the label node
-    private static int[] labelNode;
-    private static int[] labelEdge;
-    private static int[] labelDist;
+    private static IntBuffer labelOffset;
+    //label data, containing the node, the first edge in that direction and the total distance to the label node.
+    //The node and distance of the label at index i are stored at index labelStride * i of labelNode and labelDist.
+    private static IntBuffer labelNode;
+    private static IntBuffer labelEdge;
+    private static IntBuffer labelDist;
+    private static int labelStride = 1;
+    //interleaved layout: node and distance of every label next to each other, null if not used. In this case,
+    //labelNode and labelDist are views of this buffer (labelDist starting at the first distance) and labelStride
+    //is 2, so labels are accessed the same way in both layouts.
+    private static IntBuffer labelNodeDist;
+
+    //compressed label data (see compressLabels()), null if the labels are not compressed. In this case, the
+    //arrays above are null and labelOffset only contains the number of labels before each node.
+    private static IntBuffer labelByteOffset;
+    private static ByteBuffer labelData;
 
     /**
      * Get the total number of nodes.
      * @return the number of nodes
      */
     public static int getNumOfNodes() {
-        return longitudes.length;
+        return longitudes.limit();
     }
 
     /**
@@ -46,7 +76,7 @@ public class HubLNodes {
      * @return the latitude of the node
      */
     public static double getLat(int nodeID) {
-        return latitudes[nodeID];
+        return latitudes.get(nodeID);
     }
 
     /**
@@ -55,7 +85,7 @@ public class HubLNodes {
      * @return the longitude of the node
      */
     public static double getLong(int nodeID) {
-        return longitudes[nodeID];
+        return longitudes.get(nodeID);
     }
 
     /**
@@ -64,7 +94,7 @@ public class HubLNodes {
      * @return the node associated with the label
      */
     public static int getLabelNode(int idx) {
-        return labelNode[idx];
+        return labelNode.get(labelStride * idx);
     }
 
     /**
@@ -73,7 +103,7 @@ public class HubLNodes {
      * @return the edge associated with the label
      */
     public static int getLabelEdge(int idx) {
-        return labelEdge[idx];
+        return labelEdge.get(idx);
     }
 
     /**
@@ -82,7 +112,32 @@ public class HubLNodes {
      * @return the distance associated with the label
      */
     public static int getLabelDist(int idx) {
-        return labelDist[idx];
+        return labelDist.get(labelStride * idx);
+    }
+
+    /**
+     * Search the labels in a given range for the label of a given node. The labels of a node are ordered by
+     * their node id, so a binary search is used.
+     * @param fromIdx the index of the first label to search (inclusive)
+     * @param toIdx the index of the last label to search (exclusive)
+     * @param nodeId the node to search for
+     * @return the index of the label if it is found, else a negative value (see {@link java.util.Arrays#binarySearch})
+     */
+    public static int findLabel(int fromIdx, int toIdx, int nodeId) {
+        int low = fromIdx;
+        int high = toIdx - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midNode = getLabelNode(mid);
+            if (midNode < nodeId) {
+                low = mid + 1;
+            } else if (midNode > nodeId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
     }
 
     /**
@@ -92,7 +147,7 @@ public class HubLNodes {
      * @return true if label data is available, else false
      */
     public static boolean nodeHasLabels(int nodeId) {
-        return levels[nodeId] >= hlLevel;
+        return levels.get(nodeId) >= hlLevel;
     }
 
     /**
@@ -101,7 +156,160 @@ public class HubLNodes {
      * @return the label offset (index) of the node
      */
     public static int getLabelOffset(int nodeId) {
-        return labelOffset[nodeId];
+        return labelOffset.get(nodeId);
+    }
+
+    /**
+     * Check if the label data is compressed. If so, labels can only be accessed using a {@link LabelCursor}.
+     * @return true if the labels are compressed, else false
+     */
+    public static boolean isLabelDataCompressed() {
+        return labelData != null;
+    }
+
+    /**
+     * Get the position of the compressed labels of a given node.
+     * @param nodeId the id of the node
+     * @return the position of the first byte of the labels of the node in the compressed label data
+     */
+    public static int getLabelByteOffset(int nodeId) {
+        return labelByteOffset.get(nodeId);
+    }
+
+    /**
+     * Get the number of bytes used by the label data.
+     * @return the size of the label data in bytes
+     */
+    public static long getLabelDataSize() {
+        if(isLabelDataCompressed()) {
+            return labelData.limit() + ((long) labelByteOffset.limit() * Integer.BYTES);
+        }
+        return (long) labelEdge.limit() * 3 * Integer.BYTES;
+    }
+
+    /**
+     * Check if the label data uses the interleaved layout (see {@link LabelLayout#INTERLEAVED}).
+     * @return true if the interleaved layout is used, else false
+     */
+    public static boolean isLabelDataInterleaved() {
+        return labelNodeDist != null;
+    }
+
+    /**
+     * Change the layout of uncompressed label data. When comparing labels, the node and the distance of a label
+     * are needed together, so the interleaved layout needs fewer cache lines per label. The edges are only needed
+     * for the best label and are kept in a separate array. The labels are copied into new arrays, so this should
+     * be done before the data is stored (see {@link HubLStore}). Files are mapped in the layout they were stored
+     * in. Does nothing if the labels are compressed or the layout is already used.
+     * @param layout the new layout
+     */
+    public static void setLabelLayout(LabelLayout layout) {
+        if(isLabelDataCompressed() || (layout == LabelLayout.INTERLEAVED) == isLabelDataInterleaved()) {
+            return;
+        }
+        int numOfLabels = labelEdge.limit();
+        if(layout == LabelLayout.INTERLEAVED) {
+            int[] newLabelNodeDist = new int[2 * numOfLabels];
+            for (int i = 0; i < numOfLabels; i++) {
+                newLabelNodeDist[2 * i] = labelNode.get(i);
+                newLabelNodeDist[(2 * i) + 1] = labelDist.get(i);
+            }
+            setLabelNodeDist(IntBuffer.wrap(newLabelNodeDist));
+        } else {
+            int[] newLabelNode = new int[numOfLabels];
+            int[] newLabelDist = new int[numOfLabels];
+            for (int i = 0; i < numOfLabels; i++) {
+                newLabelNode[i] = labelNodeDist.get(2 * i);
+                newLabelDist[i] = labelNodeDist.get((2 * i) + 1);
+            }
+            setLabelNode(IntBuffer.wrap(newLabelNode));
+            setLabelDist(IntBuffer.wrap(newLabelDist));
+        }
+    }
+
+    /**
+     * Compress the label data. The labels of every node are stored as a sequence of bytes: first, the number of
+     * distinct edges of the labels and the edges themselves (ascending, as differences). Then, for every label
+     * the difference to the previous label node combined with the index of its edge in the edge table and the
+     * distance follow. All values are stored as varints (7 bits per byte, highest bit set if another byte
+     * follows). As label nodes are sorted and a node only has few distinct first edges, most labels need less
+     * than half of the uncompressed size. Does nothing if the labels are already compressed.
+     */
+    public static void compressLabels() {
+        if(isLabelDataCompressed()) {
+            return;
+        }
+        int nodeCount = labelOffset.limit() - 1;
+        int[] newLabelByteOffset = new int[nodeCount + 1];
+        byte[] data = new byte[(int) Math.min(MAX_ARRAY_SIZE, Math.max(16L, (long) labelEdge.limit() * 6))];
+        int pos = 0;
+        int[] edgeTable = new int[16];
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            newLabelByteOffset[nodeId] = pos;
+            int startIdx = labelOffset.get(nodeId);
+            int endIdx = labelOffset.get(nodeId + 1);
+            if(startIdx == endIdx) {
+                continue;
+            }
+
+            //collect the distinct edges of the labels
+            int numOfEdges = 0;
+            if(edgeTable.length < endIdx - startIdx) {
+                edgeTable = new int[endIdx - startIdx];
+            }
+            for (int i = startIdx; i < endIdx; i++) {
+                edgeTable[numOfEdges] = labelEdge.get(i);
+                numOfEdges++;
+            }
+            Arrays.sort(edgeTable, 0, numOfEdges);
+            int distinctEdges = 0;
+            for (int i = 0; i < numOfEdges; i++) {
+                if(i == 0 || edgeTable[i] != edgeTable[i - 1]) {
+                    edgeTable[distinctEdges] = edgeTable[i];
+                    distinctEdges++;
+                }
+            }
+            int edgeIdxBits = LabelCursor.getEdgeIdxBits(distinctEdges);
+
+            //worst case: 10 bytes per value
+            int maxSize = pos + (10 * (1 + distinctEdges + (2 * (endIdx - startIdx))));
+            if(data.length < maxSize) {
+                data = Arrays.copyOf(data, (int) Math.max(maxSize,
+                        Math.min(MAX_ARRAY_SIZE, data.length + ((long) data.length >> 1))));
+            }
+            pos = writeVarLong(data, pos, distinctEdges);
+            int prevEdge = 0;
+            for (int i = 0; i < distinctEdges; i++) {
+                pos = writeVarLong(data, pos, (edgeTable[i] + 1) - prevEdge);
+                prevEdge = edgeTable[i] + 1;
+            }
+            int prevNode = 0;
+            for (int i = startIdx; i < endIdx; i++) {
+                int node = getLabelNode(i);
+                int edgeIdx = Arrays.binarySearch(edgeTable, 0, distinctEdges, labelEdge.get(i));
+                pos = writeVarLong(data, pos, ((long) (node - prevNode) << edgeIdxBits) | edgeIdx);
+                pos = writeVarLong(data, pos, getLabelDist(i) & 0xFFFFFFFFL);
+                prevNode = node;
+            }
+        }
+        newLabelByteOffset[nodeCount] = pos;
+
+        labelByteOffset = IntBuffer.wrap(newLabelByteOffset);
+        labelData = ByteBuffer.wrap(Arrays.copyOf(data, pos));
+        labelNode = null;
+        labelEdge = null;
+        labelDist = null;
+        labelNodeDist = null;
+        labelStride = 1;
+    }
+
+    private static int writeVarLong(byte[] data, int pos, long value) {
+        while((value & ~0x7FL) != 0) {
+            data[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[pos++] = (byte) value;
+        return pos;
     }
 
     /**
@@ -110,7 +318,7 @@ public class HubLNodes {
      * @return the edge offset (index) of the node
      */
     public static int getEdgeOffset(int nodeId) {
-        return edgesOffset[nodeId];
+        return edgesOffset.get(nodeId);
     }
 
     /**
@@ -119,7 +327,7 @@ public class HubLNodes {
      * @return the edge id stored at this index
      */
     public static int getEdge(int idx) {
-        return edges[idx];
+        return edges.get(idx);
     }
 
     /**
@@ -134,9 +342,9 @@ public class HubLNodes {
      * Initializes data related to nodes used by the hub label algorithm in order to be stored for later use.
      */
     public static void initNodeData() {
-        longitudes = Nodes.getLongitude();
-        latitudes = Nodes.getLatitude();
-        levels = Nodes.getLevels();
+        longitudes = DoubleBuffer.wrap(Nodes.getLongitude());
+        latitudes = DoubleBuffer.wrap(Nodes.getLatitude());
+        levels = IntBuffer.wrap(Nodes.getLevels());
 
         //save heap space
         Nodes.setLongitude(null);
@@ -161,7 +369,7 @@ public class HubLNodes {
         int nodeCount = edgeCounts.length;
         int totalEdgeLen = 0;
         for (int i = 0; i < nodeCount; i++) {
-            int nodeLvl = levels[i];
+            int nodeLvl = levels.get(i);
             if(nodeLvl >= hlLevel) { //for these nodes, we store labels, not edges
                 currentGrid[i] = null;
                 edgeCounts[i] = 0;
@@ -170,7 +378,7 @@ public class HubLNodes {
                 int j = 0;
                 while(j < edgeCount) {
                     int[] edgeArray = currentGrid[i];
-                    int destLvl = levels[Edges.getDest(edgeArray[j])];
+                    int destLvl = levels.get(Edges.getDest(edgeArray[j]));
                     if(destLvl <= nodeLvl) {
                         //delete edge
                         edgeCount--;
@@ -185,18 +393,20 @@ public class HubLNodes {
         }
 
         //one more element, as final element makes it easier to iterate over the edges of the last node
-        edgesOffset = new int[nodeCount + 1];
-        edges = new int[totalEdgeLen];
+        int[] newEdgesOffset = new int[nodeCount + 1];
+        int[] newEdges = new int[totalEdgeLen];
         int nextOffset = 0;
         for (int i = 0; i < nodeCount; i++) {
             int nextEdgeCount = edgeCounts[i];
-            edgesOffset[i] = nextOffset;
+            newEdgesOffset[i] = nextOffset;
             if (nextEdgeCount != 0) {
-                System.arraycopy(currentGrid[i], 0, edges, nextOffset, nextEdgeCount);
+                System.arraycopy(currentGrid[i], 0, newEdges, nextOffset, nextEdgeCount);
                 nextOffset += nextEdgeCount;
             }
         }
-        edgesOffset[nodeCount] = nextOffset; //initialize final element
+        newEdgesOffset[nodeCount] = nextOffset; //initialize final element
+        edgesOffset = IntBuffer.wrap(newEdgesOffset);
+        edges = IntBuffer.wrap(newEdges);
      }
 
     /**
@@ -217,11 +427,11 @@ public class HubLNodes {
 
         int nodeCount = tmpLabelNodes.length;
         //similarly to the edges offset array, add one additional element to simplify iteration over the last node
-        labelOffset = new int[nodeCount + 1];
+        int[] newLabelOffset = new int[nodeCount + 1];
         int nextOffset = 0;
         //first write to file. This is necessary as otherwise too much RAM is used
         for (int i = 0; i < nodeCount; i++) {
-            labelOffset[i] = nextOffset;
+            newLabelOffset[i] = nextOffset;
             if (tmpLabelNodes[i] != null) {
                 int labelCount = tmpLabelNodes[i].length;
                 int[] nodes = tmpLabelNodes[i];
@@ -235,7 +445,8 @@ public class HubLNodes {
                 nextOffset += labelCount;
             }
         }
-        labelOffset[nodeCount] = nextOffset;
+        newLabelOffset[nodeCount] = nextOffset;
+        labelOffset = IntBuffer.wrap(newLabelOffset);
         writer.close();
         //free up memory
         tmpLabelNodes = null;
@@ -243,102 +454,201 @@ public class HubLNodes {
         tmpLabelDist = null;
 
         //read back from temp file into new format
-        labelNode = new int[nextOffset + 1];
-        labelEdge = new int[nextOffset + 1];
-        labelDist = new int[nextOffset + 1];
+        int[] newLabelNode = new int[nextOffset + 1];
+        int[] newLabelEdge = new int[nextOffset + 1];
+        int[] newLabelDist = new int[nextOffset + 1];
         BufferedReader reader = new BufferedReader(new FileReader(filePath));
         for (int i = 0; i < nextOffset; i++) { //nextOffset is equal to the label count now
-            labelNode[i] = Integer.parseInt(reader.readLine());
-            labelEdge[i] = Integer.parseInt(reader.readLine());
-            labelDist[i] = Integer.parseInt(reader.readLine());
+            newLabelNode[i] = Integer.parseInt(reader.readLine());
+            newLabelEdge[i] = Integer.parseInt(reader.readLine());
+            newLabelDist[i] = Integer.parseInt(reader.readLine());
         }
         //one additional element in the arrays. The reason for this is that the routing algorithm may overshoot by one
         //element in some cases in order to improve runtime.
-        labelNode[nextOffset] = -1;
-        labelEdge[nextOffset] = -1;
-        labelDist[nextOffset] = -1;
+        newLabelNode[nextOffset] = -1;
+        newLabelEdge[nextOffset] = -1;
+        newLabelDist[nextOffset] = -1;
         reader.close();
+        setLabelNode(IntBuffer.wrap(newLabelNode));
+        labelEdge = IntBuffer.wrap(newLabelEdge);
+        labelDist = IntBuffer.wrap(newLabelDist);
+        f.delete();
     }
 
-    //simple getters and setters for fields. Used when serializing or deserializing data.
+    //simple getters and setters for fields. Used when storing or loading data.
 
     public static int getHlLevel() {
         return hlLevel;
     }
 
-    public static double[] getLongitudes() {
+    public static DoubleBuffer getLongitudes() {
         return longitudes;
     }
 
-    public static double[] getLatitudes() {
+    public static DoubleBuffer getLatitudes() {
         return latitudes;
     }
 
-    public static int[] getLevels() {
+    public static IntBuffer getLevels() {
         return levels;
     }
 
-    public static int[] getEdgesOffset() {
+    public static IntBuffer getEdgesOffset() {
         return edgesOffset;
     }
 
-    public static int[] getEdges() {
+    public static IntBuffer getEdges() {
         return edges;
     }
 
-    public static int[] getLabelOffset() {
+    public static IntBuffer getLabelOffset() {
         return labelOffset;
     }
 
-    public static int[] getLabelNode() {
+    /**
+     * Get the buffer containing the label nodes. In the interleaved layout, this is the buffer containing label
+     * nodes and distances, see {@link #getLabelStride()}.
+     * @return the buffer
+     */
+    public static IntBuffer getLabelNode() {
         return labelNode;
     }
 
-    public static int[] getLabelEdge() {
+    public static IntBuffer getLabelEdge() {
         return labelEdge;
     }
 
-    public static int[] getLabelDist() {
+    /**
+     * Get the buffer containing the label distances. In the interleaved layout, this is a view of the buffer
+     * containing label nodes and distances which starts at the first distance, see {@link #getLabelStride()}.
+     * @return the buffer
+     */
+    public static IntBuffer getLabelDist() {
         return labelDist;
     }
 
+    /**
+     * Get the distance between the values of two consecutive labels in the buffers of label nodes and distances.
+     * @return 1 for the separate layout, 2 for the interleaved layout
+     */
+    public static int getLabelStride() {
+        return labelStride;
+    }
+
+    /**
+     * Get the array containing the label nodes, which is needed for vectorized label comparisons.
+     * @return the array or null if the label nodes are not stored in an array on the heap (e.g. because the labels
+     * are compressed, interleaved or mapped from a file)
+     */
+    public static int[] getLabelNodeArray() {
+        if(labelNode == null || labelStride != 1 || !labelNode.hasArray() || labelNode.arrayOffset() != 0) {
+            return null;
+        }
+        return labelNode.array();
+    }
+
+    /**
+     * Copy the label nodes into an array on the heap if they are not stored in one (e.g. because they are mapped
+     * from a file). Afterwards, {@link #getLabelNodeArray()} can be used. Label edges and distances are not copied,
+     * but the copy still needs 4 bytes of heap per label. Does nothing for compressed or interleaved labels.
+     */
+    public static void copyLabelNodesToHeap() {
+        if(labelNode == null || labelStride != 1 || getLabelNodeArray() != null) {
+            return;
+        }
+        int[] nodes = new int[labelNode.limit()];
+        labelNode.duplicate().rewind().get(nodes);
+        labelNode = IntBuffer.wrap(nodes);
+    }
+
+    public static IntBuffer getLabelNodeDist() {
+        return labelNodeDist;
+    }
+
+    public static IntBuffer getLabelByteOffset() {
+        return labelByteOffset;
+    }
+
+    public static ByteBuffer getLabelData() {
+        return labelData;
+    }
+
     public static void setHlLevel(int hlLevel) {
         HubLNodes.hlLevel = hlLevel;
     }
 
-    public static void setLongitudes(double[] longitudes) {
+    public static void setLongitudes(DoubleBuffer longitudes) {
         HubLNodes.longitudes = longitudes;
     }
 
-    public static void setLatitudes(double[] latitudes) {
+    public static void setLatitudes(DoubleBuffer latitudes) {
         HubLNodes.latitudes = latitudes;
     }
 
-    public static void setLevels(int[] levels) {
+    public static void setLevels(IntBuffer levels) {
         HubLNodes.levels = levels;
     }
 
-    public static void setEdgesOffset(int[] edgesOffset) {
+    public static void setEdgesOffset(IntBuffer edgesOffset) {
         HubLNodes.edgesOffset = edgesOffset;
     }
 
-    public static void setEdges(int[] edges) {
+    public static void setEdges(IntBuffer edges) {
         HubLNodes.edges = edges;
     }
 
-    public static void setLabelOffset(int[] labelOffset) {
+    public static void setLabelOffset(IntBuffer labelOffset) {
         HubLNodes.labelOffset = labelOffset;
     }
 
-    public static void setLabelNode(int[] labelNode) {
+    public static void setLabelNode(IntBuffer labelNode) {
         HubLNodes.labelNode = labelNode;
+        if(labelNode != null) {
+            //labels in the separate layout replace other representations
+            labelStride = 1;
+            labelNodeDist = null;
+            labelByteOffset = null;
+            labelData = null;
+        }
+    }
+
+    /**
+     * Use labels in the interleaved layout. The label edges have to be set separately.
+     * @param labelNodeDist the node and distance of every label next to each other
+     */
+    public static void setLabelNodeDist(IntBuffer labelNodeDist) {
+        HubLNodes.labelNodeDist = labelNodeDist;
+        if(labelNodeDist != null) {
+            //labels in the interleaved layout replace other representations
+            labelNode = labelNodeDist;
+            labelDist = labelNodeDist.duplicate().position(1).slice();
+            labelStride = 2;
+            labelByteOffset = null;
+            labelData = null;
+        }
     }
 
-    public static void setLabelEdge(int[] labelEdge) {
+    public static void setLabelEdge(IntBuffer labelEdge) {
         HubLNodes.labelEdge = labelEdge;
     }
 
-    public static void setLabelDist(int[] labelDist) {
+    public static void setLabelDist(IntBuffer labelDist) {
         HubLNodes.labelDist = labelDist;
     }
+
+    public static void setLabelByteOffset(IntBuffer labelByteOffset) {
+        HubLNodes.labelByteOffset = labelByteOffset;
+    }
+
+    public static void setLabelData(ByteBuffer labelData) {
+        HubLNodes.labelData = labelData;
+        if(labelData != null) {
+            //compressed labels replace uncompressed ones
+            labelNode = null;
+            labelEdge = null;
+            labelDist = null;
+            labelNodeDist = null;
+            labelStride = 1;
+        }
+    }
 }
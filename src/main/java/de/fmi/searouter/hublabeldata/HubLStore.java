@@ -1,11 +1,56 @@
 package de.fmi.searouter.hublabeldata;
 
+import de.fmi.searouter.dijkstragrid.CoordinateIndex;
+import de.fmi.searouter.utils.SectionFile;
+
 import java.io.*;
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 
 /**
- * This class is used to store data used by the routing algorithm. Apart from that, it serves no further purpose.
+ * This class is used to store data used by the routing algorithm. Data is stored in a flat binary file written by
+ * {@link SectionFile}, with hlLevel and firstShortcutIdx as additional header values. When reading, every array is
+ * mapped directly from the file, so no data has to be copied to the heap and the page cache can be shared by
+ * several processes.
+ * Labels are either stored uncompressed in the separate layout (label node, edge and distance arrays), uncompressed
+ * in the interleaved layout (label node and distance array, label edge array, see {@link HubLNodes.LabelLayout}) or
+ * compressed (byte offsets and label data, see {@link HubLNodes#compressLabels()}), the sections of the other
+ * representations are empty. Labels are mapped in the representation they were stored in.
+ * Files created by older versions using java serialization can still be read.
  */
 public class HubLStore implements Serializable {
+    //fixed, as files created using java serialization have to be readable
+    private static final long serialVersionUID = -5099481626867242706L;
+
+    //"HLBN" in ascii, identifies files in the binary format
+    private static final int MAGIC_NUMBER = 0x484C424E;
+    private static final int FORMAT_VERSION = 1;
+
+    //indices of the additional values in the header
+    private static final int HL_LEVEL = 0;
+    private static final int FIRST_SHORTCUT_IDX = 1;
+    private static final int NUM_OF_HEADER_VALUES = 2;
+
+    //indices of the arrays (sections) in the file
+    private static final int LONGITUDES = 0;
+    private static final int LATITUDES = 1;
+    private static final int LEVELS = 2;
+    private static final int EDGES_OFFSET = 3;
+    private static final int EDGES = 4;
+    private static final int LABEL_OFFSET = 5;
+    private static final int LABEL_NODE = 6;
+    private static final int LABEL_EDGE = 7;
+    private static final int LABEL_DIST = 8;
+    private static final int DEST = 9;
+    private static final int DIST = 10;
+    private static final int SHORTCUT_PARTS = 11;
+    private static final int LABEL_BYTE_OFFSET = 12;
+    private static final int LABEL_DATA = 13;
+    private static final int LABEL_NODE_DIST = 14;
+    private static final int NUM_OF_SECTIONS = 15;
+
+    //fields of the old serialized format, only used when reading such a file
     //fields from HubLNodes
     private int hlLevel;
     private double[] longitudes;
@@ -31,24 +76,22 @@ public class HubLStore implements Serializable {
      * @return true if it was successful, false if no such file exists
      */
     public static boolean readData(String filename) {
-        File serializationFile = new File(filename);
-        if(!serializationFile.exists()) {
+        File dataFile = new File(filename);
+        if(!dataFile.exists()) {
             return false;
         }
 
         try {
-            // Reading the object from a file
-            FileInputStream file = new FileInputStream(filename);
-            ObjectInputStream in = new ObjectInputStream(file);
-
-            // Method for deserialization of object
-            HubLStore data = (HubLStore) in.readObject();
-
-            in.close();
-            file.close();
-
-            data.setData();
-            System.out.println("Hub label data has been deserialized");
+            SectionFile file = SectionFile.map(filename, MAGIC_NUMBER, FORMAT_VERSION, NUM_OF_HEADER_VALUES,
+                    NUM_OF_SECTIONS, false);
+            if(file != null) {
+                setData(file);
+                System.out.println("Hub label data has been mapped");
+            } else {
+                readSerializedData(filename);
+                System.out.println("Hub label data has been deserialized");
+            }
+            CoordinateIndex.build(true);
         } catch (Exception ex) {
             ex.printStackTrace();
             System.exit(-1);
@@ -56,26 +99,81 @@ public class HubLStore implements Serializable {
         return true;
     }
 
+    /**
+     * Use the mapped arrays of a file in the binary format in {@link HubLNodes} and {@link HubLEdges}.
+     * @param file the mapped file
+     */
+    private static void setData(SectionFile file) {
+        HubLNodes.setHlLevel(file.getHeaderValue(HL_LEVEL));
+        HubLNodes.setLongitudes(file.getDoubleSection(LONGITUDES));
+        HubLNodes.setLatitudes(file.getDoubleSection(LATITUDES));
+        HubLNodes.setLevels(file.getIntSection(LEVELS));
+        HubLNodes.setEdgesOffset(file.getIntSection(EDGES_OFFSET));
+        HubLNodes.setEdges(file.getIntSection(EDGES));
+        HubLNodes.setLabelOffset(file.getIntSection(LABEL_OFFSET));
+        if(file.getByteSection(LABEL_DATA).capacity() > 0) {
+            HubLNodes.setLabelByteOffset(file.getIntSection(LABEL_BYTE_OFFSET));
+            HubLNodes.setLabelData(file.getByteSection(LABEL_DATA));
+        } else if(file.getByteSection(LABEL_NODE_DIST).capacity() > 0) {
+            HubLNodes.setLabelNodeDist(file.getIntSection(LABEL_NODE_DIST));
+            HubLNodes.setLabelEdge(file.getIntSection(LABEL_EDGE));
+        } else {
+            HubLNodes.setLabelNode(file.getIntSection(LABEL_NODE));
+            HubLNodes.setLabelEdge(file.getIntSection(LABEL_EDGE));
+            HubLNodes.setLabelDist(file.getIntSection(LABEL_DIST));
+        }
+
+        HubLEdges.setDest(file.getIntSection(DEST));
+        HubLEdges.setDist(file.getIntSection(DIST));
+        HubLEdges.setFirstShortcutIdx(file.getHeaderValue(FIRST_SHORTCUT_IDX));
+        HubLEdges.setShortcutParts(file.getIntSection(SHORTCUT_PARTS));
+    }
+
+    /**
+     * Read a file created by an older version using java serialization.
+     * @param filename the path of the file
+     * @throws IOException if the file can not be read
+     * @throws ClassNotFoundException if the file does not contain hub label data
+     */
+    private static void readSerializedData(String filename) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            HubLStore data = (HubLStore) in.readObject();
+            data.setData();
+        }
+    }
+
     /**
      * Store data from data structures in {@link HubLNodes} and {@link HubLEdges} in a file with a given path.
      * @param filename the path of the file
      */
     public static void storeData(String filename) {
-        HubLStore data = new HubLStore();
-        // Serialization
-        try {
-            //Saving of object in a file
-            FileOutputStream file = new FileOutputStream(filename);
-            ObjectOutputStream out = new ObjectOutputStream(file);
-
-            // Method for serialization of object
-            out.writeObject(data);
-
-            out.close();
-            file.close();
+        Buffer[] sections = new Buffer[NUM_OF_SECTIONS];
+        sections[LONGITUDES] = HubLNodes.getLongitudes();
+        sections[LATITUDES] = HubLNodes.getLatitudes();
+        sections[LEVELS] = HubLNodes.getLevels();
+        sections[EDGES_OFFSET] = HubLNodes.getEdgesOffset();
+        sections[EDGES] = HubLNodes.getEdges();
+        sections[LABEL_OFFSET] = HubLNodes.getLabelOffset();
+        if(HubLNodes.isLabelDataInterleaved()) {
+            sections[LABEL_NODE_DIST] = HubLNodes.getLabelNodeDist();
+        } else {
+            sections[LABEL_NODE] = HubLNodes.getLabelNode();
+            sections[LABEL_DIST] = HubLNodes.getLabelDist();
+        }
+        sections[LABEL_EDGE] = HubLNodes.getLabelEdge();
+        sections[DEST] = HubLEdges.getDest();
+        sections[DIST] = HubLEdges.getDist();
+        sections[SHORTCUT_PARTS] = HubLEdges.getShortcutParts();
+        sections[LABEL_BYTE_OFFSET] = HubLNodes.getLabelByteOffset();
+        sections[LABEL_DATA] = HubLNodes.getLabelData();
 
-            System.out.println("Hub label data has been serialized");
+        int[] headerValues = new int[NUM_OF_HEADER_VALUES];
+        headerValues[HL_LEVEL] = HubLNodes.getHlLevel();
+        headerValues[FIRST_SHORTCUT_IDX] = HubLEdges.getFirstShortcutIdx();
 
+        try {
+            SectionFile.write(filename, MAGIC_NUMBER, FORMAT_VERSION, headerValues, sections);
+            System.out.println("Hub label data has been stored");
         } catch (IOException ex) {
             ex.printStackTrace();
             System.exit(-1);
@@ -83,44 +181,23 @@ public class HubLStore implements Serializable {
     }
 
     /**
-     * Constructor. Takes data from internal structures in order to fill the object fields.
-     */
-    private HubLStore() {
-        hlLevel = HubLNodes.getHlLevel();
-        longitudes = HubLNodes.getLongitudes();
-        latitudes = HubLNodes.getLatitudes();
-        levels = HubLNodes.getLevels();
-        edgesOffset = HubLNodes.getEdgesOffset();
-        edges = HubLNodes.getEdges();
-        labelOffset = HubLNodes.getLabelOffset();
-        labelNode = HubLNodes.getLabelNode();
-        labelEdge = HubLNodes.getLabelEdge();
-        labelDist = HubLNodes.getLabelDist();
-
-        dest = HubLEdges.getDest();
-        dist = HubLEdges.getDist();
-        firstShortcutIdx = HubLEdges.getFirstShortcutIdx();
-        shortcutParts = HubLEdges.getShortcutParts();
-    }
-
-    /**
-     * Insert data into appropriate data structures.
+     * Insert data read from a serialized file into appropriate data structures.
      */
     private void setData() {
         HubLNodes.setHlLevel(hlLevel);
-        HubLNodes.setLongitudes(longitudes);
-        HubLNodes.setLatitudes(latitudes);
-        HubLNodes.setLevels(levels);
-        HubLNodes.setEdgesOffset(edgesOffset);
-        HubLNodes.setEdges(edges);
-        HubLNodes.setLabelOffset(labelOffset);
-        HubLNodes.setLabelNode(labelNode);
-        HubLNodes.setLabelEdge(labelEdge);
-        HubLNodes.setLabelDist(labelDist);
-
-        HubLEdges.setDest(dest);
-        HubLEdges.setDist(dist);
+        HubLNodes.setLongitudes(DoubleBuffer.wrap(longitudes));
+        HubLNodes.setLatitudes(DoubleBuffer.wrap(latitudes));
+        HubLNodes.setLevels(IntBuffer.wrap(levels));
+        HubLNodes.setEdgesOffset(IntBuffer.wrap(edgesOffset));
+        HubLNodes.setEdges(IntBuffer.wrap(edges));
+        HubLNodes.setLabelOffset(IntBuffer.wrap(labelOffset));
+        HubLNodes.setLabelNode(IntBuffer.wrap(labelNode));
+        HubLNodes.setLabelEdge(IntBuffer.wrap(labelEdge));
+        HubLNodes.setLabelDist(IntBuffer.wrap(labelDist));
+
+        HubLEdges.setDest(IntBuffer.wrap(dest));
+        HubLEdges.setDist(IntBuffer.wrap(dist));
         HubLEdges.setFirstShortcutIdx(firstShortcutIdx);
-        HubLEdges.setShortcutParts(shortcutParts);
+        HubLEdges.setShortcutParts(IntBuffer.wrap(shortcutParts));
     }
 }
@@ -0,0 +1,180 @@
+package de.fmi.searouter.hublabeldata;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Iterates over the labels of a node in ascending order of their label nodes. Works for uncompressed label data as
+ * well as for compressed label data (see {@link HubLNodes#compressLabels()}), in which case the labels are decoded
+ * while iterating. A cursor is not thread safe, but can be reused for any number of nodes.
+ */
+public class LabelCursor {
+    private boolean compressed;
+
+    //uncompressed data: index of the current label and the first index not belonging to the node. Nodes and
+    //distances are read at labelStride * idx (see HubLNodes.getLabelStride()).
+    private IntBuffer labelNode;
+    private IntBuffer labelEdge;
+    private IntBuffer labelDist;
+    private int labelStride;
+    private int idx;
+    private int endIdx;
+
+    //compressed data: position of the next label and the first position not belonging to the node
+    private ByteBuffer labelData;
+    private int pos;
+    private int endPos;
+    //position of the distance of the current label, only decoded if needed
+    private int distPos;
+    //distinct edges of the labels of the node, labels only contain an index in this table
+    private int[] edgeTable = new int[16];
+    private int edgeIdxBits;
+    private long edgeIdxMask;
+    private int currNode;
+    private int currEdge;
+
+    /**
+     * Move the cursor in front of the first label of a given node.
+     * @param nodeId the id of the node
+     */
+    public void reset(int nodeId) {
+        compressed = HubLNodes.isLabelDataCompressed();
+        if(compressed) {
+            labelData = HubLNodes.getLabelData();
+            pos = HubLNodes.getLabelByteOffset(nodeId);
+            endPos = HubLNodes.getLabelByteOffset(nodeId + 1);
+            currNode = 0;
+            if(pos < endPos) {
+                readEdgeTable();
+            }
+        } else {
+            labelNode = HubLNodes.getLabelNode();
+            labelEdge = HubLNodes.getLabelEdge();
+            labelDist = HubLNodes.getLabelDist();
+            labelStride = HubLNodes.getLabelStride();
+            idx = HubLNodes.getLabelOffset(nodeId) - 1;
+            endIdx = HubLNodes.getLabelOffset(nodeId + 1);
+        }
+    }
+
+    /**
+     * Move the cursor to the next label.
+     * @return true if there is another label, false if all labels of the node were visited
+     */
+    public boolean next() {
+        if(!compressed) {
+            idx++;
+            return idx < endIdx;
+        }
+        if(pos >= endPos) {
+            return false;
+        }
+        long value = readVarLong();
+        currNode += (int) (value >>> edgeIdxBits);
+        currEdge = edgeTable[(int) (value & edgeIdxMask)];
+        distPos = pos;
+        //skip the distance
+        while((labelData.get(pos) & 0x80) != 0) {
+            pos++;
+        }
+        pos++;
+        return true;
+    }
+
+    /**
+     * Move the cursor to the label of a given label node.
+     * @param labelNodeId the label node to search for
+     * @return true if the node has a label with this label node, else false
+     */
+    public boolean seek(int labelNodeId) {
+        if(!compressed) {
+            int foundIdx = HubLNodes.findLabel(idx + 1, endIdx, labelNodeId);
+            if(foundIdx < 0) {
+                return false;
+            }
+            idx = foundIdx;
+            return true;
+        }
+        while(next()) {
+            if(currNode >= labelNodeId) {
+                return currNode == labelNodeId;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the node of the current label.
+     * @return the label node
+     */
+    public int getNode() {
+        return compressed ? currNode : labelNode.get(labelStride * idx);
+    }
+
+    /**
+     * Get the first edge on the way to the node of the current label.
+     * @return the edge id, -1 if there is no edge
+     */
+    public int getEdge() {
+        return compressed ? currEdge : labelEdge.get(idx);
+    }
+
+    /**
+     * Get the distance to the node of the current label.
+     * @return the distance
+     */
+    public int getDist() {
+        if(!compressed) {
+            return labelDist.get(labelStride * idx);
+        }
+        int p = distPos;
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = labelData.get(p++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Read the table of distinct edges at the beginning of the labels of a node.
+     */
+    private void readEdgeTable() {
+        int numOfEdges = (int) readVarLong();
+        if(edgeTable.length < numOfEdges) {
+            edgeTable = new int[numOfEdges];
+        }
+        //edges are stored in ascending order as differences to the previous edge (plus one, so -1 is possible)
+        int prevEdge = 0;
+        for (int i = 0; i < numOfEdges; i++) {
+            prevEdge += (int) readVarLong();
+            edgeTable[i] = prevEdge - 1;
+        }
+        edgeIdxBits = getEdgeIdxBits(numOfEdges);
+        edgeIdxMask = (1L << edgeIdxBits) - 1;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = labelData.get(pos++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Get the number of bits used to store an index in the edge table.
+     * @param numOfEdges the number of edges in the table
+     * @return the number of bits
+     */
+    static int getEdgeIdxBits(int numOfEdges) {
+        return numOfEdges <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(numOfEdges - 1);
+    }
+}
@@ -6,9 +6,10 @@ import de.fmi.searouter.utils.IntArrayList;
 import java.util.Arrays;
 
 /**
- * Thread used to calculate contraction hierarchies using the dijkstra algorithm.
+ * Used to calculate contraction hierarchies using the dijkstra algorithm. An instance is not thread safe, but it can
+ * be reused for any number of calculations (each thread of the {@link LevelExecutor} keeps its own instance).
  */
-public class CHDijkstra extends Thread{
+public class CHDijkstra {
     private static final int INITIAL_ARRAY_SIZE = 10;
     private static final int SIZE_INCREASE = 5;
     private static final int MULTIPLE_STEP_NUMBER = 10;
@@ -31,13 +32,10 @@ public class CHDijkstra extends Thread{
     //initial node to start dijkstra from
     private int initialNode;
     // format: startId, destId, distance, edgeId1, edgeId2 --> next (meaning four fields per shortcut)
-    private final IntArrayList shortcuts;
+    private IntArrayList shortcuts;
     //heap used during dijkstra calculation
     private final DistanceHeap heap;
 
-    //ids of nodes for which to calculate contraction in this thread
-    private final IntArrayList nodeIdsToCalc;
-
     /**
      * Constructor. Initializes data structures according to initial sizes.
      */
@@ -47,27 +45,21 @@ public class CHDijkstra extends Thread{
         finalDistance = new boolean[INITIAL_ARRAY_SIZE];
         previousNodes = new int[INITIAL_ARRAY_SIZE];
         previousEdges = new int[INITIAL_ARRAY_SIZE];
-        shortcuts = new IntArrayList(INITIAL_ARRAY_SIZE * 4);
         heap = new DistanceHeap();
         foundIdCount = 0;
-        nodeIdsToCalc = new IntArrayList(5000);
-    }
-
-    /**
-     * Adds a node (by id) to calculate a contraction for in this thread.
-     * @param id the id of the node
-     */
-    public void addNodeId(int id) {
-        nodeIdsToCalc.add(id);
     }
 
     /**
-     * Contracts all nodes contained in nodeIdsToCalc.
+     * Contracts the nodes in a given list between two indices.
+     * @param nodeIdsToCalc the ids of the nodes to contract
+     * @param startIdx the first index in the list to contract
+     * @param endIdx the first index in the list not to contract
+     * @param shortcuts list to which the shortcuts found are added. Format is startId, destId, distance,
+     *                  edgeId1, edgeId2.
      */
-    public void run() {
-        shortcuts.clear();
-        int nodeNum = nodeIdsToCalc.getLen();
-        for (int nodeIdx = 0; nodeIdx < nodeNum; nodeIdx++) {
+    public void contractNodes(IntArrayList nodeIdsToCalc, int startIdx, int endIdx, IntArrayList shortcuts) {
+        this.shortcuts = shortcuts;
+        for (int nodeIdx = startIdx; nodeIdx < endIdx; nodeIdx++) {
             int currentNode = nodeIdsToCalc.get(nodeIdx);
             //get all relevant edge ids
             int edgeCount = DynamicGrid.getCurrentEdgeCount(currentNode);
@@ -88,20 +80,10 @@ public class CHDijkstra extends Thread{
                 addShortcuts(currentNode);
             }
         }
-        nodeIdsToCalc.clear();
-    }
-
-    /**
-     * Get all shortcuts that were calculated in the thread. Format is startId, destId, distance, edgeId1, edgeId2.
-     * Every shortcut consists of 4 elements.
-     * @return the shortcuts
-     */
-    public IntArrayList getShortcuts() {
-        return shortcuts;
     }
 
     /**
-     * Calculate dijkstra for a node. The relevant results will be stored in the fields of the thread.
+     * Calculate dijkstra for a node. The relevant results will be stored in the fields of this object.
      * A preferred node can be given. In this case, routes will be preferred when containing this node.
      * This is only done if the distances of the different routes are identical.
      * @param initialNode the node to start the dijkstra from
@@ -241,7 +223,7 @@ public class CHDijkstra extends Thread{
     }
 
     /**
-     * Increase the size of all data structures in this thread.
+     * Increase the size of all data structures of this object.
      */
     private void grow() {
         int oldLen = foundIds.length;
@@ -181,8 +181,16 @@ public class DynamicGrid {
      */
     public static void importFmiFile(String filePath) throws IOException {
         Resource fmiResource = new ClassPathResource(filePath);
-        InputStream inputStream = fmiResource.getInputStream();
+        importFmiFile(fmiResource.getInputStream());
+    }
 
+    /**
+     * Imports a grid graph of a .fmi file format from a given stream. The stream is closed afterwards.
+     *
+     * @param inputStream The stream containing the grid graph.
+     * @throws IOException If I/O fails.
+     */
+    public static void importFmiFile(InputStream inputStream) throws IOException {
         try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
 
             br.readLine();
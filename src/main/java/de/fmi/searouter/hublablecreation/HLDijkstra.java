@@ -1,57 +1,107 @@
 package de.fmi.searouter.hublablecreation;
 
-import de.fmi.searouter.utils.OrderedIntSet;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 /**
- * Thread used to generate hub labels based on contraction hierarchy.
+ * Used to generate hub labels based on contraction hierarchy. An instance is not thread safe, but it can
+ * be reused for any number of calculations (each thread of the {@link LevelExecutor} keeps its own instance).
  */
-public class HLDijkstra extends Thread{
-    //the order in which nodes are to be calculated
-    private final int[] calcOrder;
-    //first index whose node id should be calculated by this thread and first index whose should not
-    private final int startNodeIdx;
-    private final int endNodeIdx;
-
-    //list of ids found so far. if an id is found at a certain index in this list, associated data can be found in other
-    //lists at the same index.
-    private final OrderedIntSet foundIds;
-    //distances from the initial node to other nodes
-    private final OrderedIntSet distances;
-    //first edge used when navigating from the initial node to a different one
-    private final OrderedIntSet firstEdgeId;
+public class HLDijkstra {
+    //marks labels which were found to be redundant
+    private static final int REMOVED = -1;
+    //minimum number of labels of a node for which the redundancy checks are run in parallel. Only few nodes have
+    //this many labels, so the threads of the level would otherwise wait for them.
+    private static final int PARALLEL_PRUNING_MIN_LABELS = 1000;
+
+    private static int parallelPruningMinLabels = PARALLEL_PRUNING_MIN_LABELS;
+
+    //labels of the current node, sorted by label node. if a label node is found at a certain index in labelNodes,
+    //associated data can be found in the other arrays at the same index.
+    private int[] labelNodes;
+    //distances from the current node to the label nodes
+    private int[] labelDist;
+    //first edge used when navigating from the current node to the label nodes
+    private int[] labelEdges;
+    private int labelCount;
+    //for every label, the index of a label proving that it is redundant (-1 if there is none)
+    private int[] witnesses;
+
+    //direct neighbours of higher level in the order of the edges, with the distance and first edge of the
+    //shortest path found to them before their labels are merged
+    private int[] neighbourIds;
+    private int[] neighbourDist;
+    private int[] neighbourEdges;
+
+    //sources of the merge: source 0 contains the current node and its neighbours sorted by id (distance and edge
+    //are stored per element), source i > 0 contains the labels of neighbour i - 1 (one first edge for all labels)
+    private int[][] sourceNodes;
+    private int[][] sourceDist;
+    private int[] sourceBaseDist;
+    private int[] sourceEdge;
+    private int[] sourceCount;
+    private int[] sourcePos;
+    private int[] directEdges;
+    //heap containing the next label of every source which is not exhausted, as (label node << 32 | source index)
+    private long[] heap;
+
+    public static void setParallelPruningMinLabels(int parallelPruningMinLabels) {
+        HLDijkstra.parallelPruningMinLabels = parallelPruningMinLabels;
+    }
 
     /**
-     * Constructor. Used to pass initial data about this thread.
-     * @param startNodeIdx the index at which to start (in calc order)
-     * @param endNodeIdx the index at which to stop (in calc order)
-     * @param calcOrder an array containing ids of nodes in the order in which they should be calculated in
+     * Constructor. Initializes data structures according to initial sizes.
+     */
+    public HLDijkstra() {
+        labelNodes = new int[1000];
+        labelDist = new int[1000];
+        labelEdges = new int[1000];
+        witnesses = new int[1000];
+        initNeighbourBuffers(16);
+    }
+
+    /**
+     * Create the buffers used for the neighbours of a node and the sources of the merge.
+     * @param maxNeighbours the maximum number of neighbours which can be handled
      */
-    public HLDijkstra(int startNodeIdx, int endNodeIdx, int[] calcOrder) {
-        this.startNodeIdx = startNodeIdx;
-        this.endNodeIdx = endNodeIdx;
-        this.calcOrder = calcOrder;
-        foundIds = new OrderedIntSet(true, 1000, 2000);
-        distances = new OrderedIntSet(false, 1000, 2000);
-        firstEdgeId = new OrderedIntSet(false, 1000, 2000);
+    private void initNeighbourBuffers(int maxNeighbours) {
+        neighbourIds = new int[maxNeighbours];
+        neighbourDist = new int[maxNeighbours];
+        neighbourEdges = new int[maxNeighbours];
+        sourceNodes = new int[maxNeighbours + 1][];
+        sourceDist = new int[maxNeighbours + 1][];
+        sourceBaseDist = new int[maxNeighbours + 1];
+        sourceEdge = new int[maxNeighbours + 1];
+        sourceCount = new int[maxNeighbours + 1];
+        sourcePos = new int[maxNeighbours + 1];
+        sourceNodes[0] = new int[maxNeighbours + 1];
+        sourceDist[0] = new int[maxNeighbours + 1];
+        directEdges = new int[maxNeighbours + 1];
+        heap = new long[maxNeighbours + 1];
     }
 
     /**
-     * Calculate the labels for a given node.
+     * Calculate the labels for a given node. The labels of all neighbours with a higher level are already
+     * available and sorted by label node, so they are combined with a single k-way merge: whenever a label
+     * node is found in multiple sources, the shortest distance is kept. If distances are equal, the label of the
+     * source processed first is kept, the same way as if the labels were inserted one after another.
      * @param nodeId the id of the node
      */
     private void calcLabels(int nodeId) {
-        foundIds.clear();
-        distances.clear();
-        firstEdgeId.clear();
-
-        foundIds.insertSorted(nodeId);
-        distances.insertTail(0);
-        firstEdgeId.insertTail(-1);
-
         int edgeCount = DynamicGrid.getAllEdgeCount(nodeId);
         int[] edgeIds = DynamicGrid.getAllEdges(nodeId);
         int nodeLvl = Nodes.getNodeLvl(nodeId);
-        int[] neighbourIds = new int[edgeCount]; //list of direct neighbours, used later
+        if(neighbourIds.length < edgeCount) {
+            initNeighbourBuffers(edgeCount);
+        }
+
+        //the current node and the neighbours are the first source, sorted by id
+        int[] directNodes = sourceNodes[0];
+        int[] directDist = sourceDist[0];
+        directNodes[0] = nodeId;
+        directDist[0] = 0;
+        directEdges[0] = -1;
+        int directCount = 1;
         int realNeighbourCount = 0;
         for (int i = 0; i < edgeCount; i++) {
             int edgeId = edgeIds[i];
@@ -60,93 +110,212 @@ public class HLDijkstra extends Thread{
                 continue;
             }
             int edgeDist = Edges.getDist(edgeId);
-            neighbourIds[realNeighbourCount] = destNode;
-            realNeighbourCount++;
 
-            int insertIdx = foundIds.getIdx(destNode);
-            if(insertIdx < 0) {
-                insertIdx = (insertIdx + 1) * (-1);
-                foundIds.insertAtIdx(destNode, insertIdx);
-                distances.insertAtIdx(edgeDist, insertIdx);
-                firstEdgeId.insertAtIdx(edgeId, insertIdx);
-            } else {
+            //insertion sort, there are only few neighbours
+            int insertIdx = directCount;
+            while(insertIdx > 0 && directNodes[insertIdx - 1] > destNode) {
+                insertIdx--;
+            }
+            if(insertIdx > 0 && directNodes[insertIdx - 1] == destNode) {
                 System.out.println("error: this code should not be reached, the graph may have problems");
+                continue;
             }
+            System.arraycopy(directNodes, insertIdx, directNodes, insertIdx + 1, directCount - insertIdx);
+            System.arraycopy(directDist, insertIdx, directDist, insertIdx + 1, directCount - insertIdx);
+            System.arraycopy(directEdges, insertIdx, directEdges, insertIdx + 1, directCount - insertIdx);
+            directNodes[insertIdx] = destNode;
+            directDist[insertIdx] = edgeDist;
+            directEdges[insertIdx] = edgeId;
+            directCount++;
+
+            neighbourIds[realNeighbourCount] = destNode;
+            neighbourDist[realNeighbourCount] = edgeDist;
+            neighbourEdges[realNeighbourCount] = edgeId;
+            realNeighbourCount++;
         }
+        sourceBaseDist[0] = 0;
+        sourceCount[0] = directCount;
 
         //for any neighbour, labels are already available, as they have a higher level
-        //(and are therefore calculated first)
-        for(int j = 0; j < realNeighbourCount; j++) {
+        //(and are therefore calculated first). The labels of a neighbour are added to the shortest distance
+        //found to it using the direct edge or the labels of the neighbours before it.
+        for (int j = 0; j < realNeighbourCount; j++) {
             int baseNodeId = neighbourIds[j];
-            int baseIdx = foundIds.getIdx(baseNodeId);
-            int baseDist = distances.get(baseIdx);
-            int baseEdge = firstEdgeId.get(baseIdx);
-
-            int[] labels = Labels.getLabels(baseNodeId);
-            int labelCount = labels.length;
-            int[] dist = Labels.getDist(baseNodeId);
-
-            for (int i = 0; i < labelCount; i++) {
-                int currLabelNode = labels[i];
-                int currLabelIdx = foundIds.getIdx(currLabelNode);
-
-                if(currLabelIdx < 0) {
-                    //new node found
-                    currLabelIdx = (currLabelIdx + 1) * (-1);
-                    int distance = baseDist + dist[i];
-                    foundIds.insertAtIdx(currLabelNode, currLabelIdx);
-                    distances.insertAtIdx(distance, currLabelIdx);
-                    firstEdgeId.insertAtIdx(baseEdge, currLabelIdx);
-                } else {
-                    int newDistance = baseDist + dist[i];
-                    int oldDistance = distances.get(currLabelIdx);
-                    if(oldDistance > newDistance) {
-                        distances.updateValue(newDistance, currLabelIdx);
-                        firstEdgeId.updateValue(baseEdge, currLabelIdx);
+            int baseDist = neighbourDist[j];
+            int baseEdge = neighbourEdges[j];
+            for (int i = 0; i < j; i++) {
+                int labelIdx = Arrays.binarySearch(Labels.getLabels(neighbourIds[i]), baseNodeId);
+                if(labelIdx >= 0) {
+                    int distance = neighbourDist[i] + Labels.getDist(neighbourIds[i])[labelIdx];
+                    if(distance < baseDist) {
+                        baseDist = distance;
+                        baseEdge = neighbourEdges[i];
                     }
                 }
             }
+            neighbourDist[j] = baseDist;
+            neighbourEdges[j] = baseEdge;
+
+            sourceNodes[j + 1] = Labels.getLabels(baseNodeId);
+            sourceDist[j + 1] = Labels.getDist(baseNodeId);
+            sourceBaseDist[j + 1] = baseDist;
+            sourceEdge[j + 1] = baseEdge;
+            sourceCount[j + 1] = sourceNodes[j + 1].length;
         }
 
+        mergeSources(realNeighbourCount + 1);
+        //do not keep references to the labels of other nodes
+        Arrays.fill(sourceNodes, 1, realNeighbourCount + 1, null);
+        Arrays.fill(sourceDist, 1, realNeighbourCount + 1, null);
+
         addLabels(nodeId);
     }
 
+    /**
+     * Merge the labels of all sources into labelNodes, labelDist and labelEdges.
+     * @param numOfSources the number of sources
+     */
+    private void mergeSources(int numOfSources) {
+        int maxLabels = 0;
+        int heapSize = 0;
+        for (int s = 0; s < numOfSources; s++) {
+            maxLabels += sourceCount[s];
+            sourcePos[s] = 0;
+            if(sourceCount[s] > 0) {
+                heap[heapSize++] = ((long) sourceNodes[s][0] << 32) | s;
+            }
+        }
+        if(labelNodes.length < maxLabels) {
+            labelNodes = new int[maxLabels];
+            labelDist = new int[maxLabels];
+            labelEdges = new int[maxLabels];
+            witnesses = new int[maxLabels];
+        }
+        for (int i = (heapSize / 2) - 1; i >= 0; i--) {
+            siftDown(i, heapSize);
+        }
+
+        labelCount = 0;
+        while(heapSize > 0) {
+            int labelNode = (int) (heap[0] >>> 32);
+            int s = (int) heap[0];
+            int pos = sourcePos[s];
+            int distance = sourceBaseDist[s] + sourceDist[s][pos];
+            if(labelCount > 0 && labelNodes[labelCount - 1] == labelNode) {
+                //node found before, sources with a lower index were processed first
+                if(labelDist[labelCount - 1] > distance) {
+                    labelDist[labelCount - 1] = distance;
+                    labelEdges[labelCount - 1] = s == 0 ? directEdges[pos] : sourceEdge[s];
+                }
+            } else {
+                labelNodes[labelCount] = labelNode;
+                labelDist[labelCount] = distance;
+                labelEdges[labelCount] = s == 0 ? directEdges[pos] : sourceEdge[s];
+                labelCount++;
+            }
+
+            pos++;
+            sourcePos[s] = pos;
+            if(pos < sourceCount[s]) {
+                heap[0] = ((long) sourceNodes[s][pos] << 32) | s;
+            } else {
+                heapSize--;
+                heap[0] = heap[heapSize];
+            }
+            siftDown(0, heapSize);
+        }
+    }
+
+    private void siftDown(int idx, int heapSize) {
+        long value = heap[idx];
+        while(true) {
+            int child = (2 * idx) + 1;
+            if(child >= heapSize) {
+                break;
+            }
+            if(child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if(heap[child] >= value) {
+                break;
+            }
+            heap[idx] = heap[child];
+            idx = child;
+        }
+        heap[idx] = value;
+    }
+
     /**
      * Add labels to the {@link Labels} data structure. Before doing that, remove any redundant labels.
      * @param nodeId the id of the node to add the labels for
      */
     private void addLabels(int nodeId) {
         removeRedundancies(nodeId);
-        Labels.addLabels(nodeId, foundIds.toArray(), firstEdgeId.toArray(), distances.toArray());
+        Labels.addLabels(nodeId, Arrays.copyOf(labelNodes, labelCount), Arrays.copyOf(labelEdges, labelCount),
+                Arrays.copyOf(labelDist, labelCount));
     }
 
     /**
      * Remove redundant labels of a given node. A label is redundant, if the label node has another label in
      * common with the given node, where the distance is smaller than or equal to the distance of the
-     * original label.
+     * original label. Labels are checked in ascending order and labels found to be redundant are not
+     * considered for later checks.
+     *
+     * First, every label is checked against all labels of the node. These checks are independent, so they are
+     * run in parallel for nodes with many labels. As labels are calculated by the threads of the
+     * {@link LevelExecutor}, the parallel stream runs in the pool of the executor and not in the common pool.
+     * A label without a witness can not become redundant when other labels are removed. For the others, the
+     * checks are repeated in order, which is only necessary if the witness found before was removed in the
+     * meantime. This gives the same result as checking all labels in order. Redundant labels are marked first
+     * and all arrays are compacted in a single sweep at the end.
      * @param nodeId the id of the node to check the labels of
      */
     private void removeRedundancies(int nodeId) {
-        int idx = 0;
-        OrderedIntSet labels = foundIds;
-        while(idx < labels.size()) {
-            int labelNode = labels.get(idx);
-            if(labelNode != nodeId && Labels.isRedundant(labels.get(idx), distances.get(idx), foundIds, distances)) {
-                labels.removeAtIdx(idx);
-                distances.removeAtIdx(idx);
-                firstEdgeId.removeAtIdx(idx);
-                //no need to increase idx, as an element was removed
-            } else {
-                idx++;
+        int[] nodes = labelNodes;
+        int[] dists = labelDist;
+        int[] witnessIdx = witnesses;
+        int count = labelCount;
+        if(count >= parallelPruningMinLabels) {
+            IntStream.range(0, count).parallel().forEach(idx ->
+                    witnessIdx[idx] = nodes[idx] == nodeId ? -1
+                            : Labels.getRedundancyWitness(nodes[idx], dists[idx], nodes, dists, count));
+        } else {
+            for (int idx = 0; idx < count; idx++) {
+                witnessIdx[idx] = nodes[idx] == nodeId ? -1
+                        : Labels.getRedundancyWitness(nodes[idx], dists[idx], nodes, dists, count);
             }
         }
+
+        for (int idx = 0; idx < count; idx++) {
+            //the label of the node itself is never redundant and has no witness
+            if(witnessIdx[idx] < 0) {
+                continue;
+            }
+            if(dists[witnessIdx[idx]] != REMOVED
+                    || Labels.getRedundancyWitness(nodes[idx], dists[idx], nodes, dists, count) >= 0) {
+                dists[idx] = REMOVED;
+            }
+        }
+
+        int newCount = 0;
+        for (int idx = 0; idx < count; idx++) {
+            if(dists[idx] != REMOVED) {
+                nodes[newCount] = nodes[idx];
+                dists[newCount] = dists[idx];
+                labelEdges[newCount] = labelEdges[idx];
+                newCount++;
+            }
+        }
+        labelCount = newCount;
     }
 
     /**
-     * Calculate labels for node ids in the calc order array between the indices given for this thread.
+     * Calculate labels for node ids in the calc order array between two indices.
+     * @param calcOrder an array containing ids of nodes in the order in which they should be calculated in
+     * @param startNodeIdx the index at which to start (in calc order)
+     * @param endNodeIdx the index at which to stop (in calc order)
      */
-    @Override
-    public void run() {
+    public void calcLabels(int[] calcOrder, int startNodeIdx, int endNodeIdx) {
         for (int nodeIdx = startNodeIdx; nodeIdx < endNodeIdx; nodeIdx++) {
             calcLabels(calcOrder[nodeIdx]);
         }
@@ -15,12 +15,29 @@ import java.util.*;
  * the hub label routing algorithm.
  */
 public class LabelCreator {
+
+    /**
+     * the order in which nodes are contracted when calculating the contraction hierarchy
+     */
+    public enum ContractionOrder {
+        //nodes are contracted in a shuffled order
+        RANDOM,
+        //nodes with a low priority (based on edge difference and deleted neighbours) are contracted first
+        PRIORITY
+    }
+
     private static final String HUB_LABEL_FILE_NAME = "hub_label_data";
 
     //constants used to configure application
     private static final String FMI_FILE_NAME = "exported_grid.fmi";
-    private static final int NUM_OF_THREADS = 16;
+    private static final int NUM_OF_THREADS = Runtime.getRuntime().availableProcessors();
+    //number of nodes processed at once by a thread during contraction and label calculation
+    private static final int CH_CHUNK_SIZE = 64;
+    private static final int HL_CHUNK_SIZE = 16;
     private static final int NUM_OF_NO_LABEL_LVLS = 0;
+    private static final ContractionOrder CONTRACTION_ORDER = ContractionOrder.RANDOM;
+    private static final boolean COMPRESS_LABELS = false;
+    private static final HubLNodes.LabelLayout LABEL_LAYOUT = HubLNodes.LabelLayout.SEPARATE;
 
     //used to keep track of which nodes were contracted using contraction hierarchies
     private static boolean[] contracted;
@@ -30,8 +47,25 @@ public class LabelCreator {
     private static IntArraySet[] alreadyShortcut;
     //the order in which nodes are processed
     private static int[] calcOrder;
-    //threads used to contract nodes
-    private static List<CHDijkstra> threads;
+    //order used for contraction
+    private static ContractionOrder contractionOrder = CONTRACTION_ORDER;
+    //true if the labels should be compressed before storing them
+    private static boolean compressLabels = COMPRESS_LABELS;
+    //layout of the labels if they are not compressed
+    private static HubLNodes.LabelLayout labelLayout = LABEL_LAYOUT;
+    //priority ordering only: priority of each node, position of each node in the shuffled order (used if
+    //priorities are equal), number of contracted neighbours and whether the priority has to be recalculated
+    private static int[] priority;
+    private static int[] orderRank;
+    private static int[] deletedNeighbours;
+    private static boolean[] priorityOutdated;
+    //number of threads used during calculation
+    private static int numOfThreads = NUM_OF_THREADS;
+    //executor used to contract nodes
+    private static LevelExecutor chExecutor;
+    //data structures used for contraction and label calculation, one instance per thread
+    private static final ThreadLocal<CHDijkstra> chDijkstra = ThreadLocal.withInitial(CHDijkstra::new);
+    private static final ThreadLocal<HLDijkstra> hlDijkstra = ThreadLocal.withInitial(HLDijkstra::new);
     //nodes to process in a given iteration
     private static final IntArrayList nodesToCalc = new IntArrayList(50000);
     //number of nodes not yet contracted
@@ -39,55 +73,151 @@ public class LabelCreator {
     //total number of nodes
     private static int nodeCount;
 
+    public static void setNumOfThreads(int numOfThreads) {
+        LabelCreator.numOfThreads = numOfThreads;
+    }
+
+    public static void setContractionOrder(ContractionOrder contractionOrder) {
+        LabelCreator.contractionOrder = contractionOrder;
+    }
+
+    public static void setCompressLabels(boolean compressLabels) {
+        LabelCreator.compressLabels = compressLabels;
+    }
+
+    public static void setLabelLayout(HubLNodes.LabelLayout labelLayout) {
+        LabelCreator.labelLayout = labelLayout;
+    }
+
     /**
-     * calculate the next level of contractions.
+     * mark a node as contracted in the current level.
+     * @param nodeId the id of the node
      * @param lvl the current level
      */
-    private static void calcNextLvl(int lvl) {
-        nodesToCalc.clear();
+    private static void contract(int nodeId, int lvl) {
+        contracted[nodeId] = true;
+        nonContractedNum--;
+        nodesToCalc.add(nodeId);
+        Nodes.setNodeLevel(nodeId, lvl);
+    }
+
+    /**
+     * select the nodes to contract in this level by going through the shuffled order. A node is selected if no
+     * neighbour was selected before.
+     * @param lvl the current level
+     */
+    private static void selectInRandomOrder(int lvl) {
         Arrays.fill(isNeighbour, false); //important: do not reset which nodes are already contracted
         for (int i = 0; i < nodeCount; i++) {
             int nodeId = calcOrder[i];
             if(!contracted[nodeId] && !isNeighbour[nodeId]) {
                 //contract this node in this iteration
-                contracted[nodeId] = true;
+                contract(nodeId, lvl);
                 isNeighbour[nodeId] = true;
-                nonContractedNum--;
                 int edgeCount = DynamicGrid.getCurrentEdgeCount(nodeId);
                 int[] edges = DynamicGrid.getCurrentEdges(nodeId);
                 for (int j = 0; j < edgeCount; j++) {
                     //mark neighbours so no two directly connected nodes are on the same level
                     isNeighbour[Edges.getDest(edges[j])] = true;
                 }
-                nodesToCalc.add(nodeId);
-                Nodes.setNodeLevel(nodeId, lvl);
             }
         }
+    }
 
-        int calcNum = nodesToCalc.getLen();
-        threads.clear();
-        for (int i = 0; i < NUM_OF_THREADS; i++) {
-            threads.add(new CHDijkstra());
+    /**
+     * select the nodes to contract in this level based on their priority. A node is selected if its priority is
+     * lower than the priority of all of its neighbours, so the selected nodes are independent and can be
+     * contracted in parallel. Priorities are only recalculated for nodes whose neighbourhood changed.
+     * @param lvl the current level
+     */
+    private static void selectByPriority(int lvl) {
+        updatePriorities(lvl);
+        IntArrayList selected = new IntArrayList(10000);
+
+        for (int i = 0; i < nodeCount; i++) {
+            int nodeId = calcOrder[i];
+            if(contracted[nodeId]) {
+                continue;
+            }
+            int edgeCount = DynamicGrid.getCurrentEdgeCount(nodeId);
+            int[] edges = DynamicGrid.getCurrentEdges(nodeId);
+            boolean isMinimum = true;
+            for (int j = 0; j < edgeCount && isMinimum; j++) {
+                int neighbourId = Edges.getDest(edges[j]);
+                isMinimum = priority[nodeId] < priority[neighbourId] ||
+                        (priority[nodeId] == priority[neighbourId] && orderRank[nodeId] < orderRank[neighbourId]);
+            }
+            if(isMinimum) {
+                selected.add(nodeId);
+            }
         }
-        for (int i = 0; i < calcNum; i++) { //distribute nodes to threads
-            threads.get(i % NUM_OF_THREADS).addNodeId(nodesToCalc.get(i));
+
+        //contract after selecting, so the selection does not depend on the nodes selected before
+        for (int i = 0; i < selected.getLen(); i++) {
+            int nodeId = selected.get(i);
+            contract(nodeId, lvl);
+            int edgeCount = DynamicGrid.getCurrentEdgeCount(nodeId);
+            int[] edges = DynamicGrid.getCurrentEdges(nodeId);
+            for (int j = 0; j < edgeCount; j++) {
+                int neighbourId = Edges.getDest(edges[j]);
+                deletedNeighbours[neighbourId]++;
+                priorityOutdated[neighbourId] = true;
+            }
         }
+    }
 
-        for (int i = 0; i < NUM_OF_THREADS; i++) {
-            threads.get(i).start();
+    /**
+     * recalculate the priority of all nodes which are not contracted yet and whose priority is outdated. The
+     * priority of a node is the number of shortcuts its contraction would add minus the number of edges removed,
+     * plus the number of neighbours which were already contracted.
+     * @param lvl the current level
+     */
+    private static void updatePriorities(int lvl) {
+        IntArrayList nodesToUpdate = new IntArrayList(10000);
+        for (int nodeId = 0; nodeId < nodeCount; nodeId++) {
+            if(!contracted[nodeId] && priorityOutdated[nodeId]) {
+                nodesToUpdate.add(nodeId);
+                priorityOutdated[nodeId] = false;
+            }
         }
-        for (int i = 0; i < NUM_OF_THREADS; i++) {
-            try {
-                threads.get(i).join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+
+        chExecutor.run("priority update level " + lvl, nodesToUpdate.getLen(), (chunkIdx, startIdx, endIdx) -> {
+            CHDijkstra dijkstra = chDijkstra.get();
+            IntArrayList shortcuts = new IntArrayList(50);
+            for (int i = startIdx; i < endIdx; i++) {
+                int nodeId = nodesToUpdate.get(i);
+                shortcuts.clear();
+                dijkstra.contractNodes(nodesToUpdate, i, i + 1, shortcuts);
+                //every shortcut consists of 5 elements, every edge exists in both directions
+                int edgeDifference = (shortcuts.getLen() / 5) - (2 * DynamicGrid.getCurrentEdgeCount(nodeId));
+                priority[nodeId] = edgeDifference + deletedNeighbours[nodeId];
             }
+        });
+    }
+
+    /**
+     * calculate the next level of contractions.
+     * @param lvl the current level
+     */
+    private static void calcNextLvl(int lvl) {
+        nodesToCalc.clear();
+        if(contractionOrder == ContractionOrder.PRIORITY) {
+            selectByPriority(lvl);
+        } else {
+            selectInRandomOrder(lvl);
         }
 
-        for (int i = 0; i < NUM_OF_THREADS; i++) {
+        int calcNum = nodesToCalc.getLen();
+        //shortcuts are collected per chunk, so the result does not depend on which thread calculated a chunk
+        IntArrayList[] chunkShortcuts = new IntArrayList[chExecutor.getNumOfChunks(calcNum)];
+        chExecutor.run("contraction level " + lvl, calcNum, (chunkIdx, startIdx, endIdx) -> {
+            IntArrayList shortcuts = new IntArrayList(CH_CHUNK_SIZE * 10);
+            chDijkstra.get().contractNodes(nodesToCalc, startIdx, endIdx, shortcuts);
+            chunkShortcuts[chunkIdx] = shortcuts;
+        });
+
+        for (IntArrayList shortcuts : chunkShortcuts) {
             //add shortcuts to grid
-            CHDijkstra thread = threads.get(i);
-            IntArrayList shortcuts = thread.getShortcuts();
             int numOfShortcuts = shortcuts.getLen() / 5;
             for (int j = 0; j < numOfShortcuts; j++) {
                 int idx = j * 5;
@@ -113,7 +243,7 @@ public class LabelCreator {
      * Calculate the contraction hierarchy.
      */
     private static void calculateCH() {
-        threads = new ArrayList<>();
+        chExecutor = new LevelExecutor(numOfThreads, CH_CHUNK_SIZE);
         // first, get a random order in which the nodes are contracted
         nodeCount = Nodes.getNodeCount();
         alreadyShortcut = new IntArraySet[nodeCount];
@@ -138,6 +268,16 @@ public class LabelCreator {
         contracted = new boolean[nodeCount];
         Arrays.fill(contracted, false);
         isNeighbour = new boolean[nodeCount];
+        if(contractionOrder == ContractionOrder.PRIORITY) {
+            priority = new int[nodeCount];
+            deletedNeighbours = new int[nodeCount];
+            priorityOutdated = new boolean[nodeCount];
+            Arrays.fill(priorityOutdated, true);
+            orderRank = new int[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                orderRank[calcOrder[i]] = i;
+            }
+        }
 
         int lvl = 0;
         while(nonContractedNum > 0) {
@@ -146,6 +286,7 @@ public class LabelCreator {
             calcNextLvl(lvl);
             lvl++;
         }
+        chExecutor.shutdown();
     }
 
     /**
@@ -154,90 +295,79 @@ public class LabelCreator {
     private static void calcLabels() {
         OrderedIntSet changeIndices = createHLCalcOrder();
         int indicesCount = changeIndices.size();
-        List<Thread> threadList = new ArrayList<>();
+        LevelExecutor hlExecutor = new LevelExecutor(numOfThreads, HL_CHUNK_SIZE);
 
         int maxCalcIdx = indicesCount - (NUM_OF_NO_LABEL_LVLS + 1);
         for (int i = 0; i < maxCalcIdx; i++) {  //note: not all levels receive labels in order to save memory
             System.out.println("Label calculation processing iteration " + i + " time: " + new Date());
-            threadList.clear();
             int startIdx = changeIndices.get(i);
             int endIdx = changeIndices.get(i + 1);
-            int minThreadNum = endIdx - startIdx;
-            System.out.println("Number of nodes in this iteration: " + minThreadNum);
-
-            if(minThreadNum > NUM_OF_THREADS) {
-                int numOfNodes = minThreadNum / NUM_OF_THREADS;
-                int threadStartIdx = startIdx;
-                for (int j = 1; j < NUM_OF_THREADS; j++) {
-                    int threadEndIdx = threadStartIdx + numOfNodes;
-                    threadList.add(new HLDijkstra(threadStartIdx, threadEndIdx, calcOrder));
-                    threadStartIdx = threadEndIdx;
-                }
-                threadList.add(new HLDijkstra(threadStartIdx, endIdx, calcOrder));
-            } else {
-                for (int j = startIdx; j < endIdx; j++) {
-                    threadList.add(new HLDijkstra(j, j + 1, calcOrder));
-                }
-            }
-
-            for(Thread thread : threadList) {
-                thread.start();
-            }
-            for(Thread thread : threadList) {
-                try {
-                    thread.join();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    System.exit(-1);
-                }
-            }
+            hlExecutor.run("label iteration " + i, endIdx - startIdx, (chunkIdx, chunkStartIdx, chunkEndIdx) ->
+                    hlDijkstra.get().calcLabels(calcOrder, startIdx + chunkStartIdx, startIdx + chunkEndIdx));
         }
+        hlExecutor.shutdown();
     }
 
     /**
      * Create calculation order for hub label processing. This is based on the levels each node was
-     * assigned during calculation of the contraction hierarchy.
+     * assigned during calculation of the contraction hierarchy. Nodes are sorted by descending level using
+     * a counting sort (levels are small integers), nodes of the same level keep their relative order.
      * @return An OrderedIntSet containing indices at which the next level of nodes is reached
      */
     private static OrderedIntSet createHLCalcOrder() {
-        calcOrder = new int[Nodes.getNodeCount()];
-        int n = calcOrder.length;
+        int n = Nodes.getNodeCount();
+        calcOrder = new int[n];
+
+        //count the nodes of each level
+        int maxLvl = 0;
         for (int i = 0; i < n; i++) {
-            calcOrder[i] = i;
+            maxLvl = Math.max(maxLvl, Nodes.getNodeLvl(i));
         }
-
-        //arrange node ids in the correct order based on level
-        int temp;
-        for(int i=0; i < n; i++){
-            for(int j=1; j < (n-i); j++){
-                if(Nodes.getNodeLvl(calcOrder[j-1]) < Nodes.getNodeLvl(calcOrder[j])){
-                    //swap elements
-                    temp = calcOrder[j-1];
-                    calcOrder[j-1] = calcOrder[j];
-                    calcOrder[j] = temp;
-                }
-            }
+        //position 0 is used for the highest level
+        int[] lvlStart = new int[maxLvl + 1];
+        for (int i = 0; i < n; i++) {
+            lvlStart[maxLvl - Nodes.getNodeLvl(i)]++;
         }
 
         //find indices at which the nodes of the next level begin
         OrderedIntSet changeIndices = new OrderedIntSet(false, 650, 10);
-        int prevLvl = 0;
         changeIndices.insertTail(0);
-        for (int i = 0; i < n; i++) {
-            int currLvl = Nodes.getNodeLvl(calcOrder[i]);
-            if(currLvl < prevLvl) {
-                changeIndices.insertTail(i);
+        int currIdx = 0;
+        for (int pos = 0; pos < lvlStart.length; pos++) {
+            int lvlCount = lvlStart[pos];
+            lvlStart[pos] = currIdx;
+            if(lvlCount != 0 && currIdx != 0) {
+                changeIndices.insertTail(currIdx);
             }
-            prevLvl = currLvl;
+            currIdx += lvlCount;
         }
         changeIndices.insertTail(n);
+
+        //arrange node ids in the correct order based on level
+        for (int i = 0; i < n; i++) {
+            int pos = maxLvl - Nodes.getNodeLvl(i);
+            calcOrder[lvlStart[pos]] = i;
+            lvlStart[pos]++;
+        }
         return changeIndices;
     }
 
     /**
-     * Store data relevant for the routing algorithm after preprocessing.
+     * Calculate all data required by the hub label router for the grid currently stored in {@link DynamicGrid}.
+     * In contrast to {@link #main(String[])}, no intermediate results are read or stored. Afterwards, the data is
+     * available in {@link HubLNodes} and {@link HubLEdges}.
+     */
+    public static void createHubLData() {
+        calculateCH();
+        Labels.initialize(Nodes.getNodeCount());
+        calcLabels();
+        initHubLData();
+    }
+
+    /**
+     * Bring data relevant for the routing algorithm into the format used by the router after preprocessing.
      */
-    private static void serializeHubLData() {
+    private static void initHubLData() {
         HubLEdges.initialize();
         HubLNodes.initHlLvl(NUM_OF_NO_LABEL_LVLS);
         HubLNodes.initNodeData();
@@ -248,7 +378,14 @@ public class LabelCreator {
             e.printStackTrace();
             System.exit(-1);
         }
-        HubLStore.storeData(HUB_LABEL_FILE_NAME);
+        if(compressLabels) {
+            long uncompressedSize = HubLNodes.getLabelDataSize();
+            HubLNodes.compressLabels();
+            System.out.println("Labels compressed from " + uncompressedSize + " to " + HubLNodes.getLabelDataSize()
+                    + " bytes");
+        } else {
+            HubLNodes.setLabelLayout(labelLayout);
+        }
     }
 
     /**
@@ -286,7 +423,8 @@ public class LabelCreator {
         System.out.println("step 2 complete");
 
         //bring data into correct format and store it persistently
-        serializeHubLData();
+        initHubLData();
+        HubLStore.storeData(HUB_LABEL_FILE_NAME);
 
         // Calculate the needed time for the pre-processing for time statistics in minutes
         Date endTime = new Date();
@@ -1,7 +1,5 @@
 package de.fmi.searouter.hublablecreation;
 
-import de.fmi.searouter.utils.OrderedIntSet;
-
 /**
  * This class contains data used during calculation of labels. Its task is to store and process previously
  * calculated labels.
@@ -59,27 +57,34 @@ public class Labels {
     /**
      * Check if a given label is redundant. A label is considered redundant, if the node in the label has
      * a label in common with the original node whose distance is smaller than or equal to
-     * the one associated with the label to check.
+     * the one associated with the label to check. This common label is returned as witness.
      * @param toCheck the label to check
      * @param checkDist the distance of the label to check
-     * @param labels the label nodes of the original node
-     * @param checkDists the distances associated with the labels of the original nodes
-     * @return true if the label is redundant, else false
+     * @param labels the label nodes of the original node in ascending order
+     * @param checkDists the distances associated with the labels of the original node, negative for labels
+     *                   which were already removed
+     * @param labelCount the number of labels of the original node
+     * @return the index of the first common label proving that the label is redundant (in the labels of the
+     * original node), -1 if the label is not redundant
      */
-    public static boolean isRedundant(int toCheck, int checkDist, OrderedIntSet labels, OrderedIntSet checkDists) {
+    public static int getRedundancyWitness(int toCheck, int checkDist, int[] labels, int[] checkDists, int labelCount) {
         int checkIdx = 0;
         int[] checkLabels = labelNodes[toCheck];
         int checkLabelCount = checkLabels.length;
         int labelIdx = 0;
-        int labelCount = labels.size();
         while(checkIdx < checkLabelCount && labelIdx < labelCount) {
+            if(checkDists[labelIdx] < 0) {
+                //removed label
+                labelIdx++;
+                continue;
+            }
             int checkNode = checkLabels[checkIdx];
-            int labelNode = labels.get(labelIdx);
+            int labelNode = labels[labelIdx];
             if(checkNode == labelNode) {
-                int newDist = checkDists.get(labelIdx) + labelDist[toCheck][checkIdx];
+                int newDist = checkDists[labelIdx] + labelDist[toCheck][checkIdx];
                 if(newDist <= checkDist) {
                     if(!(checkNode == toCheck)) {
-                        return true;
+                        return labelIdx;
                     }
                 }
                 checkIdx++;
@@ -90,7 +95,7 @@ public class Labels {
                 labelIdx++;
             }
         }
-        return false;
+        return -1;
     }
 
     //simple getters and setters for fields. Used when serializing or deserializing data.
@@ -0,0 +1,100 @@
+package de.fmi.searouter.hublablecreation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the calculations for the nodes of one level in parallel. The nodes are split into small chunks which
+ * are processed by a work stealing {@link ForkJoinPool}, so threads which finish early take over chunks instead
+ * of waiting for a few slow threads. After each level, the utilisation of the threads is printed.
+ */
+public class LevelExecutor {
+
+    /**
+     * A calculation for a range of nodes of a level.
+     */
+    public interface ChunkTask {
+        /**
+         * Run the calculation for a chunk.
+         * @param chunkIdx the index of the chunk, starting at 0
+         * @param startIdx the first index to calculate
+         * @param endIdx the first index not to calculate
+         */
+        void run(int chunkIdx, int startIdx, int endIdx);
+    }
+
+    private final ForkJoinPool pool;
+    //maximum number of indices processed in a single chunk
+    private final int chunkSize;
+
+    /**
+     * Constructor. Creates the thread pool.
+     * @param numOfThreads the number of threads to use
+     * @param chunkSize the maximum number of indices processed in a single chunk
+     */
+    public LevelExecutor(int numOfThreads, int chunkSize) {
+        this.pool = new ForkJoinPool(numOfThreads);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Get the number of chunks a given number of indices is split into.
+     * @param numOfIndices the number of indices
+     * @return the number of chunks
+     */
+    public int getNumOfChunks(int numOfIndices) {
+        return (numOfIndices + chunkSize - 1) / chunkSize;
+    }
+
+    /**
+     * Run a calculation for all indices between 0 (inclusive) and a given number (exclusive) and wait until
+     * all chunks are finished.
+     * @param description the description of the level, used when printing the utilisation
+     * @param numOfIndices the number of indices to calculate
+     * @param task the calculation to run for each chunk
+     */
+    public void run(String description, int numOfIndices, ChunkTask task) {
+        int numOfChunks = getNumOfChunks(numOfIndices);
+        LongAdder busyTime = new LongAdder();
+        List<Callable<Void>> chunks = new ArrayList<>(numOfChunks);
+        for (int i = 0; i < numOfChunks; i++) {
+            int chunkIdx = i;
+            chunks.add(() -> {
+                long chunkStart = System.nanoTime();
+                int startIdx = chunkIdx * chunkSize;
+                task.run(chunkIdx, startIdx, Math.min(startIdx + chunkSize, numOfIndices));
+                busyTime.add(System.nanoTime() - chunkStart);
+                return null;
+            });
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            for (Future<Void> result : pool.invokeAll(chunks)) {
+                result.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            System.exit(-1);
+        }
+        long wallTime = System.nanoTime() - startTime;
+
+        double utilisation = wallTime == 0 ? 0.0 :
+                (100.0 * busyTime.sum()) / ((double) wallTime * pool.getParallelism());
+        System.out.println(description + ": " + numOfIndices + " nodes in " + numOfChunks + " chunks, "
+                + String.format("%.1f", wallTime / 1000000.0) + " ms, thread utilisation: "
+                + String.format("%.1f", utilisation) + "%");
+    }
+
+    /**
+     * Stop the threads of this executor. No calculations can be run afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -13,23 +13,55 @@ import java.util.*;
 /**
  * Provides means to import a PBF file (https://wiki.openstreetmap.org/wiki/PBF_Format)
  * containing coastline information.
+ *
+ * The file is read twice: the first pass collects the coastline ways and the ids of the nodes they reference,
+ * the second pass only stores the coordinates of these nodes. Node ids are kept in a sorted array, so no
+ * map containing an object per node is needed.
  */
 public class CoastlineImporter {
 
     /**
-     * The imported coastlineway
+     * The number of threads used to parse the pbf file.
      */
-    private final List<CoastlineWay> coastLineWays;
+    private static int numOfParserThreads = Runtime.getRuntime().availableProcessors();
 
     /**
-     * Node IDs need to be mapped to Points as in the pbf file coastlines and nodes are defined separately and
-     * the reference has to be resolved in order to get the node information.
+     * The ways found in the first pass. Ways may be found by multiple threads at the same time.
      */
-    private Map<Long, Point> allNodes;
+    private final List<WayNodeRefs> wayNodeRefs;
+
+    /**
+     * Ids of all nodes referenced by coastline ways in ascending order, without duplicates. The coordinates of the
+     * node at a given index in this array are stored at the same index in {@link #nodeLat} and {@link #nodeLon}.
+     * Coordinates are NaN if a node is not contained in the file.
+     */
+    private long[] nodeIds;
+    private float[] nodeLat;
+    private float[] nodeLon;
+
+    /**
+     * The ids of the nodes of a coastline way, as found in the first pass.
+     */
+    private static class WayNodeRefs {
+        private final long wayId;
+        private final long[] nodeIds;
+
+        private WayNodeRefs(long wayId, long[] nodeIds) {
+            this.wayId = wayId;
+            this.nodeIds = nodeIds;
+        }
+    }
 
     public CoastlineImporter() {
-        this.allNodes = new HashMap<>();
-        this.coastLineWays = new ArrayList<>();
+        this.wayNodeRefs = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * Set the number of threads used to parse the pbf file.
+     * @param numOfParserThreads the number of threads
+     */
+    public static void setNumOfParserThreads(int numOfParserThreads) {
+        CoastlineImporter.numOfParserThreads = numOfParserThreads;
     }
 
     /**
@@ -39,21 +71,44 @@ public class CoastlineImporter {
      * @throws FileNotFoundException If under the passed path name no file can be found.
      */
     public List<CoastlineWay> importPBF(String pbfCoastlineFilePath) throws IOException {
-        this.allNodes = new HashMap<>();
+        return importPBF(new ClassPathResource(pbfCoastlineFilePath));
+    }
 
-        // Get an input stream for the pbf file located in the resources directory
-        Resource pbfResource = new ClassPathResource(pbfCoastlineFilePath);
-        InputStream inputStream = pbfResource.getInputStream();
+    /**
+     * Imports osm coastlines from a given pbf file.
+     *
+     * @param pbfResource The pbf file, has to be readable twice.
+     * @throws IOException If the file can not be read.
+     */
+    public List<CoastlineWay> importPBF(Resource pbfResource) throws IOException {
+        wayNodeRefs.clear();
+
+        // First pass: find the coastline ways and the nodes they reference
+        try (InputStream inputStream = pbfResource.getInputStream()) {
+            new ParallelBinaryParser(inputStream, numOfParserThreads)
+                    .onHeader(this::processHeader)
+                    .onWay(this::processWay)
+                    .parse();
+        }
+        initNodeIds();
+        System.out.println("Found " + wayNodeRefs.size() + " coastline ways referencing " + nodeIds.length + " nodes");
+
+        // Second pass: store the coordinates of the referenced nodes
+        try (InputStream inputStream = pbfResource.getInputStream()) {
+            new ParallelBinaryParser(inputStream, numOfParserThreads)
+                    .onHeader(this::processHeader)
+                    .onNode(this::processNode)
+                    .parse();
+        }
 
-        // Start import
-        new ParallelBinaryParser(inputStream, 1)
-                .onHeader(this::processHeader)
-                .onNode(this::processNode)
-                .onWay(this::processWay)
-                .onComplete(this::onCompletion)
-                .parse();
+        List<CoastlineWay> coastLineWays = createCoastlineWays();
 
-        return this.coastLineWays;
+        // Empty the node data to save memory
+        wayNodeRefs.clear();
+        nodeIds = null;
+        nodeLat = null;
+        nodeLon = null;
+        return coastLineWays;
     }
 
     /**
@@ -69,43 +124,90 @@ public class CoastlineImporter {
     }
 
     /**
-     * Things to do when the import finished.
+     * Collect the ids of all nodes referenced by the coastline ways found in the first pass, sort them and remove
+     * duplicates. Afterwards, the arrays for the coordinates of the nodes are created.
+     */
+    private void initNodeIds() {
+        int numOfRefs = 0;
+        for (WayNodeRefs way : wayNodeRefs) {
+            numOfRefs += way.nodeIds.length;
+        }
+        long[] ids = new long[numOfRefs];
+        int pos = 0;
+        for (WayNodeRefs way : wayNodeRefs) {
+            System.arraycopy(way.nodeIds, 0, ids, pos, way.nodeIds.length);
+            pos += way.nodeIds.length;
+        }
+        Arrays.parallelSort(ids);
+
+        // Remove duplicates (e.g. the first and last node of closed ways)
+        int numOfIds = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[numOfIds++] = ids[i];
+            }
+        }
+        nodeIds = Arrays.copyOf(ids, numOfIds);
+        nodeLat = new float[numOfIds];
+        nodeLon = new float[numOfIds];
+        Arrays.fill(nodeLat, Float.NaN);
+        Arrays.fill(nodeLon, Float.NaN);
+    }
+
+    /**
+     * Create the coastline ways using the node coordinates found in the second pass. Ways are sorted by their id,
+     * so the result does not depend on the order in which the parser threads found them.
+     * @return the coastline ways
      */
-    private void onCompletion() {
-        // Empty the nodes list to save memory
-        this.allNodes = null;
+    private List<CoastlineWay> createCoastlineWays() {
+        wayNodeRefs.sort(Comparator.comparingLong(way -> way.wayId));
+        List<CoastlineWay> coastLineWays = new ArrayList<>(wayNodeRefs.size());
+        for (WayNodeRefs way : wayNodeRefs) {
+            CoastlineWay cWay = new CoastlineWay();
+            for (long nodeId : way.nodeIds) {
+                int idx = Arrays.binarySearch(nodeIds, nodeId);
+                // Nodes which are not contained in the file are skipped
+                if (!Float.isNaN(nodeLat[idx])) {
+                    cWay.getPoints().add(new Point(nodeId, nodeLat[idx], nodeLon[idx]));
+                }
+            }
+            coastLineWays.add(cWay);
+        }
+        return coastLineWays;
     }
 
     /**
-     * Handles an osm way when finding one during the pbf import.
+     * Handles an osm way when finding one during the first pass of the pbf import.
      *
      * @param way The osm way
      */
     private void processWay(com.wolt.osm.parallelpbf.entity.Way way) {
         if (isCoastlineEntity(way)) {
-            CoastlineWay cWay = new CoastlineWay();
-            for (int i = 0; i < way.getNodes().size(); i++) {
-                Point node = this.allNodes.get(way.getNodes().get(i));
-                if (node != null) {
-                    cWay.getPoints().add(node);
-                }
+            List<Long> nodes = way.getNodes();
+            long[] refs = new long[nodes.size()];
+            for (int i = 0; i < refs.length; i++) {
+                refs[i] = nodes.get(i);
             }
-            this.coastLineWays.add(cWay);
+            wayNodeRefs.add(new WayNodeRefs(way.getId(), refs));
         }
-
     }
 
     /**
-     * Processes nodes during the PBF file import.
+     * Processes nodes during the second pass of the pbf import. Only nodes referenced by coastline ways are
+     * stored. Every node is written to its own index, so nodes can be processed by multiple threads at once.
      *
      * @param node The node to process
      */
     private void processNode(com.wolt.osm.parallelpbf.entity.Node node) {
-        allNodes.put(node.getId(), new Point(node.getId(), (float) node.getLat(), (float) node.getLon()));
+        int idx = Arrays.binarySearch(nodeIds, node.getId());
+        if (idx >= 0) {
+            nodeLat[idx] = (float) node.getLat();
+            nodeLon[idx] = (float) node.getLon();
+        }
     }
 
     private void processHeader(Header header) {
         // We are not interested in the header
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package de.fmi.searouter.rest;
+
+import de.fmi.searouter.router.RoutingMetrics;
+import de.fmi.searouter.router.RoutingResult;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes a {@link RoutingResult} in a compact binary format. Used if a request accepts {@link #MEDIA_TYPE}.
+ * All values are little-endian:
+ * <ul>
+ *     <li>int32: the distance of the route, -1 if no route was found</li>
+ *     <li>int32: the number of points on the path (0 if no route was found)</li>
+ *     <li>float64: the calculation time in ms</li>
+ *     <li>for every point: float32 latitude, float32 longitude</li>
+ * </ul>
+ */
+public class BinaryRouteConverter extends AbstractHttpMessageConverter<RoutingResult> {
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType("application/vnd.searouter.route");
+    public static final int HEADER_SIZE = (2 * Integer.BYTES) + Double.BYTES;
+    public static final int POINT_SIZE = 2 * Float.BYTES;
+
+    /**
+     * Constructor. Registers the supported media type.
+     */
+    public BinaryRouteConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RoutingResult.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        //results are only written
+        return false;
+    }
+
+    @Override
+    protected RoutingResult readInternal(Class<? extends RoutingResult> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Routing results can not be read", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(RoutingResult result, MediaType contentType) {
+        int[] path = result.getPath();
+        return (long) HEADER_SIZE + (path == null ? 0 : (long) path.length * POINT_SIZE);
+    }
+
+    @Override
+    protected void writeInternal(RoutingResult result, HttpOutputMessage outputMessage) throws IOException {
+        long startTime = System.nanoTime();
+        int[] path = result.getPath();
+        int numOfPoints = path == null ? 0 : path.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (numOfPoints * POINT_SIZE))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(result.getOverallDistance());
+        buffer.putInt(numOfPoints);
+        buffer.putDouble(result.getCalculationTimeInMs());
+        for (int i = 0; i < numOfPoints; i++) {
+            buffer.putFloat((float) RoutingResult.getLatitude(path[i]));
+            buffer.putFloat((float) RoutingResult.getLongitude(path[i]));
+        }
+        outputMessage.getBody().write(buffer.array());
+        RoutingMetrics.getDefault().recordSerialization(RoutingMetrics.SerializationFormat.BINARY,
+                System.nanoTime() - startTime);
+    }
+}
@@ -0,0 +1,107 @@
+package de.fmi.searouter.rest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.fmi.searouter.router.RoutingMetrics;
+import de.fmi.searouter.router.RoutingResult;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Writes a {@link RoutingResult} as JSON in which the coordinates of the path are given as an encoded polyline
+ * (the format used by Google Maps, with a precision of 5 decimal places), e.g.
+ * {"polyline":"_p~iF~ps|U_ulLnnqC","overallDistance":1234,"calculationTimeInMs":0.5,"routeFound":true}.
+ * The polyline is null if no route was found. Used if a request accepts {@link #MEDIA_TYPE}.
+ */
+public class PolylineRouteConverter extends AbstractHttpMessageConverter<RoutingResult> {
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType("application/vnd.searouter.polyline");
+    //factor by which coordinates are multiplied before rounding them
+    private static final double PRECISION = 1e5;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Constructor. Registers the supported media type.
+     */
+    public PolylineRouteConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RoutingResult.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        //results are only written
+        return false;
+    }
+
+    @Override
+    protected RoutingResult readInternal(Class<? extends RoutingResult> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Routing results can not be read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(RoutingResult result, HttpOutputMessage outputMessage) throws IOException {
+        long startTime = System.nanoTime();
+        try (JsonGenerator gen = jsonFactory.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            int[] path = result.getPath();
+            if(path == null) {
+                gen.writeNullField("polyline");
+            } else {
+                gen.writeStringField("polyline", encodePolyline(path.length,
+                        i -> RoutingResult.getLatitude(path[i]), i -> RoutingResult.getLongitude(path[i])));
+            }
+            gen.writeNumberField("overallDistance", result.getOverallDistance());
+            gen.writeNumberField("calculationTimeInMs", result.getCalculationTimeInMs());
+            gen.writeBooleanField("routeFound", result.isRouteFound());
+            gen.writeEndObject();
+        }
+        RoutingMetrics.getDefault().recordSerialization(RoutingMetrics.SerializationFormat.POLYLINE,
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Encode points as a polyline. Every coordinate is rounded to 5 decimal places and stored as the difference
+     * to the previous one, using 5 bits per character.
+     * @param numOfPoints the number of points
+     * @param latitudes returns the latitude of the point with a given index
+     * @param longitudes returns the longitude of the point with a given index
+     * @return the encoded polyline
+     */
+    static String encodePolyline(int numOfPoints, IntToDoubleFunction latitudes, IntToDoubleFunction longitudes) {
+        //most differences need less than 4 characters
+        StringBuilder polyline = new StringBuilder(numOfPoints * 8);
+        long prevLat = 0;
+        long prevLon = 0;
+        for (int i = 0; i < numOfPoints; i++) {
+            long lat = Math.round(latitudes.applyAsDouble(i) * PRECISION);
+            long lon = Math.round(longitudes.applyAsDouble(i) * PRECISION);
+            encodeValue(polyline, lat - prevLat);
+            encodeValue(polyline, lon - prevLon);
+            prevLat = lat;
+            prevLon = lon;
+        }
+        return polyline.toString();
+    }
+
+    private static void encodeValue(StringBuilder polyline, long value) {
+        //the sign is stored in the lowest bit
+        long bits = value < 0 ? ~(value << 1) : (value << 1);
+        while(bits >= 0x20) {
+            polyline.append((char) ((0x20 | (bits & 0x1F)) + 63));
+            bits >>= 5;
+        }
+        polyline.append((char) (bits + 63));
+    }
+}
@@ -0,0 +1,22 @@
+package de.fmi.searouter.rest;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registers the additional formats of routing results. The format is chosen using the Accept header of a
+ * request. The converters are added after the default ones, so JSON is still used if a request accepts any
+ * format.
+ */
+@Configuration
+public class RouteFormatConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new PolylineRouteConverter());
+        converters.add(new BinaryRouteConverter());
+    }
+}
@@ -1,5 +1,6 @@
 package de.fmi.searouter.rest;
 
+import de.fmi.searouter.importdata.LatLong;
 import de.fmi.searouter.router.*;
 import de.fmi.searouter.dijkstragrid.Grid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,32 +8,200 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
 @RestController
 @RequestMapping("/route")
 public class RoutingController {
     private static boolean useHLRouter;
+    //maximum number of routes in the cache, 0 to disable the cache
+    private static long routeCacheSize = 10000;
 
     public static void setHLRouterUse(boolean useHLRouter) {
         RoutingController.useHLRouter = useHLRouter;
     }
 
-    Router router;
+    public static void setRouteCacheSize(long routeCacheSize) {
+        RoutingController.routeCacheSize = routeCacheSize;
+    }
+
+    //used to simplify paths if requested, null if not available
+    private static RouteSimplifier routeSimplifier;
+
+    public static void setRouteSimplifier(RouteSimplifier routeSimplifier) {
+        RoutingController.routeSimplifier = routeSimplifier;
+    }
+
+    //true if calculations are run by a routing executor instead of the request threads
+    private static boolean asyncRouting = false;
+    //maximum number of calculations waiting in each lane of the routing executor
+    private static int routingQueueSize = 1000;
+    //maximum time of a calculation (including the time in the queue) if the request does not specify a shorter one
+    private static long routingTimeoutInMs = 10000;
+    //maximum number of cells (start points times end points) of a distance matrix
+    static final long MAX_MATRIX_CELLS = 1000000;
+
+    public static void setAsyncRouting(boolean asyncRouting) {
+        RoutingController.asyncRouting = asyncRouting;
+    }
+
+    public static void setRoutingQueueSize(int routingQueueSize) {
+        RoutingController.routingQueueSize = routingQueueSize;
+    }
+
+    public static void setRoutingTimeoutInMs(long routingTimeoutInMs) {
+        RoutingController.routingTimeoutInMs = routingTimeoutInMs;
+    }
+
+    //routers hold state during a calculation, so every request borrows its own one from the pool
+    private final RouterPool routerPool;
+    //results of previous requests, shared by all threads
+    private final RouteCache routeCache;
+    //runs calculations if async routing is enabled, else null
+    private final RoutingExecutor routingExecutor;
+    //timings and sizes of the phases of the calculations
+    private final RoutingMetrics routingMetrics;
+    //calculates the rows of distance matrices in parallel, in sync and async mode
+    private final ThreadPoolExecutor matrixExecutor;
+    private final int numOfMatrixThreads;
 
     public RoutingController() {
-        //empty
+        int numOfThreads = Runtime.getRuntime().availableProcessors();
+        routerPool = new RouterPool(useHLRouter, numOfThreads);
+        routeCache = new RouteCache(routeCacheSize);
+        routingMetrics = RoutingMetrics.getDefault();
+        //expensive calculations may only use half of the cores, the rest is left for cheap ones
+        routingExecutor = asyncRouting ? new RoutingExecutor(useHLRouter, numOfThreads,
+                Math.max(1, numOfThreads / 2), routingQueueSize) : null;
+        //distance matrices are expensive as well, so their rows are calculated by half of the cores
+        numOfMatrixThreads = Math.max(1, numOfThreads / 2);
+        matrixExecutor = new ThreadPoolExecutor(numOfMatrixThreads, numOfMatrixThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), RoutingExecutor.createThreadFactory("distance-matrix-"));
+        //threads are only kept while distance matrices are requested
+        matrixExecutor.allowCoreThreadTimeOut(true);
     }
 
-    public RoutingResult getRoutingResult(RoutingRequest rq) {
-        if(router == null) {
-            if(useHLRouter) {
-                router = new HubLRouter();
-            } else {
-                router = new DijkstraRouter();
+    /**
+     * Run a calculation with a router. If async routing is enabled, the calculation is run by the routing
+     * executor and a future of the response is returned. Otherwise it is run by the current thread and the
+     * response is returned directly. Spring handles both kinds of return values.
+     * @param lane the lane of the routing executor the calculation should be run in
+     * @param requestedTimeoutInMs the timeout requested by the user, 0 to use the default timeout
+     * @param calculation the calculation, gets a router for exclusive use and returns the response
+     * @return the response or a future of the response
+     */
+    private Object runWithRouter(RoutingExecutor.Lane lane, long requestedTimeoutInMs,
+                                 Function<Router, ResponseEntity> calculation) {
+        if (routingExecutor == null) {
+            Router router = routerPool.borrow();
+            try {
+                return calculation.apply(router);
+            } finally {
+                routerPool.giveBack(router);
             }
         }
 
-        int startNodeId = Grid.getNearestGridNodeByCoordinates(rq.getStartPoint().getLatitude(), rq.getStartPoint().getLongitude());
-        int destNodeId = Grid.getNearestGridNodeByCoordinates(rq.getEndPoint().getLatitude(), rq.getEndPoint().getLongitude());
+        long timeoutInMs = requestedTimeoutInMs > 0 ? Math.min(requestedTimeoutInMs, routingTimeoutInMs) : routingTimeoutInMs;
+        return routingExecutor.submit(lane, timeoutInMs, calculation).exceptionally(RoutingController::getErrorResponse);
+    }
+
+    /**
+     * Create the response for a calculation of the routing executor which failed.
+     * @param e the exception the calculation failed with
+     * @return the response
+     */
+    private static ResponseEntity getErrorResponse(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many routing requests, please try again later!");
+        }
+        if (cause instanceof TimeoutException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("The calculation took too long!");
+        }
+        cause.printStackTrace();
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("The calculation failed!");
+    }
+
+    /**
+     * Get the lane of the routing executor used for single routing queries.
+     * @return the fast lane for the hub label router, the slow lane for the dijkstra router
+     */
+    private static RoutingExecutor.Lane getQueryLane() {
+        return useHLRouter ? RoutingExecutor.Lane.FAST : RoutingExecutor.Lane.SLOW;
+    }
+
+    /**
+     * Calculate a route using a router which is exclusively used by the current thread. If the route was
+     * calculated before, the cached result is returned instead.
+     * @param startNodeId the start node of the route
+     * @param destNodeId the destination node of the route
+     * @return the calculated route
+     */
+    private RoutingResult calculateRoute(int startNodeId, int destNodeId) {
+        RoutingResult cachedResult = routeCache.get(startNodeId, destNodeId);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        Router router = routerPool.borrow();
+        try {
+            return calculateRoute(router, startNodeId, destNodeId);
+        } finally {
+            routerPool.giveBack(router);
+        }
+    }
+
+    /**
+     * Calculate a route using a given router and add it to the cache.
+     * @param router the router to use, has to be exclusively used by the current thread
+     * @param startNodeId the start node of the route
+     * @param destNodeId the destination node of the route
+     * @return the calculated route
+     */
+    private RoutingResult calculateRoute(Router router, int startNodeId, int destNodeId) {
+        RoutingResult result = router.route(startNodeId, destNodeId);
+        routingMetrics.recordQuery(router.getQueryStats());
+        routeCache.put(startNodeId, destNodeId, result);
+        return result;
+    }
+
+    /**
+     * Find the grid node closest to a point.
+     * @param point the point
+     * @return the id of the closest node, -1 if the point is not on the ocean
+     */
+    private int snapToGrid(LatLong point) {
+        long startTime = System.nanoTime();
+        int nodeId = Grid.getNearestGridNodeByCoordinates(point.getLatitude(), point.getLongitude());
+        routingMetrics.recordSnapping(System.nanoTime() - startTime);
+        return nodeId;
+    }
+
+    /**
+     * Simplify the path of a route if requested.
+     * @param res the route, is not modified
+     * @param tolerance the tolerance of the simplification, 0 if the path should not be simplified
+     * @return the route with the simplified path
+     */
+    private static RoutingResult simplify(RoutingResult res, double tolerance) {
+        if (tolerance > 0.0 && res.routeFound()) {
+            //the cached result contains the full path, so it is not modified
+            return new RoutingResult(routeSimplifier.simplify(res.getPath(), tolerance), res.getOverallDistance(),
+                    res.getCalculationTimeInMs());
+        }
+        return res;
+    }
+
+    public RoutingResult getRoutingResult(RoutingRequest rq) {
+        int startNodeId = snapToGrid(rq.getStartPoint());
+        int destNodeId = snapToGrid(rq.getEndPoint());
 
         if (startNodeId < 0) {
             return null;
@@ -46,21 +215,45 @@ public class RoutingController {
             return new RoutingResult();
         }
 
-       return router.route(startNodeId, destNodeId);
+       return calculateRoute(startNodeId, destNodeId);
     }
 
     @PostMapping("")
-    public ResponseEntity getRoute(@RequestBody RoutingRequest routingRequest) {
-        if(router == null) {
-            if(useHLRouter) {
-                router = new HubLRouter();
-            } else {
-                router = new DijkstraRouter();
-            }
+    public Object getRoute(@RequestBody RoutingRequest routingRequest) {
+       int startNodeId = snapToGrid(routingRequest.getStartPoint());
+       int destNodeId = snapToGrid(routingRequest.getEndPoint());
+
+        if (startNodeId < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Start position is not on the ocean!");
+        }
+
+        if (destNodeId < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Destination position is not on the ocean!");
+        }
+
+        if (startNodeId == destNodeId) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Destination position is equal to start position!");
+        }
+
+        double tolerance = routingRequest.getSimplificationTolerance();
+        if (tolerance > 0.0 && routeSimplifier == null) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body("Route simplification requires the coastline data!");
         }
 
-       int startNodeId = Grid.getNearestGridNodeByCoordinates(routingRequest.getStartPoint().getLatitude(), routingRequest.getStartPoint().getLongitude());
-       int destNodeId = Grid.getNearestGridNodeByCoordinates(routingRequest.getEndPoint().getLatitude(), routingRequest.getEndPoint().getLongitude());
+        //cached routes are returned directly, without waiting in the queue
+        RoutingResult cachedResult = routeCache.get(startNodeId, destNodeId);
+        if (cachedResult != null) {
+            return ResponseEntity.ok(simplify(cachedResult, tolerance));
+        }
+
+        return runWithRouter(getQueryLane(), routingRequest.getTimeoutInMs(), router ->
+                ResponseEntity.ok(simplify(calculateRoute(router, startNodeId, destNodeId), tolerance)));
+    }
+
+    @PostMapping("/distance")
+    public Object getDistance(@RequestBody RoutingRequest routingRequest) {
+        int startNodeId = snapToGrid(routingRequest.getStartPoint());
+        int destNodeId = snapToGrid(routingRequest.getEndPoint());
 
         if (startNodeId < 0) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Start position is not on the ocean!");
@@ -74,9 +267,62 @@ public class RoutingController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Destination position is equal to start position!");
         }
 
-        RoutingResult res = router.route(startNodeId, destNodeId);
+        return runWithRouter(getQueryLane(), routingRequest.getTimeoutInMs(), router -> {
+            long startTime = System.nanoTime();
+            int distance = router.routeDistance(startNodeId, destNodeId);
+            long stopTime = System.nanoTime();
+            routingMetrics.recordQuery(router.getQueryStats());
+            return ResponseEntity.ok(new DistanceResult(distance, (double) (stopTime - startTime) / 1000000));
+        });
+    }
+
+    @PostMapping("/matrix")
+    public Object getDistanceMatrix(@RequestBody MatrixRequest matrixRequest) {
+        if (!useHLRouter) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body("Distance matrices require the hub label router!");
+        }
+        if (matrixRequest.getStartPoints() == null || matrixRequest.getEndPoints() == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Start and end points are required!");
+        }
+        //the product is calculated as long, as it may not fit in an int
+        long numOfCells = (long) matrixRequest.getStartPoints().size() * matrixRequest.getEndPoints().size();
+        if (numOfCells > MAX_MATRIX_CELLS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Distance matrices may contain at most "
+                    + MAX_MATRIX_CELLS + " cells!");
+        }
+
+        //matrices are expensive, so they always use the slow lane and the rows are calculated by the matrix executor
+        return runWithRouter(RoutingExecutor.Lane.SLOW, matrixRequest.getTimeoutInMs(), router -> {
+            long startTime = System.nanoTime();
+            //every point is only snapped to a node once, -1 if the point is not on the ocean
+            int[] startNodeIds = getNearestNodes(matrixRequest.getStartPoints());
+            int[] destNodeIds = getNearestNodes(matrixRequest.getEndPoints());
+
+            int[] distances = ((HubLRouter) router).calculateDistanceMatrix(startNodeIds, destNodeIds,
+                    matrixExecutor, numOfMatrixThreads);
+            long stopTime = System.nanoTime();
+
+            return ResponseEntity.ok(new MatrixResult(distances, startNodeIds.length, destNodeIds.length,
+                    (double) (stopTime - startTime) / 1000000));
+        });
+    }
+
+    /**
+     * Find the grid nodes closest to a list of points.
+     * @param points the points
+     * @return the ids of the closest nodes, -1 if no node was found for a point
+     */
+    private int[] getNearestNodes(List<LatLong> points) {
+        int[] nodeIds = new int[points.size()];
+        for (int i = 0; i < nodeIds.length; i++) {
+            nodeIds[i] = snapToGrid(points.get(i));
+        }
+        return nodeIds;
+    }
 
-        return ResponseEntity.ok(res);
+    @GetMapping("/cache")
+    public ResponseEntity getRouteCacheStats() {
+        return ResponseEntity.ok(routeCache.getStats());
     }
 
     @GetMapping("/test")
@@ -0,0 +1,136 @@
+package de.fmi.searouter.rest;
+
+import de.fmi.searouter.router.Router;
+import de.fmi.searouter.router.RouterPool;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs routing calculations of the REST api on dedicated threads, so request threads are not blocked while a
+ * route is calculated. Calculations are split into two lanes: cheap calculations (e.g. single hub label queries)
+ * and expensive ones (e.g. dijkstra queries or distance matrices). Each lane has its own threads, routers and a
+ * bounded queue, so expensive calculations can not starve cheap ones. If the queue of a lane is full, a
+ * calculation is rejected immediately instead of waiting.
+ */
+public class RoutingExecutor {
+
+    /**
+     * The lane a calculation is run in.
+     */
+    public enum Lane {
+        FAST,
+        SLOW
+    }
+
+    private final ThreadPoolExecutor[] executors;
+    //each lane has its own routers, so a lane never waits for a router used by the other one
+    private final RouterPool[] routerPools;
+
+    /**
+     * Constructor. Creates the threads of both lanes.
+     * @param useHLRouter true if hub label routers should be used, false for dijkstra routers
+     * @param numOfFastThreads the number of threads of the fast lane
+     * @param numOfSlowThreads the number of threads of the slow lane
+     * @param queueSize the maximum number of calculations waiting in the queue of each lane
+     */
+    public RoutingExecutor(boolean useHLRouter, int numOfFastThreads, int numOfSlowThreads, int queueSize) {
+        executors = new ThreadPoolExecutor[]{
+                createExecutor("routing-fast-", numOfFastThreads, queueSize),
+                createExecutor("routing-slow-", numOfSlowThreads, queueSize)
+        };
+        routerPools = new RouterPool[]{
+                new RouterPool(useHLRouter, numOfFastThreads),
+                new RouterPool(useHLRouter, numOfSlowThreads)
+        };
+    }
+
+    private static ThreadPoolExecutor createExecutor(String namePrefix, int numOfThreads, int queueSize) {
+        //the default policy rejects calculations if the queue is full
+        return new ThreadPoolExecutor(numOfThreads, numOfThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), createThreadFactory(namePrefix));
+    }
+
+    /**
+     * Create a factory for daemon threads, so routing threads do not prevent the application from stopping.
+     * @param namePrefix the prefix of the thread names, followed by a counter
+     * @return the thread factory
+     */
+    static ThreadFactory createThreadFactory(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger(0);
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Run a calculation in one of the lanes. The returned future completes exceptionally with a
+     * {@link RejectedExecutionException} if the queue of the lane is full and with a
+     * {@link TimeoutException} if the calculation is not finished in time. A calculation
+     * which timed out while waiting in the queue is not started at all. The thread of a running calculation is
+     * interrupted, so calculations which check for interruption (e.g. distance matrices) stop early. Others
+     * continue until they are finished, but their result is discarded.
+     * @param lane the lane to run the calculation in
+     * @param timeoutInMs the maximum time in milliseconds until the calculation has to be finished
+     * @param calculation the calculation, gets a router for exclusive use
+     * @param <T> the type of the result
+     * @return a future of the result of the calculation
+     */
+    public <T> CompletableFuture<T> submit(Lane lane, long timeoutInMs, Function<Router, T> calculation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        RouterPool routerPool = routerPools[lane.ordinal()];
+        Future<?> task;
+        try {
+            task = executors[lane.ordinal()].submit(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                Router router = routerPool.borrow();
+                try {
+                    result.complete(calculation.apply(router));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    routerPool.giveBack(router);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.orTimeout(timeoutInMs, TimeUnit.MILLISECONDS).whenComplete((value, e) -> {
+            if (e instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Get the number of calculations waiting in the queue of a lane.
+     * @param lane the lane
+     * @return the number of waiting calculations
+     */
+    public int getQueueLength(Lane lane) {
+        return executors[lane.ordinal()].getQueue().size();
+    }
+
+    /**
+     * Stop the threads of both lanes. Waiting calculations are still run, but no new ones are accepted.
+     */
+    public void shutdown() {
+        for (ThreadPoolExecutor executor : executors) {
+            executor.shutdown();
+        }
+    }
+}
@@ -16,28 +16,31 @@ public class DijkstraHeap {
     //the array representing the heap
     private int[] idHeapArray;
     private int currentSize;
-    //used when comparing the distances of ids
-    private final DijkstraRouter router;
+    //for each node, the key used to order the heap (for example the distance from the start node)
+    private final int[] keys;
 
     /**
      * constructor for the dijkstra heap
-     * @param router the router containing the distance array
+     * @param keys the array containing the key of each node, smaller keys are returned first
      */
-    protected DijkstraHeap(DijkstraRouter router) {
+    protected DijkstraHeap(int[] keys) {
         this.heapPosition = new int[Node.getSize()];
+        Arrays.fill(heapPosition, -1);
         this.idHeapArray = new int[INITIAL_SIZE];
         Arrays.fill(idHeapArray, -1);
-        this.router = router;
+        this.keys = keys;
         currentSize = 0;
     }
 
     /**
-     * resets the satate of the heap and prepares it for a new calculation
+     * resets the satate of the heap and prepares it for a new calculation. Only the ids still contained
+     * on the heap are touched, so the cost does not depend on the number of nodes.
      */
     protected void resetState() {
-        Arrays.fill(heapPosition, -1);
-        this.idHeapArray = new int[INITIAL_SIZE];
-        Arrays.fill(idHeapArray, -1);
+        for (int i = 0; i < currentSize; i++) {
+            heapPosition[idHeapArray[i]] = -1;
+            idHeapArray[i] = -1;
+        }
         currentSize = 0;
     }
 
@@ -49,6 +52,14 @@ public class DijkstraHeap {
         return (currentSize == 0);
     }
 
+    /**
+     * gets the id of the node with the lowest key stored on the heap without removing it.
+     * @return the id of the node with the lowest key
+     */
+    protected int peek() {
+        return idHeapArray[0];
+    }
+
     /**
      * gets the id of the node with the lowest distance from the start node stored on the heap. Also restores
      * the remaining array to a heap.
@@ -61,6 +72,8 @@ public class DijkstraHeap {
         idHeapArray[0] = idHeapArray[currentSize];
         heapPosition[idHeapArray[0]] = 0;
         idHeapArray[currentSize] = -1;
+        //the node may be added again later, for example by a* after its distance decreased
+        heapPosition[returnValue] = -1;
         heapifyTopDown(currentSize, 0);
         return returnValue;
     }
@@ -163,16 +176,16 @@ public class DijkstraHeap {
     }
 
     /**
-     * compares the distances from the start node of elements at specific positions on the heap.
-     * Returns a number indicating the relation of the distances.
+     * compares the keys of elements at specific positions on the heap.
+     * Returns a number indicating the relation of the keys.
      * @param firstID the first position on the heap
      * @param secondID the first position on the heap
-     * @return 0 if equal, 1 if distance of first element is larger, else -1
+     * @return 0 if equal, 1 if key of first element is larger, else -1
      */
     private int compareValues(int firstID, int secondID) {
-        if(router.currDistanceToNode[idHeapArray[firstID]] == router.currDistanceToNode[idHeapArray[secondID]]) {
+        if(keys[idHeapArray[firstID]] == keys[idHeapArray[secondID]]) {
             return 0;
-        } else if(router.currDistanceToNode[idHeapArray[firstID]] > router.currDistanceToNode[idHeapArray[secondID]]) {
+        } else if(keys[idHeapArray[firstID]] > keys[idHeapArray[secondID]]) {
             return 1;
         } else {
             return -1;
@@ -3,7 +3,7 @@ package de.fmi.searouter.router;
 import de.fmi.searouter.dijkstragrid.Edge;
 import de.fmi.searouter.dijkstragrid.Grid;
 import de.fmi.searouter.dijkstragrid.Node;
-import org.springframework.stereotype.Component;
+import de.fmi.searouter.utils.IntersectionHelper;
 
 import java.util.*;
 
@@ -12,36 +12,126 @@ import java.util.*;
  */
 public class DijkstraRouter implements Router {
 
+    /**
+     * the variants of dijkstra's algorithm which can be used by this router
+     */
+    public enum Mode {
+        //unidirectional dijkstra from the start node
+        DIJKSTRA,
+        //dijkstra from the start and the destination node at the same time
+        BIDIRECTIONAL,
+        //dijkstra guided by the great circle distance to the destination node
+        A_STAR
+    }
+
+    private static final int INITIAL_TOUCHED_SIZE = 1024;
+
+    //mode used by routers created without an explicit mode
+    private static Mode defaultMode = Mode.DIJKSTRA;
+
+    private final Mode mode;
     //current distance to the target node
     protected final int[] currDistanceToNode;
     //previous node on the way to the target node
     private final int[] previousNode;
     private final DijkstraHeap vertexHeap;
-    private final boolean[] nodeTouched;
+
+    //bidirectional only: distance to the destination node and next node on the way to the destination node
+    private final int[] currDistanceFromNode;
+    private final int[] nextNode;
+    private final DijkstraHeap backwardHeap;
+
+    //a* only: distance from the start node plus the estimated distance to the destination node
+    private final int[] estimatedDistance;
+
+    //nodes whose distances were set during the current calculation, used to reset the state
+    private int[] touchedNodes;
+    private int numOfTouchedNodes;
+    //node at which the path from the start and the path to the destination node meet
+    private int meetingNode;
 
     /**
-     * constructor. also initializes internal fields
+     * constructor. also initializes internal fields. uses the mode set by {@link #setDefaultMode(Mode)}.
      */
     public DijkstraRouter() {
+        this(defaultMode);
+    }
+
+    /**
+     * constructor. also initializes internal fields
+     * @param mode the variant of dijkstra's algorithm to use
+     */
+    public DijkstraRouter(Mode mode) {
+        this.mode = mode;
         this.currDistanceToNode = new int[Node.getSize()];
         this.previousNode = new int[Node.getSize()];
-        this.nodeTouched = new boolean[Node.getSize()];
-        this.vertexHeap = new DijkstraHeap(this);
-
         Arrays.fill(currDistanceToNode, Integer.MAX_VALUE);
         Arrays.fill(previousNode, -1);
-        Arrays.fill(nodeTouched, false);
+
+        if(mode == Mode.BIDIRECTIONAL) {
+            this.currDistanceFromNode = new int[Node.getSize()];
+            this.nextNode = new int[Node.getSize()];
+            Arrays.fill(currDistanceFromNode, Integer.MAX_VALUE);
+            Arrays.fill(nextNode, -1);
+            this.backwardHeap = new DijkstraHeap(currDistanceFromNode);
+        } else {
+            this.currDistanceFromNode = null;
+            this.nextNode = null;
+            this.backwardHeap = null;
+        }
+
+        if(mode == Mode.A_STAR) {
+            this.estimatedDistance = new int[Node.getSize()];
+            this.vertexHeap = new DijkstraHeap(estimatedDistance);
+        } else {
+            this.estimatedDistance = null;
+            this.vertexHeap = new DijkstraHeap(currDistanceToNode);
+        }
+
+        this.touchedNodes = new int[INITIAL_TOUCHED_SIZE];
+        this.numOfTouchedNodes = 0;
+    }
+
+    public static void setDefaultMode(Mode mode) {
+        defaultMode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
     }
 
     /**
-     * resets the state of a previous calculation
+     * resets the state of a previous calculation. only nodes touched by the previous calculation are reset,
+     * so the cost depends on the explored region rather than the size of the grid.
      */
     private void resetState() {
-        Arrays.fill(currDistanceToNode, Integer.MAX_VALUE);
-        Arrays.fill(previousNode, -1);
-        Arrays.fill(nodeTouched, false);
+        for (int i = 0; i < numOfTouchedNodes; i++) {
+            int nodeId = touchedNodes[i];
+            currDistanceToNode[nodeId] = Integer.MAX_VALUE;
+            previousNode[nodeId] = -1;
+            if(mode == Mode.BIDIRECTIONAL) {
+                currDistanceFromNode[nodeId] = Integer.MAX_VALUE;
+                nextNode[nodeId] = -1;
+            }
+        }
+        numOfTouchedNodes = 0;
 
         vertexHeap.resetState();
+        if(mode == Mode.BIDIRECTIONAL) {
+            backwardHeap.resetState();
+        }
+    }
+
+    /**
+     * remembers that the state of a node was changed, so it can be reset before the next calculation
+     * @param nodeId the id of the node
+     */
+    private void touch(int nodeId) {
+        if(numOfTouchedNodes == touchedNodes.length) {
+            touchedNodes = Arrays.copyOf(touchedNodes, touchedNodes.length * 2);
+        }
+        touchedNodes[numOfTouchedNodes] = nodeId;
+        numOfTouchedNodes++;
     }
 
     /**
@@ -57,66 +147,251 @@ public class DijkstraRouter implements Router {
     public RoutingResult route(int startNodeIdx, int destNodeIdx) {
 
         long startTime = System.nanoTime();
+        int distance = calculateDistance(startNodeIdx, destNodeIdx);
+
+        if(distance != -1) {
+            // Here, we are done with dijkstra but need to gather all relevant data from the resulting data structures
+            // Count the nodes before and after the meeting node first, so the path can be filled in order
+            int numOfNodesBefore = 0;
+            for (int currNode = meetingNode; currNode != startNodeIdx; currNode = previousNode[currNode]) {
+                numOfNodesBefore++;
+            }
+            int numOfNodesAfter = 0;
+            for (int currNode = meetingNode; currNode != destNodeIdx; currNode = nextNode[currNode]) {
+                numOfNodesAfter++;
+            }
+
+            int[] path = new int[numOfNodesBefore + 1 + numOfNodesAfter];
+            int currNodeUnderInvestigation = meetingNode;
+            for (int i = numOfNodesBefore; i >= 0; i--) {
+                path[i] = currNodeUnderInvestigation;
+                currNodeUnderInvestigation = previousNode[currNodeUnderInvestigation];
+            }
+            // Add the part found by the backward search (if any)
+            currNodeUnderInvestigation = meetingNode;
+            for (int i = numOfNodesBefore + 1; i < path.length; i++) {
+                currNodeUnderInvestigation = nextNode[currNodeUnderInvestigation];
+                path[i] = currNodeUnderInvestigation;
+            }
+            long stopTime = System.nanoTime();
+
+            return new RoutingResult(path, distance, (double) (stopTime - startTime) / 1000000);
+        } else {
+            long stopTime = System.nanoTime();
+            return new RoutingResult((double) (stopTime - startTime) / 1000000, false);
+        }
+    }
+
+    /**
+     * Calculates the distance of a shortest path from one start node to a destination node without
+     * determining the path itself.
+     *
+     * @param startNodeIdx The index of the start node (corresponding to {@link Node} indices)
+     * @param destNodeIdx The index of the destination node (corresponding to {@link Node} indices)
+     * @return the distance of a shortest route or -1 if there is no route
+     */
+    @Override
+    public int routeDistance(int startNodeIdx, int destNodeIdx) {
+        return calculateDistance(startNodeIdx, destNodeIdx);
+    }
+
+    /**
+     * Run the variant of dijkstra selected by the mode of this router. Afterwards, the previous nodes on the
+     * path from the start node to the meeting node and (for the bidirectional variant) the next nodes on the
+     * path from the meeting node to the destination node are available in the internal fields.
+     *
+     * @param startNodeIdx The index of the start node
+     * @param destNodeIdx The index of the destination node
+     * @return the distance of a shortest route or -1 if there is no route
+     */
+    private int calculateDistance(int startNodeIdx, int destNodeIdx) {
         resetState();
+        switch (mode) {
+            case BIDIRECTIONAL:
+                return calculateDistanceBidirectional(startNodeIdx, destNodeIdx);
+            case A_STAR:
+                return calculateDistanceAStar(startNodeIdx, destNodeIdx);
+            default:
+                return calculateDistanceDijkstra(startNodeIdx, destNodeIdx);
+        }
+    }
 
+    /**
+     * Run dijkstra from a start node until the destination node is reached.
+     *
+     * @param startNodeIdx The index of the start node
+     * @param destNodeIdx The index of the destination node
+     * @return the distance of a shortest route or -1 if there is no route
+     */
+    private int calculateDistanceDijkstra(int startNodeIdx, int destNodeIdx) {
         currDistanceToNode[startNodeIdx] = 0;
         previousNode[startNodeIdx] = startNodeIdx;
+        touch(startNodeIdx);
         vertexHeap.add(startNodeIdx);
 
-        boolean routeFound = false;
         while (!vertexHeap.isEmpty()) {
             int nodeToHandleId = vertexHeap.getNext();
-            nodeTouched[nodeToHandleId] = true;
 
             // Break early if target node reached
             if (nodeToHandleId == destNodeIdx) {
-                routeFound = true;
-                break;
+                meetingNode = destNodeIdx;
+                return currDistanceToNode[destNodeIdx];
             }
 
             for(int neighbourEdgeId = Grid.offset[nodeToHandleId]; neighbourEdgeId < Grid.offset[nodeToHandleId + 1];
                 ++neighbourEdgeId) {
                 int destinationVertexId = Edge.getDest(neighbourEdgeId);
-                if(nodeTouched[destinationVertexId]) {
-                    continue;
-                }
 
                 // Calculate the distance to the destination vertex using the current edge
                 int newDistanceOverThisEdgeToDestVertex = currDistanceToNode[nodeToHandleId] +
                         Edge.getDist(neighbourEdgeId);
 
                 // If the new calculated distance to the destination vertex is lower as the previously known, update
-                // the corresponding data structures
+                // the corresponding data structures. Nodes already taken from the heap never get a lower distance.
                 if (newDistanceOverThisEdgeToDestVertex < currDistanceToNode[destinationVertexId]) {
+                    if(currDistanceToNode[destinationVertexId] == Integer.MAX_VALUE) {
+                        touch(destinationVertexId);
+                    }
                     currDistanceToNode[destinationVertexId] = newDistanceOverThisEdgeToDestVertex;
                     previousNode[destinationVertexId] = nodeToHandleId;
                     vertexHeap.add(destinationVertexId);
                 }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Run a* from a start node until the destination node is reached. The estimated remaining distance of a
+     * node is the great circle distance to the destination node, scaled so it never overestimates the
+     * distance in the grid (see {@link Grid#getMinDistanceRatio()}). Nodes are added to the heap again if
+     * their distance decreases after they were taken from it, so the result is always a shortest route.
+     *
+     * @param startNodeIdx The index of the start node
+     * @param destNodeIdx The index of the destination node
+     * @return the distance of a shortest route or -1 if there is no route
+     */
+    private int calculateDistanceAStar(int startNodeIdx, int destNodeIdx) {
+        double destLat = Node.getLatitude(destNodeIdx);
+        double destLong = Node.getLongitude(destNodeIdx);
+        double ratio = Grid.getMinDistanceRatio();
+
+        currDistanceToNode[startNodeIdx] = 0;
+        previousNode[startNodeIdx] = startNodeIdx;
+        estimatedDistance[startNodeIdx] = getEstimate(startNodeIdx, destLat, destLong, ratio);
+        touch(startNodeIdx);
+        vertexHeap.add(startNodeIdx);
+
+        while (!vertexHeap.isEmpty()) {
+            int nodeToHandleId = vertexHeap.getNext();
+
+            if (nodeToHandleId == destNodeIdx) {
+                meetingNode = destNodeIdx;
+                return currDistanceToNode[destNodeIdx];
+            }
 
+            for(int neighbourEdgeId = Grid.offset[nodeToHandleId]; neighbourEdgeId < Grid.offset[nodeToHandleId + 1];
+                ++neighbourEdgeId) {
+                int destinationVertexId = Edge.getDest(neighbourEdgeId);
+                int newDistanceOverThisEdgeToDestVertex = currDistanceToNode[nodeToHandleId] +
+                        Edge.getDist(neighbourEdgeId);
+
+                if (newDistanceOverThisEdgeToDestVertex < currDistanceToNode[destinationVertexId]) {
+                    if(currDistanceToNode[destinationVertexId] == Integer.MAX_VALUE) {
+                        touch(destinationVertexId);
+                    }
+                    currDistanceToNode[destinationVertexId] = newDistanceOverThisEdgeToDestVertex;
+                    previousNode[destinationVertexId] = nodeToHandleId;
+                    estimatedDistance[destinationVertexId] = newDistanceOverThisEdgeToDestVertex +
+                            getEstimate(destinationVertexId, destLat, destLong, ratio);
+                    vertexHeap.add(destinationVertexId);
+                }
             }
         }
 
-        if(routeFound) {
-            // Here, we are done with dijkstra but need to gather all relevant data from the resulting data structures
-            List<Integer> path = new ArrayList<>();
-            int currNodeUnderInvestigation = destNodeIdx;
-
-            path.add(destNodeIdx);
-            while (currNodeUnderInvestigation != startNodeIdx) {
-                int previousNodeIdx = previousNode[currNodeUnderInvestigation];
-                path.add(previousNodeIdx);
-                currNodeUnderInvestigation = previousNodeIdx;
+        return -1;
+    }
+
+    /**
+     * Estimate the distance from a node to the destination node without overestimating it.
+     * @param nodeId the id of the node
+     * @param destLat the latitude of the destination node
+     * @param destLong the longitude of the destination node
+     * @param ratio the ratio used to scale the great circle distance
+     * @return a lower bound of the distance from the node to the destination node
+     */
+    private static int getEstimate(int nodeId, double destLat, double destLong, double ratio) {
+        return (int) (IntersectionHelper.getDistance(Node.getLatitude(nodeId), Node.getLongitude(nodeId),
+                destLat, destLong) * ratio);
+    }
+
+    /**
+     * Run dijkstra from the start node and from the destination node at the same time. Since the grid is
+     * undirected (see {@link Grid#importFmiFile(java.io.InputStream)}), the backward search uses the same
+     * edges as the forward search. The calculation stops as soon as the sum of the smallest distances on both
+     * heaps is not smaller than the best route found so far.
+     *
+     * @param startNodeIdx The index of the start node
+     * @param destNodeIdx The index of the destination node
+     * @return the distance of a shortest route or -1 if there is no route
+     */
+    private int calculateDistanceBidirectional(int startNodeIdx, int destNodeIdx) {
+        currDistanceToNode[startNodeIdx] = 0;
+        previousNode[startNodeIdx] = startNodeIdx;
+        currDistanceFromNode[destNodeIdx] = 0;
+        nextNode[destNodeIdx] = destNodeIdx;
+        touch(startNodeIdx);
+        touch(destNodeIdx);
+        vertexHeap.add(startNodeIdx);
+        backwardHeap.add(destNodeIdx);
+
+        int bestDistance = Integer.MAX_VALUE;
+        meetingNode = -1;
+        if(startNodeIdx == destNodeIdx) {
+            bestDistance = 0;
+            meetingNode = startNodeIdx;
+        }
+
+        while (!vertexHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            int forwardTop = currDistanceToNode[vertexHeap.peek()];
+            int backwardTop = currDistanceFromNode[backwardHeap.peek()];
+            if(forwardTop + backwardTop >= bestDistance) {
+                break;
             }
 
-            // Reverse order of path and save it to array
-            Collections.reverse(path);
-            long stopTime = System.nanoTime();
+            //expand the search with the smaller distance
+            boolean forward = forwardTop <= backwardTop;
+            int[] ownDist = forward ? currDistanceToNode : currDistanceFromNode;
+            int[] otherDist = forward ? currDistanceFromNode : currDistanceToNode;
+            int[] ownPred = forward ? previousNode : nextNode;
+            DijkstraHeap ownHeap = forward ? vertexHeap : backwardHeap;
 
-            return new RoutingResult(path, currDistanceToNode[destNodeIdx],
-                    (double) (stopTime - startTime) / 1000000);
-        } else {
-            long stopTime = System.nanoTime();
-            return new RoutingResult((double) (stopTime - startTime) / 1000000, false);
+            int nodeToHandleId = ownHeap.getNext();
+            for(int neighbourEdgeId = Grid.offset[nodeToHandleId]; neighbourEdgeId < Grid.offset[nodeToHandleId + 1];
+                ++neighbourEdgeId) {
+                int destinationVertexId = Edge.getDest(neighbourEdgeId);
+                int newDistance = ownDist[nodeToHandleId] + Edge.getDist(neighbourEdgeId);
+
+                if (newDistance < ownDist[destinationVertexId]) {
+                    if(currDistanceToNode[destinationVertexId] == Integer.MAX_VALUE &&
+                            currDistanceFromNode[destinationVertexId] == Integer.MAX_VALUE) {
+                        touch(destinationVertexId);
+                    }
+                    ownDist[destinationVertexId] = newDistance;
+                    ownPred[destinationVertexId] = nodeToHandleId;
+                    ownHeap.add(destinationVertexId);
+
+                    //check if a better route over this node exists
+                    if(otherDist[destinationVertexId] != Integer.MAX_VALUE &&
+                            newDistance + otherDist[destinationVertexId] < bestDistance) {
+                        bestDistance = newDistance + otherDist[destinationVertexId];
+                        meetingNode = destinationVertexId;
+                    }
+                }
+            }
         }
+
+        return meetingNode == -1 ? -1 : bestDistance;
     }
 }
@@ -0,0 +1,41 @@
+package de.fmi.searouter.router;
+
+/**
+ * class storing the result of a distance-only routing request. Used for communicating with the REST API
+ */
+public class DistanceResult {
+
+    /**
+     * The overall distance of a shortest path, -1 if no route was found.
+     */
+    private final int overallDistance;
+
+    /**
+     * The time it took to calculate the distance.
+     */
+    private final double calculationTimeInMs;
+
+    /**
+     * Constructor. Sets all fields.
+     * @param overallDistance the distance, -1 if no route was found
+     * @param calculationTimeInMs the calculation time
+     */
+    public DistanceResult(int overallDistance, double calculationTimeInMs) {
+        this.overallDistance = overallDistance;
+        this.calculationTimeInMs = calculationTimeInMs;
+    }
+
+    //getters
+
+    public boolean isRouteFound() {
+        return overallDistance >= 0;
+    }
+
+    public int getOverallDistance() {
+        return overallDistance;
+    }
+
+    public double getCalculationTimeInMs() {
+        return calculationTimeInMs;
+    }
+}
@@ -2,13 +2,18 @@ package de.fmi.searouter.router;
 
 import de.fmi.searouter.hublabeldata.HubLEdges;
 import de.fmi.searouter.hublabeldata.HubLNodes;
+import de.fmi.searouter.hublabeldata.LabelCursor;
 import de.fmi.searouter.utils.DistanceHeap;
 import de.fmi.searouter.utils.IntStack;
 import de.fmi.searouter.utils.OrderedIntSet;
 
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Router based on the hub label algorithm. In order to use less memory, this router uses a combination of hub labels
@@ -21,6 +26,9 @@ public class HubLRouter implements Router{
     //in most cases, this will be due to an optimization which may eliminate some checks which would appear in every
     //iteration otherwise.
 
+    //used to compare labels if the label nodes are available in an array
+    private static LabelIntersector labelIntersector = LabelIntersector.create();
+
     //nodes on the resulting path (if one is found)
     private final IntStack resultNodes;
     //edges for the left (start to highest lvl node) and right (dest to highest lvl node) sides of the path
@@ -51,6 +59,27 @@ public class HubLRouter implements Router{
     private final OrderedIntSet edgeRight;
     private final OrderedIntSet addInfoRight;
 
+    //cursors used to read the labels of the start and destination node and of other nodes
+    private final LabelCursor cursorLeft;
+    private final LabelCursor cursorRight;
+    private final LabelCursor cursorOther;
+
+    //result of the last label comparison: the node with the highest level on the path and the indices of its label
+    //on the left and right side in the temporary labels (if the node does not have labels) or the first edge of
+    //its label (if the node has labels)
+    private int highestLvlNode;
+    private int bestIdxLeft;
+    private int bestIdxRight;
+    private int bestEdgeLeft;
+    private int bestEdgeRight;
+
+    //indices of the common labels found by the labelIntersector on the left and right side
+    private int[] matchesLeft;
+    private int[] matchesRight;
+
+    //statistics of the last query
+    private final QueryStats queryStats;
+
     /**
      * Reset the state of the router. Internal data structures are cleared so they can be reused to precess a new
      * request.
@@ -89,6 +118,25 @@ public class HubLRouter implements Router{
         distRight = new OrderedIntSet(false, 1000, 1000);
         edgeRight = new OrderedIntSet(false, 1000, 1000);
         addInfoRight = new OrderedIntSet(false, 1000, 1000);
+        cursorLeft = new LabelCursor();
+        cursorRight = new LabelCursor();
+        cursorOther = new LabelCursor();
+        matchesLeft = new int[1000];
+        matchesRight = new int[1000];
+        queryStats = new QueryStats();
+    }
+
+    /**
+     * Set the implementation used to compare labels. By default, the vectorized implementation is used
+     * if it is available.
+     * @param labelIntersector the implementation to use
+     */
+    public static void setLabelIntersector(LabelIntersector labelIntersector) {
+        HubLRouter.labelIntersector = labelIntersector;
+    }
+
+    public static LabelIntersector getLabelIntersector() {
+        return labelIntersector;
     }
 
     /**
@@ -110,60 +158,325 @@ public class HubLRouter implements Router{
         return result;
     }
 
+    /**
+     * Calculate the distance of a shortest path from one start node to a destination node. Only the labels are
+     * compared, the path itself is not determined.
+     * @param startNodeId The id of the start node
+     * @param destNodeId The id of the destination node
+     * @return the distance of a shortest route or -1 if there is no route
+     */
+    @Override
+    public int routeDistance(int startNodeId, int destNodeId) {
+        reset();
+        queryStats.startQuery();
+        boolean startHasLabels = HubLNodes.nodeHasLabels(startNodeId);
+        boolean destHasLabels = HubLNodes.nodeHasLabels(destNodeId);
+
+        int distance;
+        if(startHasLabels && destHasLabels) {
+            distance = findBestLabel2Lbl(startNodeId, destNodeId);
+        } else if (!startHasLabels && !destHasLabels) {
+            distance = findBestLabel0Lbl(startNodeId, destNodeId);
+        } else if (startHasLabels){
+            distance = findBestLabelLeftLbl(startNodeId, destNodeId);
+        } else {
+            distance = findBestLabelRightLbl(startNodeId, destNodeId);
+        }
+        queryStats.finishLabelSearch();
+        return distance;
+    }
+
+    @Override
+    public QueryStats getQueryStats() {
+        return queryStats;
+    }
 
     /**
-     * Find a route between two nodes. This function can be used if both side nodes contain labels.
+     * Get the number of labels of a node.
+     * @param nodeId the id of the node
+     * @return the number of labels, 0 if the node does not have labels
+     */
+    private static int getNumOfLabels(int nodeId) {
+        return HubLNodes.getLabelOffset(nodeId + 1) - HubLNodes.getLabelOffset(nodeId);
+    }
+
+    /**
+     * Calculate the distances between all pairs of given start and destination nodes using only the calling thread.
+     * See {@link #calculateDistanceMatrix(int[], int[], ExecutorService, int)}.
+     * @param startNodeIds the ids of the start nodes, -1 if no node is available for a start point
+     * @param destNodeIds the ids of the destination nodes, -1 if no node is available for a destination point
+     * @return a matrix in row-major order, the distance from startNodeIds[i] to destNodeIds[j] is stored at
+     * index (i * destNodeIds.length) + j. If there is no route between two nodes, the distance is -1.
+     * @throws CancellationException if the thread was interrupted during the calculation
+     */
+    public int[] calculateDistanceMatrix(int[] startNodeIds, int[] destNodeIds) {
+        return calculateDistanceMatrix(startNodeIds, destNodeIds, null, 1);
+    }
+
+    /**
+     * Calculate the distances between all pairs of given start and destination nodes. The labels of every node
+     * are determined only once by the calling thread (for nodes without labels, temporary labels are calculated).
+     * Afterwards, the label sets of all pairs are intersected row by row. The rows are calculated in parallel by
+     * the given executor, so the number of cores used by distance matrices is limited by its number of threads.
+     * Paths are not calculated. The calculation is stopped if the calling thread is interrupted (e.g. because the
+     * lane timeout passed), every row checks for this.
+     * @param startNodeIds the ids of the start nodes, -1 if no node is available for a start point
+     * @param destNodeIds the ids of the destination nodes, -1 if no node is available for a destination point
+     * @param rowExecutor the executor calculating the rows, null to calculate them with the calling thread
+     * @param numOfRowTasks the maximum number of tasks submitted to the executor, should be its number of threads
+     * @return a matrix in row-major order, the distance from startNodeIds[i] to destNodeIds[j] is stored at
+     * index (i * destNodeIds.length) + j. If there is no route between two nodes, the distance is -1.
+     * @throws CancellationException if the thread was interrupted during the calculation
+     */
+    public int[] calculateDistanceMatrix(int[] startNodeIds, int[] destNodeIds, ExecutorService rowExecutor,
+                                         int numOfRowTasks) {
+        int[][] startLabelNodes = new int[startNodeIds.length][];
+        int[][] startLabelDist = new int[startNodeIds.length][];
+        int[][] destLabelNodes = new int[destNodeIds.length][];
+        int[][] destLabelDist = new int[destNodeIds.length][];
+        for (int i = 0; i < startNodeIds.length; i++) {
+            checkInterrupted();
+            if(startNodeIds[i] >= 0) {
+                getLabels(startNodeIds[i], startLabelNodes, startLabelDist, i);
+            }
+        }
+        for (int i = 0; i < destNodeIds.length; i++) {
+            checkInterrupted();
+            if(destNodeIds[i] >= 0) {
+                getLabels(destNodeIds[i], destLabelNodes, destLabelDist, i);
+            }
+        }
+
+        int numOfRows = startNodeIds.length;
+        int numOfDest = destNodeIds.length;
+        int[] distances = new int[numOfRows * numOfDest];
+        //every task takes the next row which was not calculated yet, every row is only written by one thread
+        AtomicInteger nextRow = new AtomicInteger(0);
+        Runnable rowTask = () -> {
+            int i;
+            while ((i = nextRow.getAndIncrement()) < numOfRows) {
+                checkInterrupted();
+                //there can not be more common labels than labels of the start node
+                int[] matchesA = new int[startLabelNodes[i] == null ? 0 : startLabelNodes[i].length];
+                int[] matchesB = new int[matchesA.length];
+                for (int j = 0; j < numOfDest; j++) {
+                    if(startLabelNodes[i] == null || destLabelNodes[j] == null) {
+                        distances[(i * numOfDest) + j] = -1;
+                    } else {
+                        distances[(i * numOfDest) + j] = getLabelDistance(startLabelNodes[i], startLabelDist[i],
+                                destLabelNodes[j], destLabelDist[j], matchesA, matchesB);
+                    }
+                }
+            }
+        };
+
+        int numOfTasks = Math.min(numOfRowTasks, numOfRows);
+        if(rowExecutor == null || numOfTasks <= 1) {
+            rowTask.run();
+            return distances;
+        }
+        List<Future<?>> tasks = new ArrayList<>(numOfTasks);
+        try {
+            for (int i = 0; i < numOfTasks; i++) {
+                tasks.add(rowExecutor.submit(rowTask));
+            }
+            //the results of the tasks are visible after get() returned
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Calculation was interrupted");
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            //stops the remaining rows if the calculation was interrupted or a row failed
+            for (Future<?> task : tasks) {
+                task.cancel(true);
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Stop a long running calculation if the current thread was interrupted.
+     * @throws CancellationException if the current thread was interrupted
+     */
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Calculation was interrupted");
+        }
+    }
+
+    /**
+     * Determine the labels of a node. If the node does not have labels, temporary labels are calculated.
+     * @param nodeId the id of the node
+     * @param labelNodes the array to store the label nodes (in ascending order) in
+     * @param labelDist the array to store the label distances in
+     * @param idx the index in labelNodes and labelDist at which to store the labels
+     */
+    private void getLabels(int nodeId, int[][] labelNodes, int[][] labelDist, int idx) {
+        if(HubLNodes.nodeHasLabels(nodeId)) {
+            int labelCount = HubLNodes.getLabelOffset(nodeId + 1) - HubLNodes.getLabelOffset(nodeId);
+            labelNodes[idx] = new int[labelCount];
+            labelDist[idx] = new int[labelCount];
+            cursorOther.reset(nodeId);
+            for (int i = 0; cursorOther.next(); i++) {
+                labelNodes[idx][i] = cursorOther.getNode();
+                labelDist[idx][i] = cursorOther.getDist();
+            }
+        } else {
+            reset();
+            calcTempLabels(nodeId, true);
+            labelNodes[idx] = labelLeft.toArray();
+            labelDist[idx] = distLeft.toArray();
+        }
+    }
+
+    /**
+     * Find the shortest distance over a common label of two label sets.
+     * @param nodesA the label nodes of the first set in ascending order
+     * @param distA the label distances of the first set
+     * @param nodesB the label nodes of the second set in ascending order
+     * @param distB the label distances of the second set
+     * @param matchesA buffer for the indices of common labels in the first set, at least as large as nodesA
+     * @param matchesB buffer for the indices of common labels in the second set, at least as large as nodesA
+     * @return the shortest distance or -1 if the sets do not have a common label
+     */
+    private static int getLabelDistance(int[] nodesA, int[] distA, int[] nodesB, int[] distB,
+                                        int[] matchesA, int[] matchesB) {
+        int numOfMatches = labelIntersector.intersect(nodesA, 0, nodesA.length, nodesB, 0, nodesB.length,
+                matchesA, matchesB);
+        int currDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < numOfMatches; i++) {
+            int tmpDist = distA[matchesA[i]] + distB[matchesB[i]];
+            if(tmpDist < currDistance) {
+                currDistance = tmpDist;
+            }
+        }
+        return currDistance == Integer.MAX_VALUE ? -1 : currDistance;
+    }
+
+    /**
+     * Find the common labels of two sorted ranges of label nodes using the labelIntersector. The indices of
+     * the common labels are stored in matchesLeft and matchesRight.
+     * @param nodesLeft the array containing the label nodes of the left side
+     * @param startLeft the first index of the labels of the left side
+     * @param endLeft the first index not belonging to the labels of the left side
+     * @param nodesRight the array containing the label nodes of the right side
+     * @param startRight the first index of the labels of the right side
+     * @param endRight the first index not belonging to the labels of the right side
+     * @return the number of common labels
+     */
+    private int intersectLabels(int[] nodesLeft, int startLeft, int endLeft,
+                                int[] nodesRight, int startRight, int endRight) {
+        int maxMatches = Math.min(endLeft - startLeft, endRight - startRight);
+        if(matchesLeft.length < maxMatches) {
+            matchesLeft = new int[maxMatches];
+            matchesRight = new int[maxMatches];
+        }
+        return labelIntersector.intersect(nodesLeft, startLeft, endLeft, nodesRight, startRight, endRight,
+                matchesLeft, matchesRight);
+    }
+
+    /**
+     * Find the best common label of two nodes. This function can be used if both side nodes contain labels.
+     * The first edges of the best label on both sides and the highest level node are stored in the
+     * corresponding fields. The labels are read using cursors, so this also works for compressed labels.
      * @param startId The index of the start node
      * @param destId The index of the destination node
-     * @return a shortest route between start and destination node
+     * @return the distance between start and destination node or -1 if there is no route
      */
-    private RoutingResult route2Lbl(int startId, int destId) {
-        int currOffsetA = HubLNodes.getLabelOffset(startId);
-        int currOffsetB = HubLNodes.getLabelOffset(destId);
-        int endOffsetA = HubLNodes.getLabelOffset(startId + 1);
-        int endOffsetB = HubLNodes.getLabelOffset(destId + 1);
+    private int findBestLabel2Lbl(int startId, int destId) {
         int currDistance = Integer.MAX_VALUE;
-        int idxA = -1;
-        int idxB = -1;
-        int highestLvlNode = -1;
+        highestLvlNode = -1;
+        queryStats.addLabelsScanned(getNumOfLabels(startId) + getNumOfLabels(destId));
+
+        int[] labelNodes = HubLNodes.getLabelNodeArray();
+        if(labelNodes != null) {
+            int numOfMatches = intersectLabels(labelNodes, HubLNodes.getLabelOffset(startId),
+                    HubLNodes.getLabelOffset(startId + 1), labelNodes, HubLNodes.getLabelOffset(destId),
+                    HubLNodes.getLabelOffset(destId + 1));
+            int bestMatch = -1;
+            for (int i = 0; i < numOfMatches; i++) {
+                int tmpDist = HubLNodes.getLabelDist(matchesLeft[i]) + HubLNodes.getLabelDist(matchesRight[i]);
+                if(tmpDist < currDistance) {
+                    currDistance = tmpDist;
+                    bestMatch = i;
+                }
+            }
+            if(bestMatch == -1) {
+                return -1;
+            }
+            highestLvlNode = labelNodes[matchesLeft[bestMatch]];
+            bestEdgeLeft = HubLNodes.getLabelEdge(matchesLeft[bestMatch]);
+            bestEdgeRight = HubLNodes.getLabelEdge(matchesRight[bestMatch]);
+            return currDistance;
+        }
 
-        if(currOffsetA == endOffsetA || currOffsetB == endOffsetB) {
+        cursorLeft.reset(startId);
+        cursorRight.reset(destId);
+        if(!cursorLeft.next() || !cursorRight.next()) {
             //no route
-            return new RoutingResult();
+            return -1;
         }
-        int nodeA = HubLNodes.getLabelNode(currOffsetA);
-        int nodeB = HubLNodes.getLabelNode(currOffsetB);
+        int nodeA = cursorLeft.getNode();
+        int nodeB = cursorRight.getNode();
 
         //find the best common label
-        while (currOffsetA < endOffsetA && currOffsetB < endOffsetB) {
+        while (true) {
             if(nodeA == nodeB) {
-                int tmpDist = HubLNodes.getLabelDist(currOffsetA) + HubLNodes.getLabelDist(currOffsetB);
+                int tmpDist = cursorLeft.getDist() + cursorRight.getDist();
                 if(tmpDist < currDistance) {
                     highestLvlNode = nodeA;
                     currDistance = tmpDist;
-                    idxA = currOffsetA;
-                    idxB = currOffsetB;
+                    bestEdgeLeft = cursorLeft.getEdge();
+                    bestEdgeRight = cursorRight.getEdge();
+                }
+                if(!cursorLeft.next() || !cursorRight.next()) {
+                    break;
                 }
-                currOffsetA++;
-                currOffsetB++;
-                nodeA = HubLNodes.getLabelNode(currOffsetA);
-                nodeB = HubLNodes.getLabelNode(currOffsetB);
+                nodeA = cursorLeft.getNode();
+                nodeB = cursorRight.getNode();
             } else if(nodeA > nodeB) {
-                currOffsetB++;
-                nodeB = HubLNodes.getLabelNode(currOffsetB);
+                if(!cursorRight.next()) {
+                    break;
+                }
+                nodeB = cursorRight.getNode();
             } else {  //A < B
-                currOffsetA++;
-                nodeA = HubLNodes.getLabelNode(currOffsetA);
+                if(!cursorLeft.next()) {
+                    break;
+                }
+                nodeA = cursorLeft.getNode();
             }
         }
 
-        if(highestLvlNode == -1) { //no common label found
+        if(highestLvlNode == -1) {
+            //no common label, so no route
+            return -1;
+        }
+        return currDistance;
+    }
+
+    /**
+     * Find a route between two nodes. This function can be used if both side nodes contain labels.
+     * @param startId The index of the start node
+     * @param destId The index of the destination node
+     * @return a shortest route between start and destination node
+     */
+    private RoutingResult route2Lbl(int startId, int destId) {
+        int currDistance = findBestLabel2Lbl(startId, destId);
+        queryStats.finishLabelSearch();
+        if(currDistance == -1) {
             return new RoutingResult();
         }
 
         //calculate right side of path to max lvl node
         if(destId != highestLvlNode) {
-            int nextEdge = HubLNodes.getLabelEdge(idxB);
+            int nextEdge = bestEdgeRight;
             int nextNode = HubLEdges.getDest(nextEdge);
             edgesRight.push(nextEdge);
             getEdges(nextNode, highestLvlNode, edgesRight);
@@ -171,7 +484,7 @@ public class HubLRouter implements Router{
 
         //calculate left side of path to max lvl node
         if(startId != highestLvlNode) {
-            int nextEdge = HubLNodes.getLabelEdge(idxA);
+            int nextEdge = bestEdgeLeft;
             int nextNode = HubLEdges.getDest(nextEdge);
             edgesLeft.push(nextEdge);
             getEdges(nextNode, highestLvlNode, edgesLeft);
@@ -180,11 +493,7 @@ public class HubLRouter implements Router{
         calculateRoute(startId, destId);
 
         //add nodes to path for result
-        List<Integer> path = new LinkedList<>();
-        while(!resultNodes.isEmpty()) {
-            path.add(resultNodes.popFifo());
-        }
-        return new RoutingResult(path, currDistance, true);
+        return new RoutingResult(resultNodes.popAllFifo(), currDistance, true);
     }
 
     /**
@@ -195,10 +504,9 @@ public class HubLRouter implements Router{
      */
     private void getEdges(int currentNode, int highestLvlNode, IntStack edgeStack) {
         while(currentNode != highestLvlNode) {
-            int startIdx = HubLNodes.getLabelOffset(currentNode);
-            int endIdx = HubLNodes.getLabelOffset(currentNode + 1);
-            int labelIdx = Arrays.binarySearch(HubLNodes.getLabelNode(), startIdx, endIdx, highestLvlNode);
-            int edgeId = HubLNodes.getLabelEdge(labelIdx);
+            cursorOther.reset(currentNode);
+            cursorOther.seek(highestLvlNode);
+            int edgeId = cursorOther.getEdge();
             currentNode = HubLEdges.getDest(edgeId);
             edgeStack.push(edgeId);
         }
@@ -254,6 +562,7 @@ public class HubLRouter implements Router{
      */
     private RoutingResult routeGeneral(int startNodeIdx, int destNodeIdx) {
         reset();
+        queryStats.startQuery();
         boolean startHasLabels = HubLNodes.nodeHasLabels(startNodeIdx);
         boolean destHasLabels = HubLNodes.nodeHasLabels(destNodeIdx);
 
@@ -268,27 +577,54 @@ public class HubLRouter implements Router{
             result = routeRightLbl(startNodeIdx, destNodeIdx);
         }
 
+        if(result.routeFound()) {
+            queryStats.finishUnpacking();
+        }
         return result;
     }
 
     /**
-     * Find a route between two nodes. This function can be used if the right side node does not contain labels,
-     * but the left side node does. This function is mirrored with routeRightLbl, but they are separate to
-     * reduce total calculation time by being able to disregard some additional checks.
+     * Find the best common label of two nodes. This function can be used if the right side node does not
+     * contain labels, but the left side node does.
+     * The indices of the best label on both sides and the highest level node are stored in the
+     * corresponding fields.
      * @param startId The index of the start node
      * @param destId The index of the destination node
-     * @return a shortest route between start and destination node
+     * @return the distance between start and destination node or -1 if there is no route
      */
-    private RoutingResult routeLeftLbl(int startId, int destId) {
+    private int findBestLabelLeftLbl(int startId, int destId) {
         calcTempLabels(destId, false);
-        int leftIdx = HubLNodes.getLabelOffset(startId);
-        int leftMaxIdx = HubLNodes.getLabelOffset(startId + 1);
+        queryStats.addLabelsScanned(getNumOfLabels(startId) + labelRight.size());
+
+        int[] labelNodes = HubLNodes.getLabelNodeArray();
+        if(labelNodes != null) {
+            int numOfMatches = intersectLabels(labelNodes, HubLNodes.getLabelOffset(startId),
+                    HubLNodes.getLabelOffset(startId + 1), labelRight.getElements(), 0, labelRight.size());
+            int currDistance = Integer.MAX_VALUE;
+            int bestMatch = -1;
+            for (int i = 0; i < numOfMatches; i++) {
+                int tmpDist = HubLNodes.getLabelDist(matchesLeft[i]) + distRight.get(matchesRight[i]);
+                if(tmpDist < currDistance) {
+                    currDistance = tmpDist;
+                    bestMatch = i;
+                }
+            }
+            if(bestMatch == -1) {
+                highestLvlNode = -1;
+                return -1;
+            }
+            highestLvlNode = labelNodes[matchesLeft[bestMatch]];
+            bestEdgeLeft = HubLNodes.getLabelEdge(matchesLeft[bestMatch]);
+            bestIdxRight = matchesRight[bestMatch];
+            return currDistance;
+        }
+        cursorLeft.reset(startId);
         int rightIdx = 0;
         int rightSize = labelRight.size();
 
-        if(leftIdx == leftMaxIdx || rightSize == 0) {
+        if(!cursorLeft.next() || rightSize == 0) {
             //no route
-            return new RoutingResult();
+            return -1;
         }
 
         //add one dummy output to prevent early evaluation of get from causing exceptions
@@ -296,54 +632,70 @@ public class HubLRouter implements Router{
 
         //find the best common label (if there is one)
         int currDistance = Integer.MAX_VALUE;
-        int idxLeft = -1;
-        int idxRight = -1;
-        int highestLvlNode = -1;
+        highestLvlNode = -1;
 
-        int leftNode = HubLNodes.getLabelNode(leftIdx);
+        int leftNode = cursorLeft.getNode();
         int rightNode = labelRight.get(0);
-        while(leftIdx < leftMaxIdx && rightIdx < rightSize) {
+        boolean leftAvailable = true;
+        while(leftAvailable && rightIdx < rightSize) {
             if(leftNode == rightNode) {
-                int tmpDist = HubLNodes.getLabelDist(leftIdx) + distRight.get(rightIdx);
+                int tmpDist = cursorLeft.getDist() + distRight.get(rightIdx);
                 if(tmpDist < currDistance) {
                     highestLvlNode = leftNode;
                     currDistance = tmpDist;
-                    idxLeft = leftIdx;
-                    idxRight = rightIdx;
+                    bestEdgeLeft = cursorLeft.getEdge();
+                    bestIdxRight = rightIdx;
                 }
-                leftIdx++;
+                leftAvailable = cursorLeft.next();
                 rightIdx++;
-                leftNode = HubLNodes.getLabelNode(leftIdx);
+                leftNode = cursorLeft.getNode();
                 rightNode = labelRight.get(rightIdx);
             } else if(leftNode > rightNode) {
                 rightIdx++;
                 rightNode = labelRight.get(rightIdx);
             } else {  //A < B
-                leftIdx++;
-                leftNode = HubLNodes.getLabelNode(leftIdx);
+                leftAvailable = cursorLeft.next();
+                leftNode = cursorLeft.getNode();
             }
         }
 
         if(highestLvlNode == -1) {
             //no common label, so no route
+            return -1;
+        }
+        return currDistance;
+    }
+
+    /**
+     * Find a route between two nodes. This function can be used if the right side node does not contain labels,
+     * but the left side node does. This function is mirrored with routeRightLbl, but they are separate to
+     * reduce total calculation time by being able to disregard some additional checks.
+     * @param startId The index of the start node
+     * @param destId The index of the destination node
+     * @return a shortest route between start and destination node
+     */
+    private RoutingResult routeLeftLbl(int startId, int destId) {
+        int currDistance = findBestLabelLeftLbl(startId, destId);
+        queryStats.finishLabelSearch();
+        if(currDistance == -1) {
             return new RoutingResult();
         }
 
         //find edges on left side
         if(startId != highestLvlNode) {
-            int nextEdge = HubLNodes.getLabelEdge(idxLeft);
+            int nextEdge = bestEdgeLeft;
             int nextNode = HubLEdges.getDest(nextEdge);
             edgesLeft.push(nextEdge);
             getEdges(nextNode, highestLvlNode, edgesLeft);
         }
 
         //find edges on right side
-        int info = addInfoRight.get(idxRight);
+        int info = addInfoRight.get(bestIdxRight);
         if(info < -1) {
             //additional info contains a node
             info = (info + 2) * (-1);
             addEdges(edgesRight, info, destId, false);
-            int firstEdge = edgeRight.get(idxRight);
+            int firstEdge = edgeRight.get(bestIdxRight);
             edgesRight.push(firstEdge);
             getEdges(HubLEdges.getDest(firstEdge), highestLvlNode, edgesRight);
         } else if(info != -1) { //if this is false, the highest lvl node is the start node
@@ -354,31 +706,51 @@ public class HubLRouter implements Router{
         calculateRoute(startId, destId);
 
         //add route to path
-        List<Integer> path = new LinkedList<>();
-        while(!resultNodes.isEmpty()) {
-            path.add(resultNodes.popFifo());
-        }
-        return new RoutingResult(path, currDistance, true);
+        return new RoutingResult(resultNodes.popAllFifo(), currDistance, true);
     }
 
     /**
-     * Find a route between two nodes. This function can be used if the left side node does not contain labels,
-     * but the right side node does. This function is mirrored with routeLeftLbl, but they are separate to
-     * reduce total calculation time by being able to disregard some additional checks.
+     * Find the best common label of two nodes. This function can be used if the left side node does not
+     * contain labels, but the right side node does.
+     * The indices of the best label on both sides and the highest level node are stored in the
+     * corresponding fields.
      * @param startId The index of the start node
      * @param destId The index of the destination node
-     * @return a shortest route between start and destination node
+     * @return the distance between start and destination node or -1 if there is no route
      */
-    private RoutingResult routeRightLbl(int startId, int destId) {
+    private int findBestLabelRightLbl(int startId, int destId) {
         calcTempLabels(startId, true);
-        int rightIdx = HubLNodes.getLabelOffset(destId);
-        int rightMaxIdx = HubLNodes.getLabelOffset(destId + 1);
+        queryStats.addLabelsScanned(labelLeft.size() + getNumOfLabels(destId));
+
+        int[] labelNodes = HubLNodes.getLabelNodeArray();
+        if(labelNodes != null) {
+            int numOfMatches = intersectLabels(labelLeft.getElements(), 0, labelLeft.size(), labelNodes,
+                    HubLNodes.getLabelOffset(destId), HubLNodes.getLabelOffset(destId + 1));
+            int currDistance = Integer.MAX_VALUE;
+            int bestMatch = -1;
+            for (int i = 0; i < numOfMatches; i++) {
+                int tmpDist = distLeft.get(matchesLeft[i]) + HubLNodes.getLabelDist(matchesRight[i]);
+                if(tmpDist < currDistance) {
+                    currDistance = tmpDist;
+                    bestMatch = i;
+                }
+            }
+            if(bestMatch == -1) {
+                highestLvlNode = -1;
+                return -1;
+            }
+            highestLvlNode = labelNodes[matchesRight[bestMatch]];
+            bestIdxLeft = matchesLeft[bestMatch];
+            bestEdgeRight = HubLNodes.getLabelEdge(matchesRight[bestMatch]);
+            return currDistance;
+        }
+        cursorRight.reset(destId);
         int leftIdx = 0;
         int leftSize = labelLeft.size();
 
-        if(rightIdx == rightMaxIdx || leftSize == 0) {
+        if(!cursorRight.next() || leftSize == 0) {
             //no route
-            return new RoutingResult();
+            return -1;
         }
 
         //add one dummy output to prevent early evaluation of get from causing exceptions
@@ -386,54 +758,70 @@ public class HubLRouter implements Router{
 
         //find the best common label (if there is one)
         int currDistance = Integer.MAX_VALUE;
-        int idxRight = -1;
-        int idxLeft = -1;
-        int highestLvlNode = -1;
+        highestLvlNode = -1;
 
-        int rightNode = HubLNodes.getLabelNode(rightIdx);
+        int rightNode = cursorRight.getNode();
         int leftNode = labelLeft.get(0);
-        while(rightIdx < rightMaxIdx && leftIdx < leftSize) {
+        boolean rightAvailable = true;
+        while(rightAvailable && leftIdx < leftSize) {
             if(leftNode == rightNode) {
-                int tmpDist = HubLNodes.getLabelDist(rightIdx) + distLeft.get(leftIdx);
+                int tmpDist = cursorRight.getDist() + distLeft.get(leftIdx);
                 if(tmpDist < currDistance) {
                     highestLvlNode = leftNode;
                     currDistance = tmpDist;
-                    idxLeft = leftIdx;
-                    idxRight = rightIdx;
+                    bestIdxLeft = leftIdx;
+                    bestEdgeRight = cursorRight.getEdge();
                 }
                 leftIdx++;
-                rightIdx++;
-                rightNode = HubLNodes.getLabelNode(rightIdx);
+                rightAvailable = cursorRight.next();
+                rightNode = cursorRight.getNode();
                 leftNode = labelLeft.get(leftIdx);
             } else if(rightNode > leftNode) {
                 leftIdx++;
                 leftNode = labelLeft.get(leftIdx);
             } else {
-                rightIdx++;
-                rightNode = HubLNodes.getLabelNode(rightIdx);
+                rightAvailable = cursorRight.next();
+                rightNode = cursorRight.getNode();
             }
         }
 
         if(highestLvlNode == -1) {
             //no common label, so no route
+            return -1;
+        }
+        return currDistance;
+    }
+
+    /**
+     * Find a route between two nodes. This function can be used if the left side node does not contain labels,
+     * but the right side node does. This function is mirrored with routeLeftLbl, but they are separate to
+     * reduce total calculation time by being able to disregard some additional checks.
+     * @param startId The index of the start node
+     * @param destId The index of the destination node
+     * @return a shortest route between start and destination node
+     */
+    private RoutingResult routeRightLbl(int startId, int destId) {
+        int currDistance = findBestLabelRightLbl(startId, destId);
+        queryStats.finishLabelSearch();
+        if(currDistance == -1) {
             return new RoutingResult();
         }
 
         //find edges on right side
         if(destId != highestLvlNode) {
-            int nextEdge = HubLNodes.getLabelEdge(idxRight);
+            int nextEdge = bestEdgeRight;
             int nextNode = HubLEdges.getDest(nextEdge);
             edgesRight.push(nextEdge);
             getEdges(nextNode, highestLvlNode, edgesRight);
         }
 
         //find edges on left side
-        int info = addInfoLeft.get(idxLeft);
+        int info = addInfoLeft.get(bestIdxLeft);
         if(info < -1) {
             //additional info contains a node
             info = (info + 2) * (-1);
             addEdges(edgesLeft, info, startId, true);
-            int firstEdge = edgeLeft.get(idxLeft);
+            int firstEdge = edgeLeft.get(bestIdxLeft);
             edgesLeft.push(firstEdge);
             getEdges(HubLEdges.getDest(firstEdge), highestLvlNode, edgesLeft);
         } else if(info != -1){ //if this is false, the highest lvl node is the start node
@@ -444,20 +832,18 @@ public class HubLRouter implements Router{
         calculateRoute(startId, destId);
 
         //add route to path
-        List<Integer> path = new LinkedList<>();
-        while(!resultNodes.isEmpty()) {
-            path.add(resultNodes.popFifo());
-        }
-        return new RoutingResult(path, currDistance, true);
+        return new RoutingResult(resultNodes.popAllFifo(), currDistance, true);
     }
 
     /**
-     * Find a route between two nodes. This function can be used if neither side nodes contain labels.
+     * Find the best common label of two nodes. This function can be used if neither side nodes contain labels.
+     * The indices of the best label on both sides and the highest level node are stored in the
+     * corresponding fields.
      * @param startId The index of the start node
      * @param destId The index of the destination node
-     * @return a shortest route between start and destination node
+     * @return the distance between start and destination node or -1 if there is no route
      */
-    private RoutingResult route0Lbl(int startId, int destId) {
+    private int findBestLabel0Lbl(int startId, int destId) {
         calcTempLabels(startId, true);
         calcTempLabels(destId, false);
 
@@ -465,56 +851,52 @@ public class HubLRouter implements Router{
         int leftSize = labelLeft.size();
         int rightSize = labelRight.size();
         if(leftSize == 0 || rightSize == 0) {
-            return new RoutingResult();
+            return -1;
         }
-        //add one dummy output to prevent early evaluation of get from causing exceptions
-        labelLeft.insertTail(Integer.MAX_VALUE);
-        labelRight.insertTail(Integer.MAX_VALUE);
 
         //find the best common label (if there is one)
-        int leftIdx = 0;
-        int rightIdx = 0;
+        queryStats.addLabelsScanned(leftSize + rightSize);
+        int numOfMatches = intersectLabels(labelLeft.getElements(), 0, leftSize,
+                labelRight.getElements(), 0, rightSize);
         int currDistance = Integer.MAX_VALUE;
-        int idxLeft = -1;
-        int idxRight = -1;
-        int highestLvlNode = -1;
-
-        int leftNode = labelLeft.get(0);
-        int rightNode = labelRight.get(0);
-        while(leftIdx < leftSize && rightIdx < rightSize) {
-            if(leftNode == rightNode) {
-                int tmpDist = distLeft.get(leftIdx) + distRight.get(rightIdx);
-                if(tmpDist < currDistance) {
-                    highestLvlNode = leftNode;
-                    currDistance = tmpDist;
-                    idxLeft = leftIdx;
-                    idxRight = rightIdx;
-                }
-                leftIdx++;
-                rightIdx++;
-                leftNode = labelLeft.get(leftIdx);
-                rightNode = labelRight.get(rightIdx);
-            } else if(leftNode > rightNode) {
-                rightIdx++;
-                rightNode = labelRight.get(rightIdx);
-            } else {  //A < B
-                leftIdx++;
-                leftNode = labelLeft.get(leftIdx);
+        highestLvlNode = -1;
+        for (int i = 0; i < numOfMatches; i++) {
+            int tmpDist = distLeft.get(matchesLeft[i]) + distRight.get(matchesRight[i]);
+            if(tmpDist < currDistance) {
+                highestLvlNode = labelLeft.get(matchesLeft[i]);
+                currDistance = tmpDist;
+                bestIdxLeft = matchesLeft[i];
+                bestIdxRight = matchesRight[i];
             }
         }
 
         if(highestLvlNode == -1) {
             //no common label, so no route
+            return -1;
+        }
+        return currDistance;
+    }
+
+    /**
+     * Find a route between two nodes. This function can be used if neither side nodes contain labels.
+     * @param startId The index of the start node
+     * @param destId The index of the destination node
+     * @return a shortest route between start and destination node
+     */
+    private RoutingResult route0Lbl(int startId, int destId) {
+        int currDistance = findBestLabel0Lbl(startId, destId);
+        queryStats.finishLabelSearch();
+        if(currDistance == -1) {
             return new RoutingResult();
         }
 
         //find edges on left side
-        int info = addInfoLeft.get(idxLeft);
+        int info = addInfoLeft.get(bestIdxLeft);
         if(info < -1) {
             //additional info contains a node
             info = (info + 2) * (-1);
             addEdges(edgesLeft, info, startId, true);
-            int firstEdge = edgeLeft.get(idxLeft);
+            int firstEdge = edgeLeft.get(bestIdxLeft);
             edgesLeft.push(firstEdge);
             getEdges(HubLEdges.getDest(firstEdge), highestLvlNode, edgesLeft);
         } else if(info != -1){ //if this is false, the highest lvl node is the start node
@@ -523,12 +905,12 @@ public class HubLRouter implements Router{
         }
 
         //find edges on right side
-        info = addInfoRight.get(idxRight);
+        info = addInfoRight.get(bestIdxRight);
         if(info < -1) {
             //additional info contains a node
             info = (info + 2) * (-1);
             addEdges(edgesRight, info, destId, false);
-            int firstEdge = edgeRight.get(idxRight);
+            int firstEdge = edgeRight.get(bestIdxRight);
             edgesRight.push(firstEdge);
             getEdges(HubLEdges.getDest(firstEdge), highestLvlNode, edgesRight);
         } else if(info != -1) { //if this is false, the highest lvl node is the start node
@@ -539,11 +921,7 @@ public class HubLRouter implements Router{
         calculateRoute(startId, destId);
 
         //add route to path
-        List<Integer> path = new LinkedList<>();
-        while(!resultNodes.isEmpty()) {
-            path.add(resultNodes.popFifo());
-        }
-        return new RoutingResult(path, currDistance, true);
+        return new RoutingResult(resultNodes.popAllFifo(), currDistance, true);
     }
 
     /**
@@ -620,6 +998,7 @@ public class HubLRouter implements Router{
 
         while(!heap.isEmpty()) {
             int currNode = heap.getNext();
+            queryStats.addNodeExpanded();
             int currNodeIdx = label.getIdx(currNode);
             int currNodeDist = dist.get(currNodeIdx);
             int edgesStart = HubLNodes.getEdgeOffset(currNode);
@@ -664,6 +1043,7 @@ public class HubLRouter implements Router{
         }
 
         //insert all labels
+        queryStats.addLabelsScanned(maxNumOfLabels);
         label.makeSpace(maxNumOfLabels);
         dist.makeSpace(maxNumOfLabels);
         edge.makeSpace(maxNumOfLabels);
@@ -672,26 +1052,26 @@ public class HubLRouter implements Router{
         while(!labelHeap.isEmpty()) {
             int labelNode = labelHeap.getNext();
             int nodeDist = dist.get(label.getIdx(labelNode));
-            int endIdx = HubLNodes.getLabelOffset(labelNode + 1);
 
-            for (int currIdx = HubLNodes.getLabelOffset(labelNode); currIdx < endIdx; currIdx++) {
-                int currLabelNode = HubLNodes.getLabelNode(currIdx);
+            cursorOther.reset(labelNode);
+            while(cursorOther.next()) {
+                int currLabelNode = cursorOther.getNode();
                 int currLabelIdx = label.getIdx(currLabelNode);
 
                 if(currLabelIdx < 0) {
                     currLabelIdx = (currLabelIdx + 1) * (-1);
-                    int distance = nodeDist + HubLNodes.getLabelDist(currIdx);
+                    int distance = nodeDist + cursorOther.getDist();
                     label.insertAtIdx(currLabelNode, currLabelIdx);
                     dist.insertAtIdx(distance, currLabelIdx);
-                    edge.insertAtIdx(HubLNodes.getLabelEdge(currIdx), currLabelIdx);
+                    edge.insertAtIdx(cursorOther.getEdge(), currLabelIdx);
                     //Make info negative to show this is a node
                     addInfo.insertAtIdx((labelNode * (-1)) - 2, currLabelIdx);
                 } else {
-                    int newDistance = nodeDist + HubLNodes.getLabelDist(currIdx);
+                    int newDistance = nodeDist + cursorOther.getDist();
                     int oldDistance = dist.get(currLabelIdx);
                     if(oldDistance > newDistance) {
                         dist.updateValue(newDistance, currLabelIdx);
-                        edge.updateValue(HubLNodes.getLabelEdge(currIdx), currLabelIdx);
+                        edge.updateValue(cursorOther.getEdge(), currLabelIdx);
                         addInfo.updateValue((labelNode * (-1)) - 2, currLabelIdx);
                     }
                 }
@@ -0,0 +1,55 @@
+package de.fmi.searouter.router;
+
+/**
+ * Finds the common label nodes of two label sets. This is the most frequent operation of the {@link HubLRouter}.
+ * Implementations have to be thread safe, all state is passed with the parameters.
+ */
+public interface LabelIntersector {
+    //name of the vectorized implementation, only available if compiled with JDK 17 or later
+    String VECTOR_INTERSECTOR_CLASS = "de.fmi.searouter.router.VectorLabelIntersector";
+    //name of the module containing the vector API
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Find all common elements of two ranges of arrays which are sorted in ascending order and do not contain
+     * duplicates. The index pairs of the common elements are stored in ascending order.
+     * @param nodesA the array containing the first range
+     * @param startA the first index of the first range
+     * @param endA the first index not belonging to the first range
+     * @param nodesB the array containing the second range
+     * @param startB the first index of the second range
+     * @param endB the first index not belonging to the second range
+     * @param matchesA array to store the indices of common elements in nodesA in, has to be able to hold the
+     *                 number of elements of the smaller range
+     * @param matchesB array to store the indices of common elements in nodesB in, same size as matchesA
+     * @return the number of common elements
+     */
+    int intersect(int[] nodesA, int startA, int endA, int[] nodesB, int startB, int endB,
+                  int[] matchesA, int[] matchesB);
+
+    /**
+     * Check if this implementation uses vector instructions.
+     * @return true if vector instructions are used, else false
+     */
+    default boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Create the fastest implementation available. The vectorized implementation is used if it was compiled
+     * and the vector module was added to the JVM (using --add-modules jdk.incubator.vector), else the
+     * scalar implementation is used.
+     * @return the implementation
+     */
+    static LabelIntersector create() {
+        if(ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (LabelIntersector) Class.forName(VECTOR_INTERSECTOR_CLASS)
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                System.out.println("Vectorized label intersection not available: " + e);
+            }
+        }
+        return new ScalarLabelIntersector();
+    }
+}
@@ -0,0 +1,41 @@
+package de.fmi.searouter.router;
+
+import de.fmi.searouter.importdata.LatLong;
+
+import java.util.List;
+
+/**
+ * User request asking for the distances between all pairs of a set of start points and a set of end points.
+ * Used as JSON mapping object for the REST api.
+ */
+public class MatrixRequest {
+
+    private List<LatLong> startPoints;
+    private List<LatLong> endPoints;
+    //maximum time of the calculation in milliseconds if async routing is enabled, 0 to use the default timeout
+    private long timeoutInMs;
+
+    public List<LatLong> getStartPoints() {
+        return startPoints;
+    }
+
+    public void setStartPoints(List<LatLong> startPoints) {
+        this.startPoints = startPoints;
+    }
+
+    public List<LatLong> getEndPoints() {
+        return endPoints;
+    }
+
+    public void setEndPoints(List<LatLong> endPoints) {
+        this.endPoints = endPoints;
+    }
+
+    public long getTimeoutInMs() {
+        return timeoutInMs;
+    }
+
+    public void setTimeoutInMs(long timeoutInMs) {
+        this.timeoutInMs = timeoutInMs;
+    }
+}
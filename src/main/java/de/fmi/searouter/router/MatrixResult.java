@@ -0,0 +1,54 @@
+package de.fmi.searouter.router;
+
+/**
+ * class storing the result of a distance matrix request. Used for communicating with the REST API
+ */
+public class MatrixResult {
+
+    /**
+     * The distances between all pairs of start and end points in row-major order. The distance from start
+     * point i to end point j is stored at index (i * numOfEndPoints) + j. If there is no route between two
+     * points, the distance is -1.
+     */
+    private final int[] distances;
+
+    private final int numOfStartPoints;
+    private final int numOfEndPoints;
+
+    /**
+     * The time it took to calculate the matrix.
+     */
+    private final double calculationTimeInMs;
+
+    /**
+     * Constructor. Sets all fields.
+     * @param distances the distances in row-major order
+     * @param numOfStartPoints the number of start points (rows)
+     * @param numOfEndPoints the number of end points (columns)
+     * @param calculationTimeInMs the calculation time
+     */
+    public MatrixResult(int[] distances, int numOfStartPoints, int numOfEndPoints, double calculationTimeInMs) {
+        this.distances = distances;
+        this.numOfStartPoints = numOfStartPoints;
+        this.numOfEndPoints = numOfEndPoints;
+        this.calculationTimeInMs = calculationTimeInMs;
+    }
+
+    //getters
+
+    public int[] getDistances() {
+        return distances;
+    }
+
+    public int getNumOfStartPoints() {
+        return numOfStartPoints;
+    }
+
+    public int getNumOfEndPoints() {
+        return numOfEndPoints;
+    }
+
+    public double getCalculationTimeInMs() {
+        return calculationTimeInMs;
+    }
+}
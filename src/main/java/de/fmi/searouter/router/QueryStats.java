@@ -0,0 +1,79 @@
+package de.fmi.searouter.router;
+
+/**
+ * Statistics of the last query of a router: the time spent in the phases of the calculation and the amount of data
+ * looked at. The router only stores a few numbers per query, so collecting them does not slow down the calculation.
+ * An instance belongs to a single router and is overwritten by the next query.
+ */
+public class QueryStats {
+    //time of the start of the query and of the end of the label search, used to calculate the phase durations
+    private long queryStart;
+    private long labelSearchEnd;
+
+    private long labelSearchNanos;
+    private long unpackingNanos;
+    private int labelsScanned;
+    private int nodesExpanded;
+
+    /**
+     * Start a new query. All statistics of the previous query are removed.
+     */
+    void startQuery() {
+        labelSearchNanos = 0;
+        unpackingNanos = 0;
+        labelsScanned = 0;
+        nodesExpanded = 0;
+        queryStart = System.nanoTime();
+    }
+
+    /**
+     * Mark the end of the label search, which includes the calculation of temporary labels.
+     */
+    void finishLabelSearch() {
+        labelSearchEnd = System.nanoTime();
+        labelSearchNanos = labelSearchEnd - queryStart;
+    }
+
+    /**
+     * Mark the end of the calculation of the path, which starts after the label search.
+     */
+    void finishUnpacking() {
+        unpackingNanos = System.nanoTime() - labelSearchEnd;
+    }
+
+    void addLabelsScanned(int numOfLabels) {
+        labelsScanned += numOfLabels;
+    }
+
+    void addNodeExpanded() {
+        nodesExpanded++;
+    }
+
+    /**
+     * @return the time needed to find the best common label in nanoseconds
+     */
+    public long getLabelSearchNanos() {
+        return labelSearchNanos;
+    }
+
+    /**
+     * @return the time needed to unpack the edges of the path in nanoseconds, 0 if no path was calculated
+     */
+    public long getUnpackingNanos() {
+        return unpackingNanos;
+    }
+
+    /**
+     * @return the number of labels compared or merged into temporary labels
+     */
+    public int getLabelsScanned() {
+        return labelsScanned;
+    }
+
+    /**
+     * @return the number of nodes expanded while calculating temporary labels
+     */
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+}
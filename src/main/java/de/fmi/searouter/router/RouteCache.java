@@ -0,0 +1,111 @@
+package de.fmi.searouter.router;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Cache for the results of routing requests, keyed by the start and destination node. Most requests are
+ * between a small number of ports, so a lot of them can be answered without calculating the route again.
+ * Entries are evicted using the W-TinyLFU policy of Caffeine, which keeps frequently requested routes even if
+ * many other routes are requested only once. Only the distance and the node ids of the path are stored.
+ * The cache can be used by multiple threads at the same time.
+ */
+public class RouteCache {
+
+    /**
+     * A cached route.
+     */
+    private static class CachedRoute {
+        //distance of the route, -1 if there is no route
+        private final int distance;
+        //node ids on the route, null if there is no route
+        private final int[] path;
+
+        private CachedRoute(int distance, int[] path) {
+            this.distance = distance;
+            this.path = path;
+        }
+    }
+
+    //null if caching is disabled
+    private final Cache<Long, CachedRoute> cache;
+
+    /**
+     * Constructor. Creates an empty cache.
+     * @param maxSize the maximum number of cached routes, 0 to disable caching
+     */
+    public RouteCache(long maxSize) {
+        if(maxSize > 0) {
+            cache = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .recordStats()
+                    .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Get a cached route between two nodes.
+     * @param startNodeId the id of the start node
+     * @param destNodeId the id of the destination node
+     * @return a new result containing the cached route or null if the route is not cached
+     */
+    public RoutingResult get(int startNodeId, int destNodeId) {
+        if(cache == null) {
+            return null;
+        }
+        long startTime = System.nanoTime();
+        CachedRoute cachedRoute = cache.getIfPresent(getKey(startNodeId, destNodeId));
+        if(cachedRoute == null) {
+            return null;
+        }
+
+        RoutingResult result;
+        if(cachedRoute.path == null) {
+            result = new RoutingResult();
+        } else {
+            //paths are never modified, so the array can be shared
+            result = new RoutingResult(cachedRoute.path, cachedRoute.distance, true);
+        }
+        long stopTime = System.nanoTime();
+        result.setCalculationTimeInMs((double) (stopTime - startTime) / 1000000);
+        return result;
+    }
+
+    /**
+     * Add the result of a routing request to the cache.
+     * @param startNodeId the id of the start node
+     * @param destNodeId the id of the destination node
+     * @param result the result of the request
+     */
+    public void put(int startNodeId, int destNodeId, RoutingResult result) {
+        if(cache == null) {
+            return;
+        }
+        CachedRoute cachedRoute;
+        if(result.routeFound()) {
+            cachedRoute = new CachedRoute(result.getOverallDistance(), result.getPath());
+        } else {
+            cachedRoute = new CachedRoute(-1, null);
+        }
+        cache.put(getKey(startNodeId, destNodeId), cachedRoute);
+    }
+
+    /**
+     * Get statistics on the usage of the cache since it was created.
+     * @return the statistics
+     */
+    public RouteCacheStats getStats() {
+        if(cache == null) {
+            return new RouteCacheStats(0, 0, 0, 0.0);
+        }
+        CacheStats stats = cache.stats();
+        return new RouteCacheStats(cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate());
+    }
+
+    private static long getKey(int startNodeId, int destNodeId) {
+        return ((long) startNodeId << 32) | (destNodeId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,59 @@
+package de.fmi.searouter.router;
+
+/**
+ * class storing statistics on the usage of the {@link RouteCache}. Used for communicating with the REST API
+ */
+public class RouteCacheStats {
+
+    /**
+     * The (approximate) number of cached routes.
+     */
+    private final long size;
+
+    /**
+     * The number of requests answered using the cache.
+     */
+    private final long hitCount;
+
+    /**
+     * The number of requests for which the route had to be calculated.
+     */
+    private final long missCount;
+
+    /**
+     * The ratio of requests answered using the cache, 1.0 if there were no requests (0.0 if caching is disabled).
+     */
+    private final double hitRate;
+
+    /**
+     * Constructor. Sets all fields.
+     * @param size the number of cached routes
+     * @param hitCount the number of requests answered using the cache
+     * @param missCount the number of requests for which the route had to be calculated
+     * @param hitRate the ratio of requests answered using the cache
+     */
+    public RouteCacheStats(long size, long hitCount, long missCount, double hitRate) {
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRate = hitRate;
+    }
+
+    //getters
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+}
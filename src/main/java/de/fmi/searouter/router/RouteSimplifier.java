@@ -0,0 +1,163 @@
+package de.fmi.searouter.router;
+
+import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
+import de.fmi.searouter.utils.IntersectionHelper;
+
+/**
+ * Simplifies the paths of routes using the Douglas-Peucker algorithm. Nodes are removed from a path as long as
+ * no removed node is further away from the simplified path than a given tolerance. In addition, every segment
+ * of the simplified path has to be in water: points along the segment are checked with the
+ * {@link PointInWaterChecker}, if one of them is on land, the segment is split. Segments are straight lines in
+ * the lat/lon plane, which is how the frontend draws them. A simplifier can be used by multiple threads.
+ */
+public class RouteSimplifier {
+    //maximum distance between two points of a segment which are checked, in degrees. This is below the distance
+    //between two nodes of the grid, but very narrow land may still be missed.
+    private static final double SAMPLE_STEP = 0.05;
+
+    private final PointInWaterChecker pointInWaterChecker;
+
+    /**
+     * Constructor.
+     * @param pointInWaterChecker the checker used to validate simplified segments
+     */
+    public RouteSimplifier(PointInWaterChecker pointInWaterChecker) {
+        this.pointInWaterChecker = pointInWaterChecker;
+    }
+
+    /**
+     * Simplify a path. The first and the last node are always kept.
+     * @param path the ids of the nodes on the path
+     * @param tolerance the maximum distance of a removed node to the simplified path in meters
+     * @return the ids of the remaining nodes, in the same order as in the original path
+     */
+    public int[] simplify(int[] path, double tolerance) {
+        int numOfNodes = path.length;
+        if(numOfNodes <= 2 || tolerance <= 0.0) {
+            return path;
+        }
+        double[] lats = new double[numOfNodes];
+        double[] lons = new double[numOfNodes];
+        for (int i = 0; i < numOfNodes; i++) {
+            lats[i] = RoutingResult.getLatitude(path[i]);
+            lons[i] = RoutingResult.getLongitude(path[i]);
+        }
+
+        boolean[] keep = new boolean[numOfNodes];
+        keep[0] = true;
+        keep[numOfNodes - 1] = true;
+        int numOfKept = 2;
+        //ranges (first and last index) which still have to be simplified
+        int[] stack = new int[2 * numOfNodes];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        stack[stackSize++] = numOfNodes - 1;
+        while(stackSize > 0) {
+            int last = stack[--stackSize];
+            int first = stack[--stackSize];
+            if(last - first < 2) {
+                continue;
+            }
+
+            //find the node with the largest distance to the segment
+            double maxDist = -1.0;
+            int maxIdx = -1;
+            for (int i = first + 1; i < last; i++) {
+                double dist = getDistanceToSegment(lats[i], lons[i], lats[first], lons[first],
+                        lats[last], lons[last]);
+                if(dist > maxDist) {
+                    maxDist = dist;
+                    maxIdx = i;
+                }
+            }
+
+            if(maxDist <= tolerance && segmentInWater(lats[first], lons[first], lats[last], lons[last])) {
+                //all nodes in between can be removed
+                continue;
+            }
+            keep[maxIdx] = true;
+            numOfKept++;
+            stack[stackSize++] = first;
+            stack[stackSize++] = maxIdx;
+            stack[stackSize++] = maxIdx;
+            stack[stackSize++] = last;
+        }
+
+        int[] simplifiedPath = new int[numOfKept];
+        int idx = 0;
+        for (int i = 0; i < numOfNodes; i++) {
+            if(keep[i]) {
+                simplifiedPath[idx++] = path[i];
+            }
+        }
+        return simplifiedPath;
+    }
+
+    /**
+     * Check if a straight segment (in the lat/lon plane) is in water. Points along the segment are checked at
+     * intervals of at most SAMPLE_STEP degrees. Segments crossing the antimeridian are handled.
+     * @return true if all checked points are in water, else false
+     */
+    private boolean segmentInWater(double startLat, double startLon, double destLat, double destLon) {
+        double latDiff = destLat - startLat;
+        double lonDiff = getLonDiff(startLon, destLon);
+        int steps = (int) Math.ceil(Math.max(Math.abs(latDiff), Math.abs(lonDiff)) / SAMPLE_STEP);
+        //start and destination are nodes of the grid, so they are in water
+        for (int i = 1; i < steps; i++) {
+            double lat = startLat + (latDiff * i / steps);
+            double lon = normalizeLon(startLon + (lonDiff * i / steps));
+            if(!pointInWaterChecker.pointInWater((float) lat, (float) lon)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculate the distance of a point to a segment. The coordinates are projected to a plane around the point
+     * first, which is accurate enough for the short distances relevant here.
+     * @return the distance in meters
+     */
+    private static double getDistanceToSegment(double lat, double lon, double startLat, double startLon,
+                                               double destLat, double destLon) {
+        double metersPerDegree = Math.toRadians(1.0) * IntersectionHelper.EARTH_RADIUS_METERS;
+        double lonScale = Math.cos(Math.toRadians(lat));
+        double startX = getLonDiff(lon, startLon) * lonScale * metersPerDegree;
+        double startY = (startLat - lat) * metersPerDegree;
+        double destX = getLonDiff(lon, destLon) * lonScale * metersPerDegree;
+        double destY = (destLat - lat) * metersPerDegree;
+
+        //closest point of the segment to the origin (the point)
+        double segX = destX - startX;
+        double segY = destY - startY;
+        double segLengthSquared = (segX * segX) + (segY * segY);
+        double t = segLengthSquared == 0.0 ? 0.0 : -((startX * segX) + (startY * segY)) / segLengthSquared;
+        t = Math.max(0.0, Math.min(1.0, t));
+        double closestX = startX + (t * segX);
+        double closestY = startY + (t * segY);
+        return Math.sqrt((closestX * closestX) + (closestY * closestY));
+    }
+
+    /**
+     * Get the difference between two longitudes, taking the shorter way (possibly across the antimeridian).
+     * @return the difference in degrees, between -180 and 180
+     */
+    private static double getLonDiff(double fromLon, double toLon) {
+        double diff = toLon - fromLon;
+        if(diff > 180.0) {
+            diff -= 360.0;
+        } else if(diff < -180.0) {
+            diff += 360.0;
+        }
+        return diff;
+    }
+
+    private static double normalizeLon(double lon) {
+        if(lon > 180.0) {
+            return lon - 360.0;
+        } else if(lon < -180.0) {
+            return lon + 360.0;
+        }
+        return lon;
+    }
+}
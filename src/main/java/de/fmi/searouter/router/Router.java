@@ -19,4 +19,23 @@ public interface Router {
      * @return a route between start and destination node
      */
     RoutingResult route(int startNodeIdx, int destNodeIdx);
+
+    /**
+     * Calculates the distance of a shortest path from one start node to a destination node. In contrast to
+     * {@link #route(int, int)}, the path itself is not determined.
+     *
+     * @param startNodeIdx The index of the start node (corresponding to {@link Node} indices)
+     * @param destNodeIdx The index of the destination node (corresponding to {@link Node} indices)
+     * @return the distance of a shortest route or -1 if there is no route
+     */
+    int routeDistance(int startNodeIdx, int destNodeIdx);
+
+    /**
+     * Get the statistics of the last query of this router.
+     *
+     * @return the statistics or null if the router does not collect statistics
+     */
+    default QueryStats getQueryStats() {
+        return null;
+    }
 }
@@ -0,0 +1,71 @@
+package de.fmi.searouter.router;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of {@link Router} instances. Routers contain data structures which are modified during a
+ * calculation, so a single instance must never be used by more than one thread at the same time. Instead,
+ * every request borrows a router from this pool and returns it once the calculation is finished. Routers are
+ * only created when needed, but never more than the size of the pool. If all routers are in use, a request
+ * waits until one is returned.
+ */
+public class RouterPool {
+    //routers which are currently not in use
+    private final BlockingQueue<Router> idleRouters;
+    //number of routers created so far
+    private final AtomicInteger numOfRouters;
+    private final int maxNumOfRouters;
+    //true if hub label routers should be created, false for dijkstra routers
+    private final boolean useHLRouter;
+
+    /**
+     * Create a new pool. No router is created at this point.
+     * @param useHLRouter true if the pool should contain {@link HubLRouter}s, false for {@link DijkstraRouter}s
+     * @param maxNumOfRouters the maximum number of routers which can be used at the same time
+     */
+    public RouterPool(boolean useHLRouter, int maxNumOfRouters) {
+        this.useHLRouter = useHLRouter;
+        this.maxNumOfRouters = maxNumOfRouters;
+        this.idleRouters = new ArrayBlockingQueue<>(maxNumOfRouters);
+        this.numOfRouters = new AtomicInteger(0);
+    }
+
+    /**
+     * Get a router which is not used by any other thread. If no router is available and the maximum number of
+     * routers is already reached, this method blocks until another thread returns a router. Every router
+     * obtained by this method has to be returned using {@link #giveBack(Router)}.
+     * @return a router for exclusive use by the calling thread
+     */
+    public Router borrow() {
+        Router router = idleRouters.poll();
+        if(router != null) {
+            return router;
+        }
+
+        //reserve a slot for a new router, if the pool is not full yet
+        int currNum = numOfRouters.get();
+        while(currNum < maxNumOfRouters) {
+            if(numOfRouters.compareAndSet(currNum, currNum + 1)) {
+                return useHLRouter ? new HubLRouter() : new DijkstraRouter();
+            }
+            currNum = numOfRouters.get();
+        }
+
+        try {
+            return idleRouters.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free router", e);
+        }
+    }
+
+    /**
+     * Return a router obtained by {@link #borrow()} so other threads can use it.
+     * @param router the router to return
+     */
+    public void giveBack(Router router) {
+        idleRouters.offer(router);
+    }
+}
@@ -0,0 +1,107 @@
+package de.fmi.searouter.router;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records metrics of the phases of routing requests using Micrometer. All meters are created once, so recording
+ * a value only updates a few counters. The default instance uses the global registry, to which Spring Boot adds the
+ * Prometheus registry (exposed at /actuator/prometheus). Without a registry (e.g. in a test run), values are
+ * discarded.
+ */
+public class RoutingMetrics {
+
+    /**
+     * The formats routes can be serialized to.
+     */
+    public enum SerializationFormat {
+        JSON,
+        POLYLINE,
+        BINARY
+    }
+
+    //created eagerly, so getting it on the serialization path does not need a lock
+    private static final RoutingMetrics DEFAULT_INSTANCE = new RoutingMetrics(Metrics.globalRegistry);
+
+    private final Timer snappingTimer;
+    private final Timer labelSearchTimer;
+    private final Timer unpackingTimer;
+    private final Timer[] serializationTimers;
+    private final DistributionSummary labelsScanned;
+    private final DistributionSummary nodesExpanded;
+
+    /**
+     * Constructor. Creates all meters.
+     * @param registry the registry to add the meters to
+     */
+    public RoutingMetrics(MeterRegistry registry) {
+        snappingTimer = Timer.builder("searouter.snapping")
+                .description("Time to find the grid node closest to a point")
+                .publishPercentileHistogram().register(registry);
+        labelSearchTimer = Timer.builder("searouter.label.intersection")
+                .description("Time to find the best common label, including temporary labels")
+                .publishPercentileHistogram().register(registry);
+        unpackingTimer = Timer.builder("searouter.edge.unpacking")
+                .description("Time to unpack the edges of a path")
+                .publishPercentileHistogram().register(registry);
+        SerializationFormat[] formats = SerializationFormat.values();
+        serializationTimers = new Timer[formats.length];
+        for (int i = 0; i < formats.length; i++) {
+            serializationTimers[i] = Timer.builder("searouter.serialization")
+                    .description("Time to serialize a route")
+                    .tag("format", formats[i].name().toLowerCase())
+                    .publishPercentileHistogram().register(registry);
+        }
+        labelsScanned = DistributionSummary.builder("searouter.labels.scanned")
+                .description("Number of labels scanned per query")
+                .publishPercentileHistogram().register(registry);
+        nodesExpanded = DistributionSummary.builder("searouter.nodes.expanded")
+                .description("Number of nodes expanded in the contraction hierarchy per query")
+                .publishPercentileHistogram().register(registry);
+    }
+
+    /**
+     * Get the instance using the global registry of Micrometer.
+     * @return the default instance
+     */
+    public static RoutingMetrics getDefault() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Record the time needed to snap a point to the grid.
+     * @param nanos the time in nanoseconds
+     */
+    public void recordSnapping(long nanos) {
+        snappingTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the statistics of a query.
+     * @param stats the statistics of the router, may be null if the router does not collect statistics
+     */
+    public void recordQuery(QueryStats stats) {
+        if (stats == null) {
+            return;
+        }
+        labelSearchTimer.record(stats.getLabelSearchNanos(), TimeUnit.NANOSECONDS);
+        if (stats.getUnpackingNanos() > 0) {
+            unpackingTimer.record(stats.getUnpackingNanos(), TimeUnit.NANOSECONDS);
+        }
+        labelsScanned.record(stats.getLabelsScanned());
+        nodesExpanded.record(stats.getNodesExpanded());
+    }
+
+    /**
+     * Record the time needed to serialize a route.
+     * @param format the format the route was serialized to
+     * @param nanos the time in nanoseconds
+     */
+    public void recordSerialization(SerializationFormat format, long nanos) {
+        serializationTimers[format.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
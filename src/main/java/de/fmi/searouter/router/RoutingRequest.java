@@ -9,6 +9,10 @@ public class RoutingRequest {
 
     private LatLong startPoint;
     private LatLong endPoint;
+    //maximum distance (in meters) of removed nodes to the simplified path, 0 if the path should not be simplified
+    private double simplificationTolerance;
+    //maximum time of the calculation in milliseconds if async routing is enabled, 0 to use the default timeout
+    private long timeoutInMs;
 
     public LatLong getStartPoint() {
         return startPoint;
@@ -25,4 +29,20 @@ public class RoutingRequest {
     public void setEndPoint(LatLong endPoint) {
         this.endPoint = endPoint;
     }
+
+    public double getSimplificationTolerance() {
+        return simplificationTolerance;
+    }
+
+    public void setSimplificationTolerance(double simplificationTolerance) {
+        this.simplificationTolerance = simplificationTolerance;
+    }
+
+    public long getTimeoutInMs() {
+        return timeoutInMs;
+    }
+
+    public void setTimeoutInMs(long timeoutInMs) {
+        this.timeoutInMs = timeoutInMs;
+    }
 }
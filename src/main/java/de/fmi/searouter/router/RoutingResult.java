@@ -1,27 +1,25 @@
 package de.fmi.searouter.router;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import de.fmi.searouter.dijkstragrid.Node;
 import de.fmi.searouter.hublabeldata.HubLNodes;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * class storing the result of a routing request. Used for communicating with the REST API
+ * class storing the result of a routing request. Used for communicating with the REST API. Only the ids of the
+ * nodes on the path are stored, their coordinates are looked up when the result is serialized
+ * (see {@link RoutingResultSerializer}).
  */
+@JsonSerialize(using = RoutingResultSerializer.class)
 public class RoutingResult {
 
     /**
      * All graph nodes ids that make up the resulted path between a start and destination node.
      */
-    private List<Integer> path;
-
-    /**
-     * Stores coordinates of points. The inner list represents lat-lon pairs representing the coordinates
-     * of one point. The outer list stores all these points in the order of the path found.
-     * E.g.: [[0.2, 48.1], [24.0, -47.3]]
-     */
-    private List<List<Double>> pathCoordinates;
+    private int[] path;
 
     /**
      * The overall distance of the calculated path.
@@ -58,12 +56,12 @@ public class RoutingResult {
     /**
      * Constructor. Set fields for the path, the distance and the calculation time. Use only if
      * a path was found.
-     * @param path the path
+     * @param path the path, the array is not copied
      * @param overallDistance the distance of the path
      * @param calculationTimeInMs the calculation time
      */
-    public RoutingResult(List<Integer> path, int overallDistance, double calculationTimeInMs) {
-        this.setPath(path);
+    public RoutingResult(int[] path, int overallDistance, double calculationTimeInMs) {
+        this.path = path;
         this.overallDistance = overallDistance;
         this.calculationTimeInMs = calculationTimeInMs;
         this.routeFound = true;
@@ -90,40 +88,58 @@ public class RoutingResult {
 
     /**
      * Constructor. Includes setting fields for the path, overall distance and the indicator whether a route was found.
-     * @param path the path
+     * @param path the path, the array is not copied
      * @param overallDistance the distance of the path
      * @param routeFound true if a route was found, else false
      */
-    public RoutingResult(List<Integer> path, int overallDistance, boolean routeFound) {
-        this.setPath(path);
+    public RoutingResult(int[] path, int overallDistance, boolean routeFound) {
+        this.path = path;
         this.overallDistance = overallDistance;
         this.routeFound = routeFound;
     }
 
     /**
-     * Calculates the path coordinates based on a list of IDs of nodes.
-     * @param path contains the IDs of all nodes on the path
+     * Get the latitude of a node on a path, using the data of the router in use.
+     * @param nodeIdx the id of the node
+     * @return the latitude of the node
      */
-    public void setPath(List<Integer> path) {
-        this.path = path;
-        this.pathCoordinates = new ArrayList<>();
-        for (Integer nodeIdx : path) {
-            List<Double> coord = new ArrayList<>();
-            if(!useHubLabelRouter) {
-                coord.add(Node.getLatitude(nodeIdx));
-                coord.add(Node.getLongitude(nodeIdx));
-            } else {
-                coord.add(HubLNodes.getLat(nodeIdx));
-                coord.add(HubLNodes.getLong(nodeIdx));
-            }
-            this.pathCoordinates.add(coord);
+    public static double getLatitude(int nodeIdx) {
+        return useHubLabelRouter ? HubLNodes.getLat(nodeIdx) : Node.getLatitude(nodeIdx);
+    }
+
+    /**
+     * Get the longitude of a node on a path, using the data of the router in use.
+     * @param nodeIdx the id of the node
+     * @return the longitude of the node
+     */
+    public static double getLongitude(int nodeIdx) {
+        return useHubLabelRouter ? HubLNodes.getLong(nodeIdx) : Node.getLongitude(nodeIdx);
+    }
+
+    /**
+     * Get the coordinates of the nodes on the path. The inner list contains the latitude and longitude of one
+     * point, the outer list all these points in the order of the path, e.g. [[0.2, 48.1], [24.0, -47.3]].
+     * The lists are created on every call, the REST API writes the coordinates directly instead.
+     * @return the coordinates or null if there is no path
+     */
+    public List<List<Double>> getPathCoordinates() {
+        if(path == null) {
+            return null;
+        }
+        List<List<Double>> pathCoordinates = new ArrayList<>(path.length);
+        for (int nodeIdx : path) {
+            List<Double> coord = new ArrayList<>(2);
+            coord.add(getLatitude(nodeIdx));
+            coord.add(getLongitude(nodeIdx));
+            pathCoordinates.add(coord);
         }
+        return pathCoordinates;
     }
 
     @Override
     public String toString() {
         return "RoutingResult{" +
-                "path=" + path +
+                "path=" + Arrays.toString(path) +
                 ", overallDistance=" + overallDistance +
                 ", calculationTimeInMs=" + calculationTimeInMs +
                 '}';
@@ -135,7 +151,12 @@ public class RoutingResult {
         return routeFound;
     }
 
-    public List<Integer> getPath() {
+    /**
+     * Get the ids of the nodes on the path. The array must not be modified, as it may be shared with other
+     * results (e.g. by the {@link RouteCache}).
+     * @return the path or null if there is no path
+     */
+    public int[] getPath() {
         return path;
     }
 
@@ -153,12 +174,4 @@ public class RoutingResult {
     public void setCalculationTimeInMs(double calculationTimeInMs) {
         this.calculationTimeInMs = calculationTimeInMs;
     }
-
-    public List<List<Double>> getPathCoordinates() {
-        return pathCoordinates;
-    }
-
-    public void setPathCoordinates(List<List<Double>> pathCoordinates) {
-        this.pathCoordinates = pathCoordinates;
-    }
 }
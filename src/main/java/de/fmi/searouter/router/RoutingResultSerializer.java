@@ -0,0 +1,50 @@
+package de.fmi.searouter.router;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link RoutingResult} as JSON. The coordinates of the nodes on the path are written directly from
+ * the node data, so no objects are created per node. The output is the same as the one of the default
+ * serialization of the getters: path, pathCoordinates, overallDistance, calculationTimeInMs and routeFound.
+ */
+public class RoutingResultSerializer extends StdSerializer<RoutingResult> {
+
+    /**
+     * Constructor. Used by Jackson.
+     */
+    public RoutingResultSerializer() {
+        super(RoutingResult.class);
+    }
+
+    @Override
+    public void serialize(RoutingResult result, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        long startTime = System.nanoTime();
+        gen.writeStartObject();
+        int[] path = result.getPath();
+        if(path == null) {
+            gen.writeNullField("path");
+            gen.writeNullField("pathCoordinates");
+        } else {
+            gen.writeFieldName("path");
+            gen.writeArray(path, 0, path.length);
+            gen.writeArrayFieldStart("pathCoordinates");
+            for (int nodeIdx : path) {
+                gen.writeStartArray();
+                gen.writeNumber(RoutingResult.getLatitude(nodeIdx));
+                gen.writeNumber(RoutingResult.getLongitude(nodeIdx));
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+        }
+        gen.writeNumberField("overallDistance", result.getOverallDistance());
+        gen.writeNumberField("calculationTimeInMs", result.getCalculationTimeInMs());
+        gen.writeBooleanField("routeFound", result.isRouteFound());
+        gen.writeEndObject();
+        RoutingMetrics.getDefault().recordSerialization(RoutingMetrics.SerializationFormat.JSON,
+                System.nanoTime() - startTime);
+    }
+}
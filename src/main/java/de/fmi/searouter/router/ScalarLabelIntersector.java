@@ -0,0 +1,41 @@
+package de.fmi.searouter.router;
+
+/**
+ * {@link LabelIntersector} comparing the label nodes one by one. Works on every JVM.
+ */
+public class ScalarLabelIntersector implements LabelIntersector {
+
+    @Override
+    public int intersect(int[] nodesA, int startA, int endA, int[] nodesB, int startB, int endB,
+                         int[] matchesA, int[] matchesB) {
+        return intersect(nodesA, startA, endA, nodesB, startB, endB, matchesA, matchesB, 0);
+    }
+
+    /**
+     * Find all common elements of two ranges, see {@link LabelIntersector#intersect}. Can be used to compare the
+     * remaining elements after a vectorized comparison.
+     * @param numOfMatches the number of matches already stored in matchesA and matchesB
+     * @return the number of matches stored in matchesA and matchesB afterwards
+     */
+    static int intersect(int[] nodesA, int startA, int endA, int[] nodesB, int startB, int endB,
+                         int[] matchesA, int[] matchesB, int numOfMatches) {
+        int idxA = startA;
+        int idxB = startB;
+        while(idxA < endA && idxB < endB) {
+            int nodeA = nodesA[idxA];
+            int nodeB = nodesB[idxB];
+            if(nodeA == nodeB) {
+                matchesA[numOfMatches] = idxA;
+                matchesB[numOfMatches] = idxB;
+                numOfMatches++;
+                idxA++;
+                idxB++;
+            } else if(nodeA > nodeB) {
+                idxB++;
+            } else {
+                idxA++;
+            }
+        }
+        return numOfMatches;
+    }
+}
@@ -45,6 +45,16 @@ public class IntStack {
         return retVal;
     }
 
+    /**
+     * Get all elements which were not popped yet in FIFO order. Afterwards, the stack is empty.
+     * @return an array containing the elements
+     */
+    public int[] popAllFifo() {
+        int[] retVal = Arrays.copyOfRange(elements, fifoIdx, nextIdx);
+        fifoIdx = nextIdx;
+        return retVal;
+    }
+
     /**
      * Pop an element from the stack. Also update the stack so the next time this function is called, the correct
      * element will be affected.
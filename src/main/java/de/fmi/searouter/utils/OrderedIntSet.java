@@ -166,6 +166,15 @@ public class OrderedIntSet implements Serializable {
         }
     }
 
+    /**
+     * Get the array the elements are stored in. Only the first size() elements are valid. The array is not
+     * copied, so it must not be modified and may be replaced by later insert operations.
+     * @return the array containing the elements
+     */
+    public int[] getElements() {
+        return elements;
+    }
+
     /**
      * Get an array of all elements in this set.
      * @return an array of all elements in the set
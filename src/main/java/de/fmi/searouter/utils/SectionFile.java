@@ -0,0 +1,240 @@
+package de.fmi.searouter.utils;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes flat binary files consisting of typed arrays (sections). A file starts with a header containing
+ * a magic number, the format version, a CRC32 checksum of all sections, a fixed number of additional int values and
+ * the offset and size (in bytes) of every section. The sections follow as little endian values, each of them aligned
+ * to 8 bytes. When reading, the sections are mapped directly from the file, so the data stays off the java heap.
+ */
+public final class SectionFile {
+
+    //size of the buffer used when writing sections to a file
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    //the additional int values of the header
+    private final int[] headerValues;
+    //the mapped sections
+    private final ByteBuffer[] sections;
+
+    private SectionFile(int[] headerValues, ByteBuffer[] sections) {
+        this.headerValues = headerValues;
+        this.sections = sections;
+    }
+
+    /**
+     * Map all sections of a file.
+     * @param filename the path of the file
+     * @param magicNumber the magic number identifying the file type
+     * @param formatVersion the only format version that is accepted
+     * @param numOfHeaderValues the number of additional int values in the header
+     * @param numOfSections the number of sections in the file
+     * @param verifyChecksum whether the checksum is verified, this requires reading the whole file once
+     * @return the mapped file, or null if the file does not start with the magic number (e.g. because it was
+     *         created using java serialization)
+     * @throws IOException if the file can not be read or is not valid
+     */
+    public static SectionFile map(String filename, int magicNumber, int formatVersion, int numOfHeaderValues,
+                                  int numOfSections, boolean verifyChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer magicNumberBuffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(magicNumberBuffer, 0);
+            magicNumberBuffer.flip();
+            if (magicNumberBuffer.remaining() != Integer.BYTES || magicNumberBuffer.getInt() != magicNumber) {
+                return null;
+            }
+
+            int headerSize = getHeaderSize(numOfHeaderValues, numOfSections);
+            if (channel.size() < headerSize) {
+                throw new IOException("File " + filename + " is too small");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerSize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.getInt(); //magic number, already checked
+            int version = header.getInt();
+            if (version != formatVersion) {
+                throw new IOException("Unsupported version of file " + filename + ": " + version);
+            }
+            int expectedChecksum = header.getInt();
+            int[] headerValues = new int[numOfHeaderValues];
+            for (int i = 0; i < numOfHeaderValues; i++) {
+                headerValues[i] = header.getInt();
+            }
+
+            ByteBuffer[] sections = new ByteBuffer[numOfSections];
+            CRC32 checksum = new CRC32();
+            for (int section = 0; section < numOfSections; section++) {
+                long offset = header.getLong();
+                long size = header.getLong();
+                if (offset < headerSize || size < 0 || size > Integer.MAX_VALUE || offset + size > channel.size()) {
+                    throw new IOException("Section " + section + " of file " + filename + " is out of bounds");
+                }
+                sections[section] = channel.map(FileChannel.MapMode.READ_ONLY, offset, size)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                if (verifyChecksum) {
+                    checksum.update(sections[section].duplicate());
+                }
+            }
+            if (verifyChecksum && (int) checksum.getValue() != expectedChecksum) {
+                throw new IOException("Checksum of file " + filename + " does not match, the file is corrupted");
+            }
+            return new SectionFile(headerValues, sections);
+        }
+    }
+
+    /**
+     * Write sections to a file. Every section is written from index 0 to its limit.
+     * @param filename the path of the file
+     * @param magicNumber the magic number identifying the file type
+     * @param formatVersion the format version
+     * @param headerValues additional int values stored in the header
+     * @param sections the sections, each an {@link IntBuffer}, {@link FloatBuffer}, {@link DoubleBuffer},
+     *                 {@link LongBuffer} or {@link ByteBuffer}. If a section is null, it is written empty
+     * @throws IOException if writing fails
+     */
+    public static void write(String filename, int magicNumber, int formatVersion, int[] headerValues,
+                             Buffer[] sections) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int headerSize = getHeaderSize(headerValues.length, sections.length);
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(magicNumber);
+            header.putInt(formatVersion);
+            //the checksum is written once all sections are written
+            header.putInt(0);
+            for (int value : headerValues) {
+                header.putInt(value);
+            }
+
+            ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 checksum = new CRC32();
+            long nextOffset = headerSize;
+            for (Buffer data : sections) {
+                int length = data != null ? data.limit() : 0;
+                if (length > 0) {
+                    //align every non-empty section to 8 bytes, empty sections may end the file
+                    nextOffset = (nextOffset + 7) & ~7L;
+                }
+                long position = nextOffset;
+                int i = 0;
+                while (i < length) {
+                    writeBuffer.clear();
+                    i = fillWriteBuffer(writeBuffer, data, i, length);
+                    writeBuffer.flip();
+                    checksum.update(writeBuffer.duplicate());
+                    position += writeFully(channel, writeBuffer, position);
+                }
+                header.putLong(nextOffset);
+                header.putLong(position - nextOffset);
+                nextOffset = position;
+            }
+
+            header.putInt(2 * Integer.BYTES, (int) checksum.getValue());
+            header.flip();
+            writeFully(channel, header, 0);
+        }
+    }
+
+    /**
+     * Copy values of a section to the write buffer until either the buffer is full or the end of the section is
+     * reached.
+     * @param writeBuffer the buffer to fill
+     * @param data the section
+     * @param from the index of the first value to copy
+     * @param length the number of values in the section
+     * @return the index of the first value that was not copied
+     */
+    private static int fillWriteBuffer(ByteBuffer writeBuffer, Buffer data, int from, int length) {
+        int i = from;
+        if (data instanceof IntBuffer) {
+            IntBuffer intData = (IntBuffer) data;
+            for (; i < length && writeBuffer.remaining() >= Integer.BYTES; i++) {
+                writeBuffer.putInt(intData.get(i));
+            }
+        } else if (data instanceof FloatBuffer) {
+            FloatBuffer floatData = (FloatBuffer) data;
+            for (; i < length && writeBuffer.remaining() >= Float.BYTES; i++) {
+                writeBuffer.putFloat(floatData.get(i));
+            }
+        } else if (data instanceof DoubleBuffer) {
+            DoubleBuffer doubleData = (DoubleBuffer) data;
+            for (; i < length && writeBuffer.remaining() >= Double.BYTES; i++) {
+                writeBuffer.putDouble(doubleData.get(i));
+            }
+        } else if (data instanceof LongBuffer) {
+            LongBuffer longData = (LongBuffer) data;
+            for (; i < length && writeBuffer.remaining() >= Long.BYTES; i++) {
+                writeBuffer.putLong(longData.get(i));
+            }
+        } else if (data instanceof ByteBuffer) {
+            ByteBuffer byteData = (ByteBuffer) data;
+            for (; i < length && writeBuffer.hasRemaining(); i++) {
+                writeBuffer.put(byteData.get(i));
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported section type: " + data.getClass().getName());
+        }
+        return i;
+    }
+
+    /**
+     * Write all remaining bytes of a buffer to a given position in a file.
+     * @param channel the channel of the file
+     * @param buffer the buffer to write
+     * @param position the position in the file
+     * @return the number of bytes written
+     * @throws IOException if writing fails
+     */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static int getHeaderSize(int numOfHeaderValues, int numOfSections) {
+        //magic number, version, checksum and the additional values, then offset and size per section
+        return ((3 + numOfHeaderValues) * Integer.BYTES) + (numOfSections * (2 * Long.BYTES));
+    }
+
+    /**
+     * @param idx the index of the value
+     * @return an additional int value of the header
+     */
+    public int getHeaderValue(int idx) {
+        return headerValues[idx];
+    }
+
+    public ByteBuffer getByteSection(int section) {
+        return sections[section];
+    }
+
+    public IntBuffer getIntSection(int section) {
+        return sections[section].asIntBuffer();
+    }
+
+    public FloatBuffer getFloatSection(int section) {
+        return sections[section].asFloatBuffer();
+    }
+
+    public DoubleBuffer getDoubleSection(int section) {
+        return sections[section].asDoubleBuffer();
+    }
+
+    public LongBuffer getLongSection(int section) {
+        return sections[section].asLongBuffer();
+    }
+}
@@ -0,0 +1,70 @@
+package de.fmi.searouter.router;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link LabelIntersector} using the vector API (incubating since JDK 16). Label nodes are compared in blocks of
+ * as many nodes as fit into a vector: every node of the block of the second range is compared to the whole block
+ * of the first range with one instruction. Afterwards, the block with the smaller last node is replaced by the
+ * following one. The remaining nodes at the end of the ranges are compared one by one.
+ * This class is compiled separately (see the vector profile in the pom.xml) and only loaded by
+ * {@link LabelIntersector#create()} if the vector module is available.
+ */
+public class VectorLabelIntersector implements LabelIntersector {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    //with fewer lanes, comparing the nodes one by one is faster
+    private static final int MIN_LANES = 4;
+
+    /**
+     * Constructor. Checks if the vectors of this platform are large enough.
+     * @throws UnsupportedOperationException if the vectors are too small
+     */
+    public VectorLabelIntersector() {
+        if(SPECIES.length() < MIN_LANES) {
+            throw new UnsupportedOperationException("Only " + SPECIES.length() + " int lanes available");
+        }
+    }
+
+    @Override
+    public int intersect(int[] nodesA, int startA, int endA, int[] nodesB, int startB, int endB,
+                         int[] matchesA, int[] matchesB) {
+        int lanes = SPECIES.length();
+        int numOfMatches = 0;
+        int idxA = startA;
+        int idxB = startB;
+        while(idxA + lanes <= endA && idxB + lanes <= endB) {
+            IntVector blockA = IntVector.fromArray(SPECIES, nodesA, idxA);
+            int lastA = nodesA[idxA + lanes - 1];
+            int lastB = nodesB[idxB + lanes - 1];
+            int blockEndB = idxB + lanes;
+            for (int i = idxB; i < blockEndB; i++) {
+                int nodeB = nodesB[i];
+                if(nodeB > lastA) {
+                    //all following nodes of the block are larger than every node of blockA
+                    break;
+                }
+                VectorMask<Integer> equal = blockA.eq(nodeB);
+                if(equal.anyTrue()) {
+                    matchesA[numOfMatches] = idxA + equal.firstTrue();
+                    matchesB[numOfMatches] = i;
+                    numOfMatches++;
+                }
+            }
+            if(lastA <= lastB) {
+                idxA += lanes;
+            }
+            if(lastB <= lastA) {
+                idxB = blockEndB;
+            }
+        }
+        return ScalarLabelIntersector.intersect(nodesA, idxA, endA, nodesB, idxB, endB,
+                matchesA, matchesB, numOfMatches);
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+}
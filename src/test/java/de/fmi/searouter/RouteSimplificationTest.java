@@ -0,0 +1,65 @@
+package de.fmi.searouter;
+
+import de.fmi.searouter.coastlinegrid.CoastlineWays;
+import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
+import de.fmi.searouter.rest.RoutingController;
+import de.fmi.searouter.router.RouteSimplifier;
+import de.fmi.searouter.router.RoutingResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests if the routing controller simplifies routes using coastline data read from files, as done at startup.
+ */
+class RouteSimplificationTest {
+
+    @TempDir
+    File tmpDir;
+
+    @Test
+    void testSimplifierFromFiles() throws Exception {
+        SyntheticData.initGrid(15, 30);
+        RoutingResult.setHLRouterUse(false);
+        SyntheticData.initPointInWaterChecker(SyntheticData.DEFAULT_COASTLINE_STEP);
+        String coastlineWaysFilename = new File(tmpDir, "coastline_ways").getPath();
+        String pointInWaterCheckerFilename = new File(tmpDir, "point_in_water_checker").getPath();
+        CoastlineWays.storeData(coastlineWaysFilename);
+        PointInWaterChecker.getInstance().storeData(pointInWaterCheckerFilename);
+        //everything the simplifier needs has to be read from the files
+        CoastlineWays.initEdges(new ArrayList<>());
+
+        assertNull(SearouterApplication.createRouteSimplifier(new File(tmpDir, "missing").getPath(),
+                pointInWaterCheckerFilename));
+        RouteSimplifier routeSimplifier = SearouterApplication.createRouteSimplifier(coastlineWaysFilename,
+                pointInWaterCheckerFilename);
+        assertNotNull(routeSimplifier);
+
+        RoutingController.setHLRouterUse(false);
+        RoutingController.setRouteSimplifier(routeSimplifier);
+        try {
+            MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new RoutingController()).build();
+            mockMvc.perform(post("/route").contentType(MediaType.APPLICATION_JSON)
+                            //the direct connection is within the tolerance, but crosses an island
+                            .content("{\"startPoint\":{\"latitude\":0.0,\"longitude\":-48.0},"
+                                    + "\"endPoint\":{\"latitude\":40.0,\"longitude\":0.0},"
+                                    + "\"simplificationTolerance\":10000000.0}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.routeFound").value(true))
+                    .andExpect(jsonPath("$.pathCoordinates.length()").value(3))
+                    .andExpect(jsonPath("$.pathCoordinates[1][0]").value(40.0))
+                    .andExpect(jsonPath("$.pathCoordinates[1][1]").value(-48.0));
+        } finally {
+            RoutingController.setRouteSimplifier(null);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package de.fmi.searouter;
+
+import de.fmi.searouter.coastlinegrid.CoastlineWays;
+import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
+import de.fmi.searouter.dijkstragrid.CoordinateIndex;
+import de.fmi.searouter.dijkstragrid.Grid;
+import de.fmi.searouter.hublablecreation.DynamicGrid;
+import de.fmi.searouter.hublablecreation.LabelCreator;
+import de.fmi.searouter.importdata.CoastlineWay;
+import de.fmi.searouter.importdata.Point;
+import de.fmi.searouter.utils.IntersectionHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates small synthetic data sets which can be used instead of real OSM data in tests and benchmarks. The
+ * grid consists of nodes between 70° south and 70° north, connected to their (up to) four neighbours. A few
+ * rectangular islands are left out of the grid, the coastlines consist of these islands and a ring around the
+ * south pole (so the initial point of the {@link PointInWaterChecker} is on land).
+ */
+public class SyntheticData {
+    //bounds of the islands: lower lat, upper lat, left lon, right lon
+    private static final double[][] ISLANDS = {
+            {10.0, 30.0, -40.0, -10.0},
+            {-40.0, -20.0, 60.0, 100.0},
+            {30.0, 50.0, 120.0, 150.0},
+            {-10.0, 10.0, 170.0, 179.0}
+    };
+    private static final double MIN_LAT = -70.0;
+    private static final double MAX_LAT = 70.0;
+    private static final double ANTARCTICA_LAT = -80.0;
+    //default distance between two points of a coastline in degrees
+    public static final double DEFAULT_COASTLINE_STEP = 2.5;
+
+    /**
+     * Check if a given point is on one of the islands (including their coastlines).
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     * @return true if the point is on an island, else false
+     */
+    public static boolean isOnIsland(double lat, double lon) {
+        for (double[] island : ISLANDS) {
+            if (lat >= island[0] && lat <= island[1] && lon >= island[2] && lon <= island[3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Create a grid graph in the fmi file format.
+     * @param latSteps the number of nodes along a longitude
+     * @param lonSteps the number of nodes along a latitude
+     * @return the content of the fmi file
+     */
+    public static String createFmiData(int latSteps, int lonSteps) {
+        //assign ids to all nodes which are not on an island, -1 for the others
+        int[][] nodeIds = new int[latSteps][lonSteps];
+        double[] lats = new double[latSteps];
+        double[] lons = new double[lonSteps];
+        for (int i = 0; i < latSteps; i++) {
+            lats[i] = MIN_LAT + ((MAX_LAT - MIN_LAT) * i / (latSteps - 1));
+        }
+        for (int j = 0; j < lonSteps; j++) {
+            lons[j] = -180.0 + (360.0 * j / lonSteps);
+        }
+
+        StringBuilder nodes = new StringBuilder();
+        int nodeCount = 0;
+        for (int i = 0; i < latSteps; i++) {
+            for (int j = 0; j < lonSteps; j++) {
+                if (isOnIsland(lats[i], lons[j])) {
+                    nodeIds[i][j] = -1;
+                } else {
+                    nodeIds[i][j] = nodeCount;
+                    nodes.append(nodeCount).append(" ").append(lats[i]).append(" ").append(lons[j]).append("\n");
+                    nodeCount++;
+                }
+            }
+        }
+
+        StringBuilder edges = new StringBuilder();
+        int edgeCount = 0;
+        for (int i = 0; i < latSteps; i++) {
+            for (int j = 0; j < lonSteps; j++) {
+                if (nodeIds[i][j] < 0) {
+                    continue;
+                }
+                //neighbours in the east (wrapping around) and in the north, edges are added in both directions
+                int eastIdx = (j + 1) % lonSteps;
+                if (nodeIds[i][eastIdx] >= 0 && eastIdx != j) {
+                    edgeCount += appendEdges(edges, nodeIds[i][j], nodeIds[i][eastIdx],
+                            lats[i], lons[j], lats[i], lons[eastIdx]);
+                }
+                if (i + 1 < latSteps && nodeIds[i + 1][j] >= 0) {
+                    edgeCount += appendEdges(edges, nodeIds[i][j], nodeIds[i + 1][j],
+                            lats[i], lons[j], lats[i + 1], lons[j]);
+                }
+            }
+        }
+
+        return "#\n\n" + nodeCount + "\n" + edgeCount + "\n" + nodes + edges;
+    }
+
+    private static int appendEdges(StringBuilder edges, int nodeA, int nodeB,
+                                   double latA, double lonA, double latB, double lonB) {
+        int dist = (int) IntersectionHelper.getDistance(latA, lonA, latB, lonB);
+        edges.append(nodeA).append(" ").append(nodeB).append(" ").append(dist).append("\n");
+        edges.append(nodeB).append(" ").append(nodeA).append(" ").append(dist).append("\n");
+        return 2;
+    }
+
+    /**
+     * Import a synthetic grid graph into the data structures used by the dijkstra router.
+     * @param latSteps the number of nodes along a longitude
+     * @param lonSteps the number of nodes along a latitude
+     * @throws IOException if the import fails
+     */
+    public static void initGrid(int latSteps, int lonSteps) throws IOException {
+        Grid.importFmiFile(toStream(createFmiData(latSteps, lonSteps)));
+    }
+
+    /**
+     * Calculate hub label data for a synthetic grid graph and use it for the hub label router.
+     * @param latSteps the number of nodes along a longitude
+     * @param lonSteps the number of nodes along a latitude
+     * @throws IOException if the import fails
+     */
+    public static void initHubLData(int latSteps, int lonSteps) throws IOException {
+        DynamicGrid.importFmiFile(toStream(createFmiData(latSteps, lonSteps)));
+        LabelCreator.createHubLData();
+        CoordinateIndex.build(true);
+    }
+
+    /**
+     * Create the coastlines of the islands and the ring around the south pole.
+     * @param coastlineStep the maximum distance between two points of a coastline in degrees
+     * @return the coastlines
+     */
+    public static List<CoastlineWay> createCoastlines(double coastlineStep) {
+        List<CoastlineWay> coastlines = new ArrayList<>();
+        long nextId = 0;
+        for (double[] island : ISLANDS) {
+            CoastlineWay way = new CoastlineWay();
+            //walk around the island: south, east, north and west border
+            double[][] corners = {{island[0], island[2]}, {island[0], island[3]}, {island[1], island[3]},
+                    {island[1], island[2]}, {island[0], island[2]}};
+            for (int c = 0; c < 4; c++) {
+                double latDiff = corners[c + 1][0] - corners[c][0];
+                double lonDiff = corners[c + 1][1] - corners[c][1];
+                int steps = (int) Math.ceil(Math.max(Math.abs(latDiff), Math.abs(lonDiff)) / coastlineStep);
+                for (int s = 0; s < steps; s++) {
+                    way.getPoints().add(new Point(nextId++, (float) (corners[c][0] + (latDiff * s / steps)),
+                            (float) (corners[c][1] + (lonDiff * s / steps))));
+                }
+            }
+            way.getPoints().add(new Point(nextId++, (float) island[0], (float) island[2]));
+            coastlines.add(way);
+        }
+
+        CoastlineWay antarctica = new CoastlineWay();
+        for (double lon = -180.0; lon < 180.0; lon += coastlineStep) {
+            antarctica.getPoints().add(new Point(nextId++, (float) ANTARCTICA_LAT, (float) lon));
+        }
+        antarctica.getPoints().add(new Point(nextId, (float) ANTARCTICA_LAT, -180.0f));
+        coastlines.add(antarctica);
+        return coastlines;
+    }
+
+    /**
+     * Initialize the {@link PointInWaterChecker} using the synthetic coastlines.
+     * @param coastlineStep the maximum distance between two points of a coastline in degrees
+     */
+    public static void initPointInWaterChecker(double coastlineStep) {
+        CoastlineWays.initEdges(createCoastlines(coastlineStep));
+        PointInWaterChecker.initFromCoastlineWays();
+    }
+
+    private static ByteArrayInputStream toStream(String data) {
+        return new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+    }
+}
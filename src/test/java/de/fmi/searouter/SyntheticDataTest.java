@@ -0,0 +1,151 @@
+package de.fmi.searouter;
+
+import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
+import de.fmi.searouter.dijkstragrid.Edge;
+import de.fmi.searouter.dijkstragrid.Grid;
+import de.fmi.searouter.dijkstragrid.Node;
+import de.fmi.searouter.hublabeldata.HubLNodes;
+import de.fmi.searouter.hublablecreation.HLDijkstra;
+import de.fmi.searouter.hublablecreation.LabelCreator;
+import de.fmi.searouter.router.DijkstraRouter;
+import de.fmi.searouter.router.HubLRouter;
+import de.fmi.searouter.router.RoutingResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the routers and the point in water check on synthetic data.
+ */
+class SyntheticDataTest {
+
+    @Test
+    void testRoutersFindSameDistances() throws IOException {
+        SyntheticData.initGrid(15, 30);
+        SyntheticData.initHubLData(15, 30);
+        DijkstraRouter dijkstraRouter = new DijkstraRouter();
+        HubLRouter hubLRouter = new HubLRouter();
+        RoutingResult.setHLRouterUse(true);
+
+        int nodeCount = Node.getSize();
+        Random rnd = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            int start = rnd.nextInt(nodeCount);
+            int dest = rnd.nextInt(nodeCount);
+            int expected = dijkstraRouter.routeDistance(start, dest);
+            assertEquals(expected, hubLRouter.routeDistance(start, dest), "distance from " + start + " to " + dest);
+            if (expected != -1) {
+                int[] path = hubLRouter.route(start, dest).getPath();
+                assertEquals(start, path[0]);
+                assertEquals(dest, path[path.length - 1]);
+                assertEquals(expected, getPathLength(path), "path from " + start + " to " + dest);
+            }
+        }
+    }
+
+    @Test
+    void testPriorityOrderFindsSameDistancesWithFewerLabels() throws IOException {
+        SyntheticData.initGrid(15, 30);
+        DijkstraRouter dijkstraRouter = new DijkstraRouter();
+        SyntheticData.initHubLData(15, 30);
+        int randomOrderLabels = HubLNodes.getLabelOffset(HubLNodes.getNumOfNodes());
+
+        LabelCreator.setContractionOrder(LabelCreator.ContractionOrder.PRIORITY);
+        try {
+            SyntheticData.initHubLData(15, 30);
+        } finally {
+            LabelCreator.setContractionOrder(LabelCreator.ContractionOrder.RANDOM);
+        }
+        int priorityOrderLabels = HubLNodes.getLabelOffset(HubLNodes.getNumOfNodes());
+        assertTrue(priorityOrderLabels < randomOrderLabels,
+                priorityOrderLabels + " labels with priority order, " + randomOrderLabels + " with random order");
+
+        HubLRouter hubLRouter = new HubLRouter();
+        int nodeCount = Node.getSize();
+        Random rnd = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            int start = rnd.nextInt(nodeCount);
+            int dest = rnd.nextInt(nodeCount);
+            assertEquals(dijkstraRouter.routeDistance(start, dest), hubLRouter.routeDistance(start, dest),
+                    "distance from " + start + " to " + dest);
+        }
+    }
+
+    @Test
+    void testDijkstraModesFindSameRoutes() throws IOException {
+        SyntheticData.initGrid(15, 30);
+        RoutingResult.setHLRouterUse(false);
+        DijkstraRouter dijkstraRouter = new DijkstraRouter(DijkstraRouter.Mode.DIJKSTRA);
+        DijkstraRouter bidirectionalRouter = new DijkstraRouter(DijkstraRouter.Mode.BIDIRECTIONAL);
+        DijkstraRouter aStarRouter = new DijkstraRouter(DijkstraRouter.Mode.A_STAR);
+
+        int nodeCount = Node.getSize();
+        Random rnd = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            int start = rnd.nextInt(nodeCount);
+            int dest = rnd.nextInt(nodeCount);
+            int expected = dijkstraRouter.routeDistance(start, dest);
+            for (DijkstraRouter router : new DijkstraRouter[]{bidirectionalRouter, aStarRouter}) {
+                RoutingResult res = router.route(start, dest);
+                assertEquals(expected, res.routeFound() ? res.getOverallDistance() : -1, router.getMode() + " from " + start + " to " + dest);
+                if (expected != -1) {
+                    assertEquals(start, res.getPath()[0]);
+                    assertEquals(dest, res.getPath()[res.getPath().length - 1]);
+                    assertEquals(expected, getPathLength(res.getPath()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testParallelPruningGivesSameLabels() throws IOException {
+        HLDijkstra.setParallelPruningMinLabels(Integer.MAX_VALUE);
+        try {
+            SyntheticData.initHubLData(15, 30);
+            int[][] sequentialLabels = getLabelData();
+            //the redundancy checks of every node are run in parallel, using several threads even on a single core
+            HLDijkstra.setParallelPruningMinLabels(1);
+            LabelCreator.setNumOfThreads(4);
+            SyntheticData.initHubLData(15, 30);
+            int[][] parallelLabels = getLabelData();
+            for (int i = 0; i < sequentialLabels.length; i++) {
+                assertArrayEquals(sequentialLabels[i], parallelLabels[i]);
+            }
+        } finally {
+            HLDijkstra.setParallelPruningMinLabels(1000);
+            LabelCreator.setNumOfThreads(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    private static int[][] getLabelData() {
+        return new int[][]{HubLNodes.getLabelOffset().array(), HubLNodes.getLabelNode().array(),
+                HubLNodes.getLabelEdge().array(), HubLNodes.getLabelDist().array()};
+    }
+
+    private static int getPathLength(int[] path) {
+        int length = 0;
+        for (int i = 0; i + 1 < path.length; i++) {
+            for (int edge = Grid.offset[path[i]]; edge < Grid.offset[path[i] + 1]; edge++) {
+                if (Edge.getDest(edge) == path[i + 1]) {
+                    length += Edge.getDist(edge);
+                    break;
+                }
+            }
+        }
+        return length;
+    }
+
+    @Test
+    void testPointInWater() {
+        SyntheticData.initPointInWaterChecker(SyntheticData.DEFAULT_COASTLINE_STEP);
+        PointInWaterChecker checker = PointInWaterChecker.getInstance();
+        assertTrue(checker.pointInWater(0.0f, 0.0f));
+        assertTrue(checker.pointInWater(-60.0f, -120.0f));
+        assertFalse(checker.pointInWater(20.0f, -25.0f));
+        assertFalse(checker.pointInWater(40.0f, 135.0f));
+        assertFalse(checker.pointInWater(-85.0f, 10.0f));
+    }
+}
@@ -0,0 +1,74 @@
+package de.fmi.searouter.coastlinegrid;
+
+import de.fmi.searouter.SyntheticData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests if coastline ways written to a file are the same after reading them back.
+ */
+class CoastlineWaysTest {
+
+    @TempDir
+    File tmpDir;
+
+    @Test
+    void testStoreAndReadBinaryData() throws Exception {
+        CoastlineWays.initEdges(SyntheticData.createCoastlines(SyntheticData.DEFAULT_COASTLINE_STEP));
+        float[][] expected = getEdges();
+
+        String filename = new File(tmpDir, "coastline_ways").getPath();
+        CoastlineWays.storeData(filename);
+        CoastlineWays.initEdges(SyntheticData.createCoastlines(10.0));
+
+        assertTrue(CoastlineWays.readData(filename));
+        assertArrayEquals(expected, getEdges());
+    }
+
+    @Test
+    void testCorruptedFileIsRejected() throws Exception {
+        CoastlineWays.initEdges(SyntheticData.createCoastlines(SyntheticData.DEFAULT_COASTLINE_STEP));
+        String filename = new File(tmpDir, "coastline_ways_corrupted").getPath();
+        CoastlineWays.storeData(filename);
+
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+            long pos = file.length() - 3;
+            file.seek(pos);
+            int value = file.read();
+            file.seek(pos);
+            file.write(value ^ 0xFF);
+        }
+        assertThrows(IOException.class, () -> CoastlineWays.readData(filename));
+    }
+
+    @Test
+    void testReadSerializedData() throws Exception {
+        String filename = new File(tmpDir, "coastline_ways_serialized").getPath();
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
+            out.writeObject(new CoastlineWriter(new int[]{0, 1, 3}, new float[]{1.0f, 2.0f, 3.0f, 4.0f, 5.0f},
+                    new float[]{-1.0f, -2.0f, -3.0f, -4.0f, -5.0f}));
+        }
+
+        assertFalse(CoastlineWays.readData(filename));
+        assertEquals(3, CoastlineWays.getNumberOfEdges());
+        assertEquals(4.0f, CoastlineWays.getStartLatByEdgeIdx(2));
+        assertEquals(-5.0f, CoastlineWays.getDestLonByEdgeIdx(2));
+    }
+
+    private static float[][] getEdges() {
+        float[][] edges = new float[CoastlineWays.getNumberOfEdges()][];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new float[]{CoastlineWays.getStartLatByEdgeIdx(i), CoastlineWays.getStartLonByEdgeIdx(i),
+                    CoastlineWays.getDestLatByEdgeIdx(i), CoastlineWays.getDestLonByEdgeIdx(i)};
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,40 @@
+package de.fmi.searouter.coastlinegrid;
+
+import de.fmi.searouter.SyntheticData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests if the flattened point in water grid gives the same results after writing it to a file and reading it back.
+ */
+class PointInWaterCheckerTest {
+
+    @TempDir
+    File tmpDir;
+
+    @Test
+    void testStoreAndReadBinaryData() throws Exception {
+        SyntheticData.initPointInWaterChecker(SyntheticData.DEFAULT_COASTLINE_STEP);
+        PointInWaterChecker checker = PointInWaterChecker.getInstance();
+        String filename = new File(tmpDir, "point_in_water_checker").getPath();
+        checker.storeData(filename);
+
+        PointInWaterChecker mappedChecker = PointInWaterChecker.readData(filename);
+        int numOfWaterPoints = 0;
+        for (float lat = -89.25f; lat < 90.0f; lat += 1.5f) {
+            for (float lon = -179.25f; lon < 180.0f; lon += 1.5f) {
+                boolean inWater = checker.pointInWater(lat, lon);
+                assertEquals(inWater, mappedChecker.pointInWater(lat, lon), lat + "/" + lon);
+                assertEquals(!SyntheticData.isOnIsland(lat, lon) && lat > -80.0f, inWater, lat + "/" + lon);
+                if (inWater) {
+                    numOfWaterPoints++;
+                }
+            }
+        }
+        assertTrue(numOfWaterPoints > 0);
+    }
+}
@@ -0,0 +1,43 @@
+package de.fmi.searouter.dijkstragrid;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests if the spatial index used to snap coordinates to grid nodes finds the correct nodes.
+ */
+class CoordinateIndexTest {
+
+    @BeforeAll
+    static void initNodes() {
+        Node.setLatitude(new double[]{48.2, 48.7, 48.9, -0.5, 10.5, 10.5});
+        Node.setLongitude(new double[]{9.1, 9.8, 9.2, -0.5, 179.5, -179.9});
+        CoordinateIndex.build(false);
+    }
+
+    @Test
+    void testNearestNodeInSameBucket() {
+        assertEquals(1, Grid.getNearestGridNodeByCoordinates(48.6, 9.7));
+        assertEquals(2, Grid.getNearestGridNodeByCoordinates(48.95, 9.1));
+    }
+
+    @Test
+    void testNegativeCoordinatesUseOwnBucket() {
+        assertEquals(3, Grid.getNearestGridNodeByCoordinates(-0.2, -0.9));
+    }
+
+    @Test
+    void testFallbackToNeighbouringBucket() {
+        assertEquals(2, Grid.getNearestGridNodeByCoordinates(49.1, 9.3));
+        //neighbouring buckets wrap around at the antimeridian
+        assertEquals(4, Grid.getNearestGridNodeByCoordinates(11.2, 178.9));
+        assertEquals(5, Grid.getNearestGridNodeByCoordinates(11.2, -179.2));
+    }
+
+    @Test
+    void testNoNodeNearby() {
+        assertEquals(-1, Grid.getNearestGridNodeByCoordinates(60.0, 40.0));
+    }
+}
@@ -0,0 +1,84 @@
+package de.fmi.searouter.dijkstragrid;
+
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.coastlinegrid.CoastlineChanges;
+import de.fmi.searouter.coastlinegrid.CoastlineWays;
+import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
+import de.fmi.searouter.importdata.CoastlineWay;
+import de.fmi.searouter.importdata.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests if updating a grid after coastline changes gives the same grid as creating it again.
+ */
+class GridUpdaterTest {
+
+    @Test
+    void testUpdatedGridEqualsNewGrid() throws InterruptedException {
+        List<CoastlineWay> oldCoastlines = SyntheticData.createCoastlines(SyntheticData.DEFAULT_COASTLINE_STEP);
+        //remove one island and add a new one
+        List<CoastlineWay> newCoastlines = new ArrayList<>(oldCoastlines);
+        newCoastlines.remove(2);
+        CoastlineWay island = new CoastlineWay();
+        float[][] corners = {{50.0f, -100.0f}, {50.0f, -80.0f}, {62.0f, -80.0f}, {62.0f, -100.0f}, {50.0f, -100.0f}};
+        for (int i = 0; i < corners.length; i++) {
+            island.getPoints().add(new Point(1000000 + i, corners[i][0], corners[i][1]));
+        }
+        newCoastlines.add(island);
+
+        GridCreator.setDimensions(50, 100);
+        try {
+            CoastlineWays.initEdges(newCoastlines);
+            PointInWaterChecker.initFromCoastlineWays();
+            GridCreator.buildGrid();
+            Set<String> expectedNodes = getNodes();
+            Set<String> expectedEdges = getEdges();
+
+            CoastlineWays.initEdges(oldCoastlines);
+            PointInWaterChecker.initFromCoastlineWays();
+            GridCreator.buildGrid();
+            CoastlineChanges changes = new CoastlineChanges(oldCoastlines, newCoastlines);
+            assertEquals(2, changes.getNumberOfAreas());
+            assertTrue(GridUpdater.updateGrid(changes) > 0);
+
+            assertEquals(expectedNodes, getNodes());
+            assertEquals(expectedEdges, getEdges());
+        } finally {
+            GridCreator.setDimensions(500, 2000);
+        }
+    }
+
+    @Test
+    void testUnchangedCoastlinesHaveNoChanges() {
+        List<CoastlineWay> coastlines = SyntheticData.createCoastlines(SyntheticData.DEFAULT_COASTLINE_STEP);
+        CoastlineChanges changes = new CoastlineChanges(coastlines, new ArrayList<>(coastlines));
+        assertEquals(0, changes.getNumberOfChangedEdges());
+        assertFalse(changes.isPointChanged(20.0f, -25.0f));
+    }
+
+    private static Set<String> getNodes() {
+        Set<String> nodes = new HashSet<>();
+        for (int i = 0; i < Node.getSize(); i++) {
+            nodes.add(Node.getLatitude(i) + " " + Node.getLongitude(i));
+        }
+        return nodes;
+    }
+
+    private static Set<String> getEdges() {
+        Set<String> edges = new HashSet<>();
+        for (int i = 0; i < Edge.getSize(); i++) {
+            int start = Edge.getStart(i);
+            int dest = Edge.getDest(i);
+            edges.add(Node.getLatitude(start) + " " + Node.getLongitude(start) + " " + Node.getLatitude(dest) + " " +
+                    Node.getLongitude(dest) + " " + Edge.getDist(i));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,127 @@
+package de.fmi.searouter.hublabeldata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests if hub label data written to a file is the same after reading it back.
+ */
+class HubLStoreTest {
+
+    @TempDir
+    File tmpDir;
+
+    @Test
+    void testStoreAndReadBinaryData() {
+        setTestData();
+
+        String filename = new File(tmpDir, "hub_label_data").getPath();
+        HubLStore.storeData(filename);
+
+        HubLNodes.setLongitudes(null);
+        HubLNodes.setLabelNode(null);
+        HubLEdges.setDist(null);
+        HubLEdges.setFirstShortcutIdx(0);
+
+        assertTrue(HubLStore.readData(filename));
+        assertEquals(3, HubLNodes.getNumOfNodes());
+        assertEquals(-20.25, HubLNodes.getLong(1));
+        assertEquals(-2.75, HubLNodes.getLat(1));
+        assertTrue(HubLNodes.nodeHasLabels(2));
+        assertFalse(HubLNodes.nodeHasLabels(1));
+        assertEquals(1, HubLNodes.getEdgeOffset(1));
+        assertEquals(1, HubLNodes.getEdge(1));
+        assertEquals(0, HubLNodes.findLabel(HubLNodes.getLabelOffset(2), HubLNodes.getLabelOffset(3), 2));
+        assertEquals(-1, HubLNodes.getLabelNode(1));
+        assertEquals(300, HubLEdges.getDist(2));
+        assertTrue(HubLEdges.isShortcut(2));
+        assertEquals(1, HubLEdges.getSecondShortcut(2));
+        assertEquals(0, HubLEdges.getFirstShortcut(2));
+    }
+
+    @Test
+    void testStoreAndReadCompressedLabels() {
+        setTestData();
+        HubLNodes.setLabelOffset(IntBuffer.wrap(new int[]{0, 2, 2, 5}));
+        HubLNodes.setLabelNode(IntBuffer.wrap(new int[]{0, 700, 2, 300, 100000, -1}));
+        HubLNodes.setLabelEdge(IntBuffer.wrap(new int[]{-1, 5, -1, 9, 5, -1}));
+        HubLNodes.setLabelDist(IntBuffer.wrap(new int[]{0, 20000000, 0, 1, 150, -1}));
+        HubLNodes.compressLabels();
+
+        String filename = new File(tmpDir, "hub_label_data_compressed").getPath();
+        HubLStore.storeData(filename);
+        HubLNodes.setLabelData(null);
+        assertTrue(HubLStore.readData(filename));
+
+        assertTrue(HubLNodes.isLabelDataCompressed());
+        LabelCursor cursor = new LabelCursor();
+        cursor.reset(1);
+        assertFalse(cursor.next());
+        cursor.reset(2);
+        assertTrue(cursor.next());
+        assertEquals(2, cursor.getNode());
+        assertEquals(-1, cursor.getEdge());
+        assertTrue(cursor.seek(100000));
+        assertEquals(5, cursor.getEdge());
+        assertEquals(150, cursor.getDist());
+        assertFalse(cursor.next());
+        cursor.reset(0);
+        assertTrue(cursor.seek(700));
+        assertEquals(20000000, cursor.getDist());
+    }
+
+    @Test
+    void testStoreAndReadInterleavedLabels() {
+        setTestData();
+        HubLNodes.setLabelOffset(IntBuffer.wrap(new int[]{0, 2, 2, 5}));
+        HubLNodes.setLabelNode(IntBuffer.wrap(new int[]{0, 700, 2, 300, 100000, -1}));
+        HubLNodes.setLabelEdge(IntBuffer.wrap(new int[]{-1, 5, -1, 9, 5, -1}));
+        HubLNodes.setLabelDist(IntBuffer.wrap(new int[]{0, 20000000, 0, 1, 150, -1}));
+        HubLNodes.setLabelLayout(HubLNodes.LabelLayout.INTERLEAVED);
+
+        String filename = new File(tmpDir, "hub_label_data_interleaved").getPath();
+        HubLStore.storeData(filename);
+        HubLNodes.setLabelNode(null);
+        assertTrue(HubLStore.readData(filename));
+
+        //the interleaved labels are mapped directly from the file
+        assertTrue(HubLNodes.isLabelDataInterleaved());
+        assertTrue(HubLNodes.getLabelNodeDist().isDirect());
+        assertEquals(3, HubLNodes.findLabel(HubLNodes.getLabelOffset(2), HubLNodes.getLabelOffset(3), 300));
+        assertEquals(1, HubLNodes.getLabelDist(3));
+        assertEquals(9, HubLNodes.getLabelEdge(3));
+        LabelCursor cursor = new LabelCursor();
+        cursor.reset(0);
+        assertTrue(cursor.seek(700));
+        assertEquals(20000000, cursor.getDist());
+        assertEquals(5, cursor.getEdge());
+    }
+
+    @Test
+    void testMissingFile() {
+        assertFalse(HubLStore.readData(new File(tmpDir, "missing").getPath()));
+    }
+
+    private static void setTestData() {
+        HubLNodes.setHlLevel(2);
+        HubLNodes.setLongitudes(DoubleBuffer.wrap(new double[]{10.5, -20.25, 30.0}));
+        HubLNodes.setLatitudes(DoubleBuffer.wrap(new double[]{1.5, -2.75, 3.0}));
+        HubLNodes.setLevels(IntBuffer.wrap(new int[]{0, 1, 2}));
+        HubLNodes.setEdgesOffset(IntBuffer.wrap(new int[]{0, 1, 2, 2}));
+        HubLNodes.setEdges(IntBuffer.wrap(new int[]{0, 1}));
+        HubLNodes.setLabelOffset(IntBuffer.wrap(new int[]{0, 0, 0, 1}));
+        HubLNodes.setLabelNode(IntBuffer.wrap(new int[]{2, -1}));
+        HubLNodes.setLabelEdge(IntBuffer.wrap(new int[]{-1, -1}));
+        HubLNodes.setLabelDist(IntBuffer.wrap(new int[]{0, -1}));
+        HubLEdges.setDest(IntBuffer.wrap(new int[]{1, 2, 2}));
+        HubLEdges.setDist(IntBuffer.wrap(new int[]{100, 200, 300}));
+        HubLEdges.setFirstShortcutIdx(2);
+        HubLEdges.setShortcutParts(IntBuffer.wrap(new int[]{1, 0}));
+    }
+}
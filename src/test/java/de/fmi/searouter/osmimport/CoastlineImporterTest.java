@@ -0,0 +1,69 @@
+package de.fmi.searouter.osmimport;
+
+import com.wolt.osm.parallelpbf.ParallelBinaryWriter;
+import com.wolt.osm.parallelpbf.entity.BoundBox;
+import com.wolt.osm.parallelpbf.entity.Node;
+import com.wolt.osm.parallelpbf.entity.Way;
+import de.fmi.searouter.importdata.CoastlineWay;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the import of coastlines from a small pbf file.
+ */
+class CoastlineImporterTest {
+
+    @Test
+    void testImport(@TempDir File tempDir) throws IOException {
+        File pbfFile = new File(tempDir, "coastlines.pbf");
+        try (OutputStream out = new FileOutputStream(pbfFile)) {
+            ParallelBinaryWriter writer = new ParallelBinaryWriter(out, 1, new BoundBox(-10.0, 10.0, 10.0, -10.0));
+            writer.start();
+            //nodes 1 to 5 are used by coastlines, node 6 only by a road, node 7 by no way at all
+            for (int i = 1; i <= 7; i++) {
+                writer.write(new Node(i, i, -i));
+            }
+            writer.write(createWay(20, "natural", "coastline", 1, 2, 3, 1));
+            writer.write(createWay(10, "natural", "coastline", 4, 5, 8));
+            writer.write(createWay(30, "highway", "primary", 5, 6));
+            writer.write(createWay(40, "coastline", "bogus", 1, 4));
+            writer.close();
+        }
+
+        CoastlineImporter.setNumOfParserThreads(2);
+        List<CoastlineWay> coastlines = new CoastlineImporter().importPBF(new FileSystemResource(pbfFile));
+        assertEquals(2, coastlines.size());
+        //ways are sorted by their id, node 8 is not contained in the file and skipped
+        assertEquals(2, coastlines.get(0).getPoints().size());
+        assertEquals(4, coastlines.get(1).getPoints().size());
+        assertEquals(4.0f, coastlines.get(0).getPoints().get(0).getLat());
+        assertEquals(-5.0f, coastlines.get(0).getPoints().get(1).getLon());
+        assertEquals(-3.0f, coastlines.get(1).getPoints().get(2).getLon());
+        assertEquals(1.0f, coastlines.get(1).getPoints().get(3).getLat());
+    }
+
+    private static Way createWay(long id, String tagKey, String tagValue, long... nodeIds) {
+        Way way = new Way(id);
+        for (long nodeId : nodeIds) {
+            way.getNodes().add(nodeId);
+        }
+        Map<String, String> tags = new HashMap<>();
+        tags.put(tagKey, tagValue);
+        if ("bogus".equals(tagValue)) {
+            tags.put("natural", "coastline");
+        }
+        way.setTags(tags);
+        return way;
+    }
+}
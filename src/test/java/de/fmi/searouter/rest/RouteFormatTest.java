@@ -0,0 +1,86 @@
+package de.fmi.searouter.rest;
+
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.router.RoutingResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests if routes are returned in the format requested by the Accept header.
+ */
+@WebMvcTest(RoutingController.class)
+class RouteFormatTest {
+    private static final String REQUEST = "{\"startPoint\":{\"latitude\":0.0,\"longitude\":0.0},"
+            + "\"endPoint\":{\"latitude\":0.0,\"longitude\":36.0}}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    static void initGrid() throws IOException {
+        SyntheticData.initGrid(15, 30);
+        RoutingResult.setHLRouterUse(false);
+    }
+
+    @Test
+    void testJsonIsDefault() throws Exception {
+        mockMvc.perform(post("/route").contentType(MediaType.APPLICATION_JSON).content(REQUEST)
+                        .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.pathCoordinates[0][0]").value(0.0))
+                .andExpect(jsonPath("$.pathCoordinates[3][1]").value(36.0));
+    }
+
+    @Test
+    void testPolyline() throws Exception {
+        mockMvc.perform(post("/route").contentType(MediaType.APPLICATION_JSON).content(REQUEST)
+                        .accept(PolylineRouteConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(PolylineRouteConverter.MEDIA_TYPE))
+                .andExpect(jsonPath("$.routeFound").value(true))
+                //(0, 0), then three steps of 12 degrees to the east
+                .andExpect(jsonPath("$.polyline").value("??" + "?_wfhA" + "?_wfhA" + "?_wfhA"));
+    }
+
+    @Test
+    void testBinary() throws Exception {
+        MvcResult result = mockMvc.perform(post("/route").contentType(MediaType.APPLICATION_JSON).content(REQUEST)
+                        .accept(BinaryRouteConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(BinaryRouteConverter.MEDIA_TYPE))
+                .andReturn();
+        ByteBuffer body = ByteBuffer.wrap(result.getResponse().getContentAsByteArray())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertTrue(body.getInt() > 0);
+        int numOfPoints = body.getInt();
+        assertEquals(4, numOfPoints);
+        body.getDouble();
+        assertEquals(BinaryRouteConverter.HEADER_SIZE + (numOfPoints * BinaryRouteConverter.POINT_SIZE),
+                body.capacity());
+        assertEquals(0.0f, body.getFloat(BinaryRouteConverter.HEADER_SIZE + 4));
+        assertEquals(36.0f, body.getFloat(BinaryRouteConverter.HEADER_SIZE + (3 * 8) + 4));
+    }
+
+    @Test
+    void testPolylineEncoding() {
+        //example from the documentation of the format
+        double[] lats = {38.5, 40.7, 43.252};
+        double[] lons = {-120.2, -120.95, -126.453};
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@",
+                PolylineRouteConverter.encodePolyline(3, i -> lats[i], i -> lons[i]));
+    }
+}
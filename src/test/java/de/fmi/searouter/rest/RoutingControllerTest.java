@@ -0,0 +1,44 @@
+package de.fmi.searouter.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests the validation of requests by the routing controller.
+ */
+class RoutingControllerTest {
+
+    @Test
+    void testRejectsTooLargeMatrix() throws Exception {
+        //one more start point than allowed for 1000 end points
+        int numOfEndPoints = 1000;
+        int numOfStartPoints = (int) (RoutingController.MAX_MATRIX_CELLS / numOfEndPoints) + 1;
+        String request = "{\"startPoints\":" + getPoints(numOfStartPoints)
+                + ",\"endPoints\":" + getPoints(numOfEndPoints) + "}";
+
+        RoutingController.setHLRouterUse(true);
+        try {
+            MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new RoutingController()).build();
+            mockMvc.perform(post("/route/matrix").contentType(MediaType.APPLICATION_JSON).content(request))
+                    .andExpect(status().isBadRequest());
+        } finally {
+            RoutingController.setHLRouterUse(false);
+        }
+    }
+
+    private static String getPoints(int numOfPoints) {
+        StringBuilder points = new StringBuilder("[");
+        for (int i = 0; i < numOfPoints; i++) {
+            if (i > 0) {
+                points.append(',');
+            }
+            points.append("{\"latitude\":0.0,\"longitude\":0.0}");
+        }
+        return points.append(']').toString();
+    }
+}
@@ -0,0 +1,114 @@
+package de.fmi.searouter.rest;
+
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.router.RoutingResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests the routing executor and the async mode of the routing controller.
+ */
+class RoutingExecutorTest {
+
+    @Test
+    void testRejectsAndTimesOut() throws IOException, InterruptedException {
+        SyntheticData.initGrid(15, 30);
+        RoutingResult.setHLRouterUse(false);
+        RoutingExecutor executor = new RoutingExecutor(false, 1, 1, 1);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            //occupies the only thread of the slow lane
+            CompletableFuture<Integer> blocking = executor.submit(RoutingExecutor.Lane.SLOW, 10000, router -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            });
+            started.await();
+            CompletableFuture<Integer> queued = executor.submit(RoutingExecutor.Lane.SLOW, 50, router -> 2);
+            CompletableFuture<Integer> rejected = executor.submit(RoutingExecutor.Lane.SLOW, 10000, router -> 3);
+
+            CompletionException e = assertThrows(CompletionException.class, rejected::join);
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+            e = assertThrows(CompletionException.class, queued::join);
+            assertTrue(e.getCause() instanceof TimeoutException);
+            //the fast lane is not affected by the blocked slow lane
+            assertEquals(4, executor.submit(RoutingExecutor.Lane.FAST, 10000, router -> 4).join());
+
+            release.countDown();
+            assertEquals(1, blocking.join());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testInterruptsTimedOutCalculation() throws IOException, InterruptedException {
+        SyntheticData.initGrid(15, 30);
+        RoutingResult.setHLRouterUse(false);
+        RoutingExecutor executor = new RoutingExecutor(false, 1, 1, 1);
+        try {
+            CountDownLatch interrupted = new CountDownLatch(1);
+            //runs until it is interrupted
+            CompletableFuture<Integer> running = executor.submit(RoutingExecutor.Lane.SLOW, 50, router -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.onSpinWait();
+                }
+                interrupted.countDown();
+                return 1;
+            });
+
+            CompletionException e = assertThrows(CompletionException.class, running::join);
+            assertTrue(e.getCause() instanceof TimeoutException);
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            //the thread of the lane can be used again
+            assertEquals(2, executor.submit(RoutingExecutor.Lane.SLOW, 10000, router -> 2).join());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testAsyncController() throws Exception {
+        SyntheticData.initGrid(15, 30);
+        RoutingResult.setHLRouterUse(false);
+        RoutingController.setHLRouterUse(false);
+        RoutingController.setAsyncRouting(true);
+        MockMvc mockMvc;
+        try {
+            mockMvc = MockMvcBuilders.standaloneSetup(new RoutingController()).build();
+        } finally {
+            RoutingController.setAsyncRouting(false);
+        }
+
+        MvcResult result = mockMvc.perform(post("/route").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"startPoint\":{\"latitude\":0.0,\"longitude\":0.0},"
+                                + "\"endPoint\":{\"latitude\":0.0,\"longitude\":36.0}}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routeFound").value(true))
+                .andExpect(jsonPath("$.pathCoordinates[3][1]").value(36.0));
+    }
+}
@@ -0,0 +1,117 @@
+package de.fmi.searouter.router;
+
+import de.fmi.searouter.hublabeldata.HubLEdges;
+import de.fmi.searouter.hublabeldata.HubLNodes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the hub label router on a small hand-made set of labels. Nodes 0 to 2 have labels,
+ * node 3 only has an edge to node 2.
+ */
+class HubLRouterTest {
+
+    @BeforeEach
+    void initData() {
+        HubLNodes.setHlLevel(1);
+        HubLNodes.setLongitudes(DoubleBuffer.wrap(new double[]{0.0, 1.0, 2.0, 3.0}));
+        HubLNodes.setLatitudes(DoubleBuffer.wrap(new double[]{0.0, 1.0, 2.0, 3.0}));
+        HubLNodes.setLevels(IntBuffer.wrap(new int[]{1, 1, 1, 0}));
+        HubLNodes.setEdgesOffset(IntBuffer.wrap(new int[]{0, 0, 0, 0, 1}));
+        HubLNodes.setEdges(IntBuffer.wrap(new int[]{0}));
+        HubLNodes.setLabelOffset(IntBuffer.wrap(new int[]{0, 2, 4, 5, 5}));
+        HubLNodes.setLabelNode(IntBuffer.wrap(new int[]{0, 2, 1, 2, 2, -1}));
+        HubLNodes.setLabelEdge(IntBuffer.wrap(new int[]{-1, -1, -1, -1, -1, -1}));
+        HubLNodes.setLabelDist(IntBuffer.wrap(new int[]{0, 5, 0, 7, 0, -1}));
+        HubLEdges.setDest(IntBuffer.wrap(new int[]{2}));
+        HubLEdges.setDist(IntBuffer.wrap(new int[]{4}));
+        HubLEdges.setFirstShortcutIdx(1);
+        HubLEdges.setShortcutParts(IntBuffer.wrap(new int[0]));
+    }
+
+    @Test
+    void testDistanceMatrix() {
+        HubLRouter router = new HubLRouter();
+        int[] distances = router.calculateDistanceMatrix(new int[]{0, 3}, new int[]{1, 3, -1});
+        assertArrayEquals(new int[]{12, 9, -1, 11, 0, -1}, distances);
+    }
+
+    @Test
+    void testParallelDistanceMatrix() {
+        HubLRouter router = new HubLRouter();
+        ExecutorService rowExecutor = Executors.newFixedThreadPool(2);
+        try {
+            int[] distances = router.calculateDistanceMatrix(new int[]{0, 3, -1, 3, 0}, new int[]{1, 3, -1},
+                    rowExecutor, 2);
+            assertArrayEquals(new int[]{12, 9, -1, 11, 0, -1, -1, -1, -1, 11, 0, -1, 12, 9, -1}, distances);
+        } finally {
+            rowExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void testQueryStats() {
+        HubLRouter router = new HubLRouter();
+        assertEquals(11, router.routeDistance(3, 1));
+        QueryStats stats = router.getQueryStats();
+        //node 3 is expanded, its temporary labels (3 and 2) are compared to the two labels of node 1
+        assertEquals(1, stats.getNodesExpanded());
+        assertEquals(1 + 2 + 2, stats.getLabelsScanned());
+        assertTrue(stats.getLabelSearchNanos() > 0);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new RoutingMetrics(registry).recordQuery(stats);
+        assertEquals(1, registry.get("searouter.label.intersection").timer().count());
+        assertEquals(5.0, registry.get("searouter.labels.scanned").summary().totalAmount());
+        //no path was calculated, so nothing was unpacked
+        assertEquals(0, registry.get("searouter.edge.unpacking").timer().count());
+    }
+
+    @Test
+    void testCompressedLabels() {
+        long uncompressedSize = HubLNodes.getLabelDataSize();
+        HubLNodes.compressLabels();
+        assertTrue(HubLNodes.isLabelDataCompressed());
+        assertTrue(HubLNodes.getLabelDataSize() < uncompressedSize);
+
+        HubLRouter router = new HubLRouter();
+        assertEquals(12, router.routeDistance(0, 1));
+        assertEquals(11, router.routeDistance(3, 1));
+        assertArrayEquals(new int[]{12, 9, -1, 11, 0, -1},
+                router.calculateDistanceMatrix(new int[]{0, 3}, new int[]{1, 3, -1}));
+    }
+
+    @Test
+    void testInterleavedLabels() {
+        HubLNodes.setLabelLayout(HubLNodes.LabelLayout.INTERLEAVED);
+        assertTrue(HubLNodes.isLabelDataInterleaved());
+        assertEquals(2, HubLNodes.getLabelStride());
+
+        HubLRouter router = new HubLRouter();
+        assertEquals(12, router.routeDistance(0, 1));
+        assertEquals(11, router.routeDistance(3, 1));
+        assertArrayEquals(new int[]{12, 9, -1, 11, 0, -1},
+                router.calculateDistanceMatrix(new int[]{0, 3}, new int[]{1, 3, -1}));
+
+        HubLNodes.setLabelLayout(HubLNodes.LabelLayout.SEPARATE);
+        assertFalse(HubLNodes.isLabelDataInterleaved());
+        assertArrayEquals(new int[]{0, 5, 0, 7, 0, -1}, HubLNodes.getLabelDist().array());
+    }
+
+    @Test
+    void testRouteDistance() {
+        HubLRouter router = new HubLRouter();
+        assertEquals(12, router.routeDistance(0, 1));
+        assertEquals(9, router.routeDistance(0, 3));
+        assertEquals(11, router.routeDistance(3, 1));
+        assertEquals(5, router.routeDistance(2, 0));
+    }
+}
@@ -0,0 +1,65 @@
+package de.fmi.searouter.router;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests if the implementation chosen by {@link LabelIntersector#create()} (vectorized if available) finds the
+ * same common labels as the scalar implementation.
+ */
+class LabelIntersectorTest {
+
+    @Test
+    void testSameMatchesAsScalar() {
+        LabelIntersector scalar = new ScalarLabelIntersector();
+        LabelIntersector intersector = LabelIntersector.create();
+        Random rnd = new Random(3);
+        for (int i = 0; i < 500; i++) {
+            int[] nodesA = randomLabels(rnd, rnd.nextInt(300));
+            int[] nodesB = randomLabels(rnd, rnd.nextInt(300));
+            int startA = nodesA.length == 0 ? 0 : rnd.nextInt(nodesA.length);
+            int startB = nodesB.length == 0 ? 0 : rnd.nextInt(nodesB.length);
+            int size = Math.max(nodesA.length, nodesB.length);
+
+            int[] expectedA = new int[size];
+            int[] expectedB = new int[size];
+            int expected = scalar.intersect(nodesA, startA, nodesA.length, nodesB, startB, nodesB.length,
+                    expectedA, expectedB);
+            int[] matchesA = new int[size];
+            int[] matchesB = new int[size];
+            int found = intersector.intersect(nodesA, startA, nodesA.length, nodesB, startB, nodesB.length,
+                    matchesA, matchesB);
+            assertEquals(expected, found);
+            assertArrayEquals(Arrays.copyOf(expectedA, expected), Arrays.copyOf(matchesA, found));
+            assertArrayEquals(Arrays.copyOf(expectedB, expected), Arrays.copyOf(matchesB, found));
+        }
+    }
+
+    @Test
+    void testDisjointAndIdenticalRanges() {
+        LabelIntersector intersector = LabelIntersector.create();
+        int[] nodes = new int[64];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = 2 * i;
+        }
+        int[] otherNodes = new int[64];
+        for (int i = 0; i < otherNodes.length; i++) {
+            otherNodes[i] = (2 * i) + 1;
+        }
+        int[] matchesA = new int[64];
+        int[] matchesB = new int[64];
+        assertEquals(0, intersector.intersect(nodes, 0, 64, otherNodes, 0, 64, matchesA, matchesB));
+        assertEquals(64, intersector.intersect(nodes, 0, 64, nodes, 0, 64, matchesA, matchesB));
+        assertEquals(63, matchesA[63]);
+        assertEquals(63, matchesB[63]);
+    }
+
+    private static int[] randomLabels(Random rnd, int size) {
+        //small range of node ids, so there are many common labels
+        return rnd.ints(0, 1000).distinct().limit(size).sorted().toArray();
+    }
+}
@@ -0,0 +1,81 @@
+package de.fmi.searouter.router;
+
+import de.fmi.searouter.SyntheticData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the route cache using routes of the dijkstra router on a synthetic grid.
+ */
+class RouteCacheTest {
+
+    @BeforeEach
+    void initGrid() throws IOException {
+        SyntheticData.initGrid(15, 30);
+        RoutingResult.setHLRouterUse(false);
+    }
+
+    @Test
+    void testCachedRouteIsEqual() {
+        RouteCache cache = new RouteCache(100);
+        RoutingResult result = new DijkstraRouter().route(3, 200);
+        assertNull(cache.get(3, 200));
+        cache.put(3, 200, result);
+
+        RoutingResult cachedResult = cache.get(3, 200);
+        assertNotNull(cachedResult);
+        assertTrue(cachedResult.routeFound());
+        assertEquals(result.getOverallDistance(), cachedResult.getOverallDistance());
+        assertArrayEquals(result.getPath(), cachedResult.getPath());
+        assertEquals(result.getPathCoordinates(), cachedResult.getPathCoordinates());
+        //the reverse route is a different entry
+        assertNull(cache.get(200, 3));
+
+        RouteCacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1.0 / 3.0, stats.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void testNoRouteAndDisabledCache() {
+        RouteCache cache = new RouteCache(100);
+        cache.put(1, 2, new RoutingResult());
+        assertFalse(cache.get(1, 2).routeFound());
+        assertEquals(-1, cache.get(1, 2).getOverallDistance());
+
+        RouteCache disabledCache = new RouteCache(0);
+        disabledCache.put(3, 200, new DijkstraRouter().route(3, 200));
+        assertNull(disabledCache.get(3, 200));
+        assertEquals(0, disabledCache.getStats().getSize());
+    }
+
+    @Test
+    void testConcurrentAccess() {
+        RouteCache cache = new RouteCache(1000);
+        RouterPool pool = new RouterPool(false, 4);
+        IntStream.range(0, 2000).parallel().forEach(i -> {
+            int start = i % 50;
+            int dest = 100 + (i % 7);
+            RoutingResult result = cache.get(start, dest);
+            if (result == null) {
+                Router router = pool.borrow();
+                try {
+                    result = router.route(start, dest);
+                } finally {
+                    pool.giveBack(router);
+                }
+                cache.put(start, dest, result);
+            }
+            assertEquals(start, result.getPath()[0]);
+        });
+        RouteCacheStats stats = cache.getStats();
+        assertEquals(2000, stats.getHitCount() + stats.getMissCount());
+        assertTrue(stats.getHitCount() >= 2000 - (2 * 350));
+    }
+}
@@ -0,0 +1,63 @@
+package de.fmi.searouter.router;
+
+import de.fmi.searouter.SyntheticData;
+import de.fmi.searouter.coastlinegrid.PointInWaterChecker;
+import de.fmi.searouter.dijkstragrid.Node;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the simplification of paths on synthetic data.
+ */
+class RouteSimplifierTest {
+
+    @Test
+    void testSimplifiedPathsStayInWater() throws IOException {
+        SyntheticData.initGrid(40, 80);
+        SyntheticData.initPointInWaterChecker(SyntheticData.DEFAULT_COASTLINE_STEP);
+        RoutingResult.setHLRouterUse(false);
+        PointInWaterChecker checker = PointInWaterChecker.getInstance();
+        RouteSimplifier simplifier = new RouteSimplifier(checker);
+        DijkstraRouter router = new DijkstraRouter();
+
+        int nodeCount = Node.getSize();
+        Random rnd = new Random(3);
+        int originalNodes = 0;
+        int simplifiedNodes = 0;
+        for (int i = 0; i < 50; i++) {
+            int start = rnd.nextInt(nodeCount);
+            int dest = rnd.nextInt(nodeCount);
+            RoutingResult res = router.route(start, dest);
+            if (!res.routeFound()) {
+                continue;
+            }
+            int[] path = res.getPath();
+            int[] simplified = simplifier.simplify(path, 500000.0);
+            assertEquals(start, simplified[0]);
+            assertEquals(dest, simplified[simplified.length - 1]);
+            originalNodes += path.length;
+            simplifiedNodes += simplified.length;
+
+            for (int j = 0; j + 1 < simplified.length; j++) {
+                double latA = RoutingResult.getLatitude(simplified[j]);
+                double lonA = RoutingResult.getLongitude(simplified[j]);
+                double latB = RoutingResult.getLatitude(simplified[j + 1]);
+                double lonB = RoutingResult.getLongitude(simplified[j + 1]);
+                //segments crossing the antimeridian are not checked here
+                if (Math.abs(lonB - lonA) > 180.0) {
+                    continue;
+                }
+                for (int s = 0; s <= 20; s++) {
+                    assertTrue(checker.pointInWater((float) (latA + ((latB - latA) * s / 20)),
+                            (float) (lonA + ((lonB - lonA) * s / 20))), "segment " + j + " of route " + i);
+                }
+            }
+        }
+        assertTrue(simplifiedNodes < originalNodes / 2, simplifiedNodes + " of " + originalNodes + " nodes kept");
+        assertArrayEquals(new int[]{1, 2}, simplifier.simplify(new int[]{1, 2}, 500000.0));
+    }
+}
@@ -0,0 +1,32 @@
+package de.fmi.searouter.router;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.fmi.searouter.SyntheticData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests if routing results are serialized to the JSON format expected by the frontend.
+ */
+class RoutingResultSerializerTest {
+
+    @Test
+    void testSerializeRoute() throws IOException {
+        SyntheticData.initGrid(15, 30);
+        RoutingResult.setHLRouterUse(false);
+        RoutingResult result = new RoutingResult(new int[]{3, 4, 5}, 911268, 0.25);
+        assertEquals("{\"path\":[3,4,5],\"pathCoordinates\":[[-70.0,-144.0],[-70.0,-132.0],[-70.0,-120.0]],"
+                + "\"overallDistance\":911268,\"calculationTimeInMs\":0.25,\"routeFound\":true}",
+                new ObjectMapper().writeValueAsString(result));
+    }
+
+    @Test
+    void testSerializeNoRoute() throws IOException {
+        assertEquals("{\"path\":null,\"pathCoordinates\":null,\"overallDistance\":-1,"
+                + "\"calculationTimeInMs\":-1.0,\"routeFound\":false}",
+                new ObjectMapper().writeValueAsString(new RoutingResult()));
+    }
+}